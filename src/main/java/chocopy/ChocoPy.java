@@ -5,8 +5,10 @@ import chocopy.common.astnodes.Node;
 import chocopy.common.astnodes.Program;
 
 import chocopy.lexical.ChocoPyLexicalAnalysis;
+import chocopy.lexical.TokenStream;
 import chocopy.semantic.ChocoPySemanticAnalysis;
 import chocopy.codegen.ChocoPyCodeGen;
+import chocopy.interpreter.ChocoPyInterpreter;
 
 import chocopy.venus.Venus;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -42,6 +44,18 @@ public class ChocoPy {
     private File dest;
     /** Run generated assembly code, if True. */
     private boolean runFlag;
+    /** Interpret the typed AST instead of generating code, if True. */
+    private boolean interpretFlag;
+    /** Number of threads used by parallel compiler passes. */
+    private int jobs;
+    /** Check statements and types in a single pass, if True. */
+    private boolean fusedFlag;
+    /** Lex the whole source file before parsing it, if True. */
+    private boolean pretokenizeFlag;
+    /** Emit faster but larger runtime routines, if True. */
+    private boolean fastRuntimeFlag;
+    /** Cache hash codes in str objects, if True. */
+    private boolean stringHashFlag;
     /** Action options for passes. */
     private char[] passes = new char[3];
     /** Program AST tree. */
@@ -102,12 +116,20 @@ public class ChocoPy {
     private void process(String inputFileName) {
         System.out.println("Reading " + inputFileName);
         try {
-            this.input = this.readFile(inputFileName);
+            // Source programs are parsed straight from the file; only the
+            // JSON inputs of later passes are read into a String.
+            this.input =
+                this.passes[0] != '.' ? null : this.readFile(inputFileName);
             this.program = null;
-            this.parse();
+            this.parse(inputFileName);
             this.analyze();
-            String code = this.generate();
-            String result = this.run(code);
+            String result;
+            if (this.interpretFlag) {
+                result = this.interpret();
+            } else {
+                String code = this.generate();
+                result = this.run(code);
+            }
             this.pipeResult(inputFileName, result);
         } catch (RuntimeException e) {
             System.err.printf("Unexpected exception: %s.", e);
@@ -131,13 +153,13 @@ public class ChocoPy {
      * - source: ChocoPy (.py)
      * - dest:   Abstract Syntax Tree - AST (.ast)
      */
-    private void parse() throws IOException {
-        if (this.passes[0] != '.') {
-            if (this.input == null) {
-                this.program = null;
-                return;
-            }
-            this.program = ChocoPyLexicalAnalysis.process(this.input, this.debug);
+    private void parse(String inputFileName) throws IOException {
+        if (this.passes[0] != '.' && this.pretokenizeFlag) {
+            TokenStream tokens = ChocoPyLexicalAnalysis.tokenize(new File(inputFileName));
+            this.program = ChocoPyLexicalAnalysis.process(tokens, this.debug);
+        } else if (this.passes[0] != '.') {
+            this.program = ChocoPyLexicalAnalysis.process(new File(inputFileName),
+                                                          this.debug);
         } else if (this.passes[1] != '.' || this.passes[2] != '.') {
             this.program = Node.fromJSON(this.input, Program.class);
         }
@@ -153,7 +175,8 @@ public class ChocoPy {
     private void analyze() {
         if (this.program != null && !this.program.hasErrors()) {
             if (this.passes[1] != '.') {
-                this.program = ChocoPySemanticAnalysis.process(this.program, this.debug);
+                this.program = ChocoPySemanticAnalysis.process(this.program, this.debug,
+                                                               this.jobs, this.fusedFlag);
             }
         }
     }
@@ -176,10 +199,24 @@ public class ChocoPy {
         } else if (this.program == null || this.program.hasErrors()) {
             return "";
         }
-        return ChocoPyCodeGen.process(this.program, this.debug);
+        return ChocoPyCodeGen.process(this.program, this.debug, this.jobs,
+                                      this.fastRuntimeFlag, this.stringHashFlag);
     }
 
 
+    /**
+     * Alternative to passes 3 and 4: interpret the typed AST directly.
+     *
+     * Returns the output of the program, which is the same as the output
+     * of running the generated assembly code.
+     */
+    private String interpret() {
+        if (this.program == null || this.program.hasErrors()) {
+            return "";
+        }
+        return ChocoPyInterpreter.process(this.program, this.debug);
+    }
+
     /** Run RISC-V assembly code. */
     private String run(String asmInput) {
         if (this.runFlag && (this.program == null || !this.program.hasErrors())) {
@@ -264,6 +301,25 @@ public class ChocoPy {
               .help("Execute a ChocoPy program.\n" +
                     "This command ignores --action and --run flag and " +
                     "use all three passes (program -> lexical -> static analysis -> codegen -> run)");
+        parser.addArgument("--interpret").action(storeTrue())
+              .help("Execute a ChocoPy program with the interpreter.\n" +
+                    "This command ignores --action and --run flag and " +
+                    "interprets the type-checked program instead of " +
+                    "generating and simulating assembly code");
+        parser.addArgument("--jobs").type(Integer.class).setDefault(1)
+              .help("Number of threads used to type-check and generate " +
+                    "code for function bodies");
+        parser.addArgument("--fused").action(storeTrue())
+              .help("Check statements while type checking, in a single pass");
+        parser.addArgument("--pretokenize").action(storeTrue())
+              .help("Lex the whole source file into a compact token " +
+                    "stream before parsing it");
+        parser.addArgument("--fast-runtime").action(storeTrue())
+              .help("Use larger runtime routines that compare and copy " +
+                    "strings and lists a word at a time");
+        parser.addArgument("--string-hash").action(storeTrue())
+              .help("Cache a hash code in each str object, so that most " +
+                    "unequal strings are compared without reading them");
         parser.addArgument("--debug").action(storeTrue())
               .help("Print debugging information.");
         parser.addArgument("--out").type(String.class)
@@ -289,6 +345,24 @@ public class ChocoPy {
                 this.passes[2] = 's';
                 this.runFlag = true;
             }
+            // interpret flag
+            this.interpretFlag = (boolean) res.get("interpret");
+            if (this.interpretFlag) {
+                this.passes[0] = 's';
+                this.passes[1] = 's';
+                this.passes[2] = '.';
+                this.runFlag = false;
+            }
+            // number of threads
+            this.jobs = Math.max(1, (int) res.get("jobs"));
+            // fused flag
+            this.fusedFlag = (boolean) res.get("fused");
+            // pretokenize flag
+            this.pretokenizeFlag = (boolean) res.get("pretokenize");
+            // fast runtime flag
+            this.fastRuntimeFlag = (boolean) res.get("fast_runtime");
+            // string hash flag
+            this.stringHashFlag = (boolean) res.get("string_hash");
             // debug flag
             this.debug = (boolean) res.get("debug");
             // initialize output file
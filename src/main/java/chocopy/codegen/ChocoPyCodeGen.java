@@ -15,12 +15,46 @@ public class ChocoPyCodeGen {
      * command line.
      */
     public static String process(Program program, boolean debug) {
+        return process(program, debug, 1);
+    }
+
+    /**
+     * Perform code generation as process(PROGRAM, DEBUG), but emit function
+     * bodies on PARALLELISM threads when PARALLELISM is greater than 1.
+     * The code generated is the same for any PARALLELISM.
+     */
+    public static String process(Program program, boolean debug,
+                                 int parallelism) {
+        return process(program, debug, parallelism, false);
+    }
+
+    /**
+     * Perform code generation as process(PROGRAM, DEBUG, PARALLELISM),
+     * but use the larger, faster string and list runtime routines iff
+     * FASTRUNTIME.
+     */
+    public static String process(Program program, boolean debug,
+                                 int parallelism, boolean fastRuntime) {
+        return process(program, debug, parallelism, fastRuntime, false);
+    }
+
+    /**
+     * Perform code generation as process(PROGRAM, DEBUG, PARALLELISM,
+     * FASTRUNTIME), but give str objects a cached hash code, and intern
+     * one-character literals, iff STRINGHASH.
+     */
+    public static String process(Program program, boolean debug,
+                                 int parallelism, boolean fastRuntime,
+                                 boolean stringHash) {
         /* Emit code into a ByteOutputStream, and convert to a string.
          * If you need instructions not provided by RiscVBackend, simply
          * use an extension of it. */
         try {
             RiscVBackend backend = new RiscVBackend();
             CodeGenBase cgen = new CodeGenImpl(backend);
+            cgen.setParallelism(parallelism);
+            cgen.setFastRuntime(fastRuntime);
+            cgen.setStringHash(stringHash);
             cgen.generate(program);
 
             return backend.toString();
@@ -15,12 +15,14 @@ import chocopy.common.astnodes.IfExpr;
 import chocopy.common.astnodes.IndexExpr;
 import chocopy.common.astnodes.MemberExpr;
 import chocopy.common.astnodes.MethodCallExpr;
+import chocopy.common.astnodes.Node;
 import chocopy.common.astnodes.ListExpr;
 import chocopy.common.astnodes.Identifier;
 import chocopy.common.astnodes.IfStmt;
 import chocopy.common.astnodes.IntegerLiteral;
 import chocopy.common.astnodes.Literal;
 import chocopy.common.astnodes.NoneLiteral;
+import chocopy.common.astnodes.Program;
 import chocopy.common.astnodes.ReturnStmt;
 import chocopy.common.astnodes.Stmt;
 import chocopy.common.astnodes.StringLiteral;
@@ -29,14 +31,24 @@ import chocopy.common.astnodes.WhileStmt;
 import chocopy.common.codegen.ClassInfo;
 import chocopy.common.codegen.CodeGenBase;
 import chocopy.common.codegen.FuncInfo;
+import chocopy.common.codegen.GlobalVarInfo;
 import chocopy.common.codegen.Label;
 import chocopy.common.codegen.RiscVBackend;
 import chocopy.common.codegen.RiscVBackend.Register;
 import chocopy.common.codegen.StackVarInfo;
 import chocopy.common.codegen.SymbolInfo;
+import chocopy.common.codegen.VarInfo;
 
 import java.util.List;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static chocopy.common.analysis.types.SymbolType.BOOL_TYPE;
 import static chocopy.common.analysis.types.SymbolType.INT_TYPE;
@@ -54,6 +66,7 @@ import static chocopy.common.codegen.RiscVBackend.Register.T2;
 import static chocopy.common.codegen.RiscVBackend.Register.T3;
 import static chocopy.common.codegen.RiscVBackend.Register.T4;
 import static chocopy.common.codegen.RiscVBackend.Register.T5;
+import static chocopy.common.codegen.RiscVBackend.Register.T6;
 import static chocopy.common.codegen.RiscVBackend.Register.ZERO;
 
 /**
@@ -73,6 +86,7 @@ public class CodeGenImpl extends CodeGenBase {
     public final int WORD_SIZE = backend.getWordSize();
     public final int MAX_CHAR_DECIMAL = 256;
     public final int ONE_CHAR_STR_OBJECT_SIZE = 20;
+    public final int MAX_ADDI_IMMEDIATE = 2047;
 
     /**
      * The location of the text resources containing custom library code.
@@ -80,18 +94,74 @@ public class CodeGenImpl extends CodeGenBase {
     protected static final String CUSTOM_LIBRARY_CODE_DIR = "chocopy/codegen/asm/";
 
     /**
-     * An activation record for reading from and writing to stack.
+     * The activation record for reading from and writing to stack, one
+     * per thread, since function bodies may be emitted in parallel.
      */
-    protected final StackRecord record;
+    protected final ThreadLocal<StackRecord> records;
 
     /**
      * A code generator emitting instructions to BACKEND.
      */
     public CodeGenImpl(RiscVBackend backend) {
         super(backend);
-        record = new StackRecord(backend, globalSymbols);
+        records = ThreadLocal.withInitial(
+                () -> new StackRecord(backend, globalSymbols));
     }
 
+    /**
+     * Return the activation record of the function being emitted by the
+     * current thread.
+     */
+    protected StackRecord record() {
+        return records.get();
+    }
+
+    /**
+     * The size of the frame being emitted by the current thread, if too
+     * large to reserve with an add-immediate instruction, and null
+     * otherwise.  The scratch register T6 addresses slots of such frames
+     * beyond the reach of an immediate offset from FP.
+     */
+    private final ThreadLocal<Integer> largeFrameSizes = new ThreadLocal<>();
+
+    /**
+     * The names of the variables used by each function, computed when
+     * first needed.  Functions may be emitted on several threads.
+     */
+    private final Map<FuncInfo, Set<String>> usedVariables = new ConcurrentHashMap<>();
+
+    /**
+     * Return the names of the variables used in the body of FUNCINFO.
+     */
+    private Set<String> getUsedVariables(FuncInfo funcInfo) {
+        return usedVariables.computeIfAbsent(funcInfo, f ->
+                f.getStatements() == null ? Collections.emptySet()
+                        : StrAppendAnalyzer.findUsedVariables(f.getStatements()));
+    }
+
+    /**
+     * The names of the attributes whose lists may be appended to in place.
+     */
+    private Set<String> ownedListAttributes = Collections.emptySet();
+
+    /**
+     * The nested functions that need a static link.  All others are
+     * called as if they were defined at the top level.
+     */
+    private Set<FuncInfo> linkedFunctions = Collections.emptySet();
+
+    /**
+     * True iff the program may load one-character strings from the
+     * allChars table, which must then be initialized.
+     */
+    private boolean charTableUsed = true;
+
+    /**
+     * The labels referenced by the custom runtime routines that the code
+     * emitted before them references, directly or through other routines.
+     */
+    private Set<Label> runtimeReferences = Collections.emptySet();
+
     /**
      * Bad argument.
      */
@@ -125,6 +195,10 @@ public class CodeGenImpl extends CodeGenBase {
      * List concatenation.
      */
     private final Label listconcatLabel = new Label("concat");
+    /**
+     * List append, for `o.a = o.a + [...]`.
+     */
+    private final Label listappendLabel = new Label("listappend");
     /**
      * String comparison.
      */
@@ -133,6 +207,10 @@ public class CodeGenImpl extends CodeGenBase {
      * String concatenation.
      */
     private final Label strcatLabel = new Label("strcat");
+    /**
+     * String append, for `x = x + e` in loops.
+     */
+    private final Label strappendLabel = new Label("strappend");
     /**
      * Character Initialization.
      */
@@ -155,11 +233,34 @@ public class CodeGenImpl extends CodeGenBase {
      */
     private final Label nobox = new Label("nobox");
 
+    @Override
+    protected void registerConstants(FuncInfo funcInfo) {
+        super.registerConstants(funcInfo);
+        // the value of str()
+        constants.getStrConstant("");
+    }
+
+    @Override
+    protected void analyzeProgram(Program program) {
+        super.analyzeProgram(program);
+
+        // drop the functions, methods and classes the program never uses
+        ReachabilityAnalyzer reachability = new ReachabilityAnalyzer(
+                program, globalSymbols, Arrays.asList(intClass, boolClass, strClass));
+        functions.removeIf(f -> !reachability.isReachable(f));
+        classes.removeIf(c -> !reachability.isInstantiated(c) && c != objectClass && c != listClass);
+        charTableUsed = reachability.indexesStrings()
+                || (stringHash && reachability.loadsCharLiterals());
+
+        ownedListAttributes = ListAppendAnalyzer.findOwnedAttributes(program);
+        linkedFunctions = StaticLinkAnalyzer.findLinkedFunctions(functions);
+    }
+
     @Override
     protected void initAsmConstants() {
         super.initAsmConstants();
         backend.defineSym(".__list_header_words__", 4);
-        backend.defineSym(".__string_header_words__", 4);
+        backend.defineSym(".__string_header_words__", stringHash ? 5 : 4);
         backend.defineSym(".__dispatch_table_offset__", 8);
     }
 
@@ -176,20 +277,30 @@ public class CodeGenImpl extends CodeGenBase {
      * @param statements top level statements
      */
     protected void emitTopLevel(List<Stmt> statements) {
-        StmtAnalyzer stmtAnalyzer = new StmtAnalyzer(null);
+        this.emitFrame(() -> this.emitTopLevelFrame(statements));
+    }
+
+    /**
+     * Emit the top level of the program, made of STATEMENTS.
+     */
+    private void emitTopLevelFrame(List<Stmt> statements) {
+        StmtAnalyzer stmtAnalyzer = new StmtAnalyzer(null, statements);
 
         backend.emitADDI(SP, SP, -2 * WORD_SIZE,
                 "Saved FP and saved RA (unused at top level).");
         backend.emitSW(ZERO, SP, 0, "Top saved FP is 0.");
         backend.emitSW(ZERO, SP, 4, "Top saved RA is 0.");
-        record.upSlot(2);
+        record().upSlot(2);
 
         backend.emitADDI(FP, SP, 2 * WORD_SIZE, "Set FP to previous SP.");
+        this.emitFrameStackPointer(null, "Reserve space for frame");
 
         Label exitLabel = this.generateLocalLabel();
 
         // initialize one character strings
-        backend.emitJAL(charInitLabel, "Initialize one-character strings");
+        if (charTableUsed) {
+            backend.emitJAL(charInitLabel, "Initialize one-character strings");
+        }
 
         for (Stmt stmt : statements) {
             stmt.dispatch(stmtAnalyzer);
@@ -198,6 +309,8 @@ public class CodeGenImpl extends CodeGenBase {
         backend.emitLocalLabel(exitLabel, "End of Program");
         backend.emitLI(A0, EXIT_ECALL, "Code for ecall: exit");
         backend.emitEcall(null);
+
+        backend.defineSym(this.getFrameSizeSymbol(null), record().getMaxSlot() * WORD_SIZE);
     }
 
     /**
@@ -210,17 +323,21 @@ public class CodeGenImpl extends CodeGenBase {
      * `bar`'s code for `bar`.
      */
     protected void emitUserDefinedFunction(FuncInfo funcInfo) {
+        this.emitFrame(() -> this.emitUserDefinedFunctionFrame(funcInfo));
+    }
+
+    /**
+     * Emit the code for the function described by FUNCINFO.
+     */
+    private void emitUserDefinedFunctionFrame(FuncInfo funcInfo) {
         backend.emitGlobalLabel(funcInfo.getCodeLabel());
-        StmtAnalyzer stmtAnalyzer = new StmtAnalyzer(funcInfo);
+        StmtAnalyzer stmtAnalyzer = new StmtAnalyzer(funcInfo, funcInfo.getStatements());
 
         // function prologue
         this.emitFunctionPrologue();
 
-        // reserve space on stack for locals
-        int localsSize = funcInfo.getLocals().size() * WORD_SIZE;
-        if (localsSize != 0) {
-            this.allocateStackSpace(localsSize, "Reserve space for locals");
-        }
+        // reserve space on stack for locals and temporaries
+        this.emitFrameStackPointer(funcInfo, "Reserve space for frame");
 
         // emit code to save local variables' literal values on stack
         for (StackVarInfo var : funcInfo.getLocals()) {
@@ -242,9 +359,12 @@ public class CodeGenImpl extends CodeGenBase {
 
             // save value on stack
             int offset = this.getVarOffset(funcInfo, varName);
-            backend.emitSW(A0, FP, offset, pushComment);
+            backend.emitSW(A0, FP, offset, T6, pushComment);
         }
-        record.upSlot(funcInfo.getLocals().size());
+        record().upSlot(funcInfo.getLocals().size());
+
+        // cache frames of enclosing functions reached often
+        this.emitFrameCache(funcInfo);
 
         // generate code for function statements
         for (Stmt stmt : funcInfo.getStatements()) {
@@ -257,6 +377,8 @@ public class CodeGenImpl extends CodeGenBase {
 
         // return to caller
         backend.emitJR(RA, "Return to caller");
+
+        backend.defineSym(this.getFrameSizeSymbol(funcInfo), record().getMaxSlot() * WORD_SIZE);
     }
 
     /**
@@ -309,24 +431,42 @@ public class CodeGenImpl extends CodeGenBase {
          */
         private FuncInfo funcInfo;
 
+        /**
+         * For each str variable that an enclosing loop only appends to, the
+         * stack slot holding the str that only the loop refers to, or 0.
+         */
+        private final Map<String, Integer> strBuilders = new HashMap<>();
+
+        /**
+         * The None and bounds checks that indexing in my statements needs.
+         */
+        private final IndexCheckAnalyzer indexChecks;
+
         /**
          * An analyzer for the function described by FUNCINFO0, which is null
-         * for the top level.
+         * for the top level, and whose statements are BODY.
          */
-        StmtAnalyzer(FuncInfo funcInfo0) {
+        StmtAnalyzer(FuncInfo funcInfo0, List<Stmt> body) {
             this.funcInfo = funcInfo0;
             if (funcInfo == null) {
                 this.sym = globalSymbols;
             } else {
                 this.sym = funcInfo.getSymbolTable();
             }
+            this.indexChecks = new IndexCheckAnalyzer(body, this::isUnshared,
+                    this.getNonNegativeVariables(), this.sym.get("len") == lenFunc);
             this.epilogue = generateLocalLabel();
-            record.setFunctionInfo(this.funcInfo); // set function
-            record.setSlot(0); // reset activation record slot
+            record().setFunctionInfo(this.funcInfo); // set function
+            record().resetSlots(); // reset activation record slot
         }
 
         @Override
         public Void analyze(ReturnStmt stmt) {
+            if (stmt.value != null && this.isTailCall(stmt.value)) {
+                this.emitTailCall(stmt.value);
+                return null;
+            }
+
             if (stmt.value == null) {
                 backend.emitMV(A0, ZERO, "No return value specified. Return NONE implicitly");
             } else {
@@ -471,11 +611,27 @@ public class CodeGenImpl extends CodeGenBase {
         public Void analyze(WhileStmt whileStmt) {
             Label startLoop = generateLocalLabel();
             Label endLoop = generateLocalLabel();
+            List<String> builders = this.beginStrBuilders(whileStmt.body, whileStmt.condition);
+            boolean invariantLength = this.indexChecks.hasInvariantLength(whileStmt);
+            BinaryExpr condition = invariantLength ? (BinaryExpr) whileStmt.condition : null;
+            boolean indexOnLeft = invariantLength && condition.operator.equals("<");
+
+            // evaluate loop bound len(v) once, if it is loop invariant
+            if (invariantLength) {
+                (indexOnLeft ? condition.right : condition.left).dispatch(this);
+                record().pushToStack(A0, "Save loop bound to stack.");
+            }
 
             backend.emitLocalLabel(startLoop, "Begin while-loop");
 
             // emit code for evaluation of condition expression
-            whileStmt.condition.dispatch(this);
+            if (invariantLength) {
+                (indexOnLeft ? condition.left : condition.right).dispatch(this);
+                record().peekFromStack(T0, "Load loop bound.");
+                backend.emitSLT(A0, A0, T0, "Compare loop index with loop bound");
+            } else {
+                whileStmt.condition.dispatch(this);
+            }
 
             // branch to the end of while loop, if condition becomes false
             backend.emitBEQZ(A0, endLoop, "If condition becomes false, exit while-loop.");
@@ -490,6 +646,10 @@ public class CodeGenImpl extends CodeGenBase {
 
             // end of while loop
             backend.emitLocalLabel(endLoop, "End of while loop");
+            if (invariantLength) {
+                record().downSlot();
+            }
+            this.endStrBuilders(builders);
 
             return null;
         }
@@ -497,6 +657,7 @@ public class CodeGenImpl extends CodeGenBase {
         @Override
         public Void analyze(ForStmt forStmt) {
             SymbolType iterableType = forStmt.iterable.getInferredType();
+            List<String> builders = this.beginStrBuilders(forStmt.body, forStmt.identifier);
 
             if (iterableType.isListType()) {
                 this.emitForList(forStmt);
@@ -508,18 +669,30 @@ public class CodeGenImpl extends CodeGenBase {
                 );
             }
 
+            this.endStrBuilders(builders);
             return null;
         }
 
         @Override
         public Void analyze(AssignStmt stmt) {
+            Identifier appendTarget = StrAppendAnalyzer.getAppendTarget(stmt);
+            if (appendTarget != null && this.strBuilders.containsKey(appendTarget.name)) {
+                this.emitStrAppend(stmt, this.strBuilders.get(appendTarget.name));
+                return null;
+            }
+            MemberExpr listAppendTarget = ListAppendAnalyzer.getAppendTarget(stmt);
+            if (listAppendTarget != null
+                    && ownedListAttributes.contains(listAppendTarget.member.name)) {
+                this.emitListAppend(stmt);
+                return null;
+            }
+
             SymbolType rhsValueType = stmt.value.getInferredType();
 
             // evaluate RHS expression and store in A0
             stmt.value.dispatch(this);
             // save evaluated RHS value on stack
-            record.pushToStack(A0, "Push result of assignment RHS value to stack.");
-            pushStackSpace("Reserve space for saved RHS value");
+            record().pushToStack(A0, "Push result of assignment RHS value to stack.");
 
             /* Assignments can only be made to identifiers, index expressions,
              * and instance attributes */
@@ -531,10 +704,10 @@ public class CodeGenImpl extends CodeGenBase {
                     Identifier id = (Identifier) target;
                     comment = String.format("Assign to var: %s", id.name);
                     // read address to identifier in T0
-                    record.readVariableAddress(T0, id.name);
+                    record().readVariableAddress(T0, id.name);
                 } else if (target instanceof IndexExpr) {
                     IndexExpr indexExpr = (IndexExpr) target;
-                    assert indexExpr.getInferredType().isListType()
+                    assert indexExpr.list.getInferredType().isListType()
                             : "static analysis must ensure only assignment to list index is allowed";
                     comment = "Set list element";
                     // get address of the list element in A0
@@ -551,7 +724,7 @@ public class CodeGenImpl extends CodeGenBase {
                     this.emitObjectifyType(member.object.getInferredType());
 
                     // advance to the address of the specific attribute, save in T0
-                    record.readAttributeAddress(T0, A0, member);
+                    record().readAttributeAddress(T0, A0, member);
 
                     // sanity check
                     if (member.object == null ||
@@ -570,25 +743,22 @@ public class CodeGenImpl extends CodeGenBase {
                 }
 
                 // retrieve RHS value
-                record.peekFromStack(A0, "Retrieve result of assignment RHS value.");
+                record().peekFromStack(A0, "Retrieve result of assignment RHS value.");
                 // box the value in A0, if needed
                 if (this.isObjectType(target.getInferredType())) {
                     // save T0
-                    pushStackSpace("Reserve space for address pointer");
-                    record.pushToStack(T0, "Push address of target to stack");
+                    record().pushToStack(T0, "Push address of target to stack");
                     // objectify
                     this.emitObjectifyType(rhsValueType);
                     // restore T0
-                    record.popFromStack(T0, "Read address of target from stack");
-                    popStackSpace("Pop stack space for address pointer");
+                    record().popFromStack(T0, "Read address of target from stack");
                 }
                 // assign value
                 backend.emitSW(A0, T0, 0, comment);
             }
 
             // pop up saved RHS value from stack
-            record.downSlot();
-            popStackSpace("Pop off saved assignment RHS value");
+            record().downSlot();
 
             return null;
         }
@@ -597,7 +767,7 @@ public class CodeGenImpl extends CodeGenBase {
         public Void analyze(Identifier id) {
             assert this.sym.get(id.name) != null
                     : "semantic analysis should ensure identifier exists";
-            record.readVariable(A0, id.name);
+            record().readVariable(A0, id.name);
             return null;
         }
 
@@ -616,17 +786,26 @@ public class CodeGenImpl extends CodeGenBase {
             backend.emitJ(errorNone, "Cannot access members in NONE object instance");
             backend.emitLocalLabel(nonNoneClassLabel, "Proceed if the class is not None.");
 
-            record.readAttribute(A0, A0, memberExpr);
+            record().readAttribute(A0, A0, memberExpr);
             return null;
         }
 
         @Override
         public Void analyze(MethodCallExpr methodCall) {
+            this.emitMethodCall(methodCall, false);
+            return null;
+        }
+
+        /**
+         * Emit code for the method call METHODCALL, as a tail call iff
+         * TAILCALL.
+         */
+        private void emitMethodCall(MethodCallExpr methodCall, boolean tailCall) {
             MemberExpr method = methodCall.method;
             Label nonNoneClassLabel = generateLocalLabel();
 
             if (method == null || method.object == null) {
-                return null;
+                return;
             } else if (!(method.object.getInferredType() instanceof ClassValueType)) {
                 throw new IllegalArgumentException(
                         "static analysis should check that MethodCallExpr acts on object type"
@@ -664,9 +843,7 @@ public class CodeGenImpl extends CodeGenBase {
             backend.emitLW(A1, A0, "@.__dispatch_table_offset__", comment);
             backend.emitLW(A1, A1, staticMethodIndex * WORD_SIZE, "Load dynamic method to call.");
 
-            this.emitFunctionCall(staticMethodInfo, A0, A1, methodCall.args);
-
-            return null;
+            this.emitFunctionCall(staticMethodInfo, A0, A1, methodCall.args, tailCall);
         }
 
         @Override
@@ -685,26 +862,21 @@ public class CodeGenImpl extends CodeGenBase {
                 }
                 // push to stack
                 rewindSlots++;
-                pushStackSpace(
-                        String.format("Reserve stack space for list element %d", i)
-                );
-                record.pushToStack(A0, String.format("Push list element %d to stack", i));
+                record().pushToStack(A0, String.format("Push list element %d to stack", i));
             }
 
             // push list length
             rewindSlots++;
-            pushStackSpace("Reserve stack space for argument: list length");
             backend.emitLI(A0, listSize, "Load list length");
-            record.pushToStack(A0, "Push list length to stack");
+            record().pushToStack(A0, "Push list length to stack");
 
             // construct list
+            this.emitArgumentsStackPointer();
             backend.emitJAL(constlistLabel, "Construct list");
 
             // pop arguments
-            if (rewindSlots != 0) {
-                deallocateStackSpace(rewindSlots * WORD_SIZE, "Pop arguments off the stack");
-                record.downSlot(rewindSlots);
-            }
+            this.emitFrameStackPointer();
+            record().downSlot(rewindSlots);
 
             return null;
         }
@@ -768,15 +940,13 @@ public class CodeGenImpl extends CodeGenBase {
             backend.emitLW(A1, A1, initMethodIndex * WORD_SIZE, "Load dynamic __init__ to call.");
 
             // save address to the allocated object instance on stack
-            record.pushToStack(A0, "Push pointer to object instance on stack.");
-            pushStackSpace("Reserve space for the object pointer");
+            record().pushToStack(A0, "Push pointer to object instance on stack.");
 
             // call __init__ method
-            this.emitFunctionCall(initMethod, A0, A1, new ArrayList<>());
+            this.emitFunctionCall(initMethod, A0, A1, new ArrayList<>(), false);
 
             // restore pointer to the object instance
-            record.popFromStack(A0, "Restore pointer to newly created object instance.");
-            popStackSpace("Pop the object pointer of the stack");
+            record().popFromStack(A0, "Restore pointer to newly created object instance.");
         }
 
         /**
@@ -784,7 +954,7 @@ public class CodeGenImpl extends CodeGenBase {
          * and given lists of ARGS.
          */
         private void emitFunctionCall(FuncInfo funcInfo, List<Expr> args) {
-            this.emitFunctionCall(funcInfo, null, null, args);
+            this.emitFunctionCall(funcInfo, null, null, args, false);
         }
 
         /**
@@ -796,38 +966,39 @@ public class CodeGenImpl extends CodeGenBase {
          *
          * If METHODADDR is specified, the code jumps to function at METHODADDR.
          * Otherwise, the code label of FUNCINFO is used.
+         *
+         * If TAILCALL, the call is a tail call, for which isTailCall holds,
+         * and the callee returns directly to the current function's caller.
          */
         private void emitFunctionCall(FuncInfo funcInfo,
                                       Register self,
                                       Register methodAddr,
-                                      List<Expr> args) {
+                                      List<Expr> args,
+                                      boolean tailCall) {
             String funcName = funcInfo.getFuncName();
 
             List<String> params = funcInfo.getParams();
-            assert params.size() == args.size()
+            assert params.size() == args.size() + (self != null ? 1 : 0)
                     : "static analysis should ensure passed arguments are correct";
 
             int rewindSlots = 0;
 
             if (methodAddr != null) {
                 rewindSlots++;
-                pushStackSpace("Move SP to reserve space for address of the function code");
-                record.pushToStack(methodAddr, "Push address of method's code to stack.");
+                record().pushToStack(methodAddr, "Push address of method's code to stack.");
             }
 
             // push static link, if needed
-            if (!this.isTopLevel(funcInfo)) {
+            if (hasStaticLink(funcInfo)) {
                 rewindSlots++;
                 this.emitStaticLink(T0, funcInfo);
-                pushStackSpace("Move SP to reserve space for static link");
-                record.pushToStack(T0, "Push static link on stack");
+                record().pushToStack(T0, "Push static link on stack");
             }
 
             // arguments passed to method call contains implicit `self` already
             if (self != null) {
                 rewindSlots++;
-                pushStackSpace("Move SP to reserve space for `self` argument");
-                record.pushToStack(self, "Push implicit `self` argument to stack.");
+                record().pushToStack(self, "Push implicit `self` argument to stack.");
                 params = params.subList(1, params.size());
             }
 
@@ -840,7 +1011,7 @@ public class CodeGenImpl extends CodeGenBase {
                  *
                  * 1. final result of expression is saved at $A0
                  * 2. the evaluation functions as basic stack machines and will
-                 *    not modify values above the current SP
+                 *    not modify values in slots up to the current slot
                  */
 
                 // generate code for expression evaluation
@@ -852,8 +1023,15 @@ public class CodeGenImpl extends CodeGenBase {
                 }
 
                 rewindSlots++;
-                pushStackSpace(String.format("Reserve space for argument %d on stack", i));
-                record.pushToStack(A0, String.format("Push argument %d to stack", i));
+                record().pushToStack(A0, String.format("Push argument %d to stack", i));
+            }
+
+            // jump to function, in place of the current function
+            this.emitArgumentsStackPointer();
+            if (tailCall) {
+                this.emitTailJump(funcInfo, methodAddr, rewindSlots);
+                record().downSlot(rewindSlots);
+                return;
             }
 
             // call function
@@ -867,11 +1045,8 @@ public class CodeGenImpl extends CodeGenBase {
             }
 
             // pop arguments and static link
-            if (rewindSlots != 0) {
-                deallocateStackSpace(rewindSlots * WORD_SIZE,
-                        "Pop arguments and static link off the stack");
-                record.downSlot(rewindSlots);
-            }
+            this.emitFrameStackPointer();
+            record().downSlot(rewindSlots);
 
             if (this.isNoneType(funcInfo.getReturnType())) {
                 backend.emitMV(A0, ZERO, "Return NONE implicitly");
@@ -879,6 +1054,96 @@ public class CodeGenImpl extends CodeGenBase {
 
         }
 
+        /*---------------- TAIL CALLS  ------------------*/
+
+        /**
+         * Return true iff VALUE, the value of a return statement in the
+         * current function, is a call that can take over the current
+         * function's frame: a call to a user-defined function or method
+         * whose result needs no boxing, whose arguments and static link
+         * take as many words as those of the current function, and which
+         * does not use the current function's frame through its static
+         * link.
+         */
+        private boolean isTailCall(Expr value) {
+            FuncInfo callee;
+            if (this.funcInfo == null) {
+                return false;
+            } else if (value instanceof CallExpr) {
+                SymbolInfo info = this.sym.get(((CallExpr) value).function.name);
+                if (!(info instanceof FuncInfo)
+                        || info == printFunc || info == lenFunc || info == inputFunc) {
+                    return false;
+                }
+                callee = (FuncInfo) info;
+            } else if (value instanceof MethodCallExpr) {
+                MemberExpr method = ((MethodCallExpr) value).method;
+                if (!(method.object.getInferredType() instanceof ClassValueType)) {
+                    return false;
+                }
+                ClassInfo classInfo = (ClassInfo) globalSymbols.get(
+                        method.object.getInferredType().className());
+                callee = classInfo.getMethods().get(
+                        classInfo.getMethodIndex(method.member.name));
+            } else {
+                return false;
+            }
+
+            SymbolType returnType = callee.getReturnType();
+            return !this.isNoneType(returnType)
+                    && !(this.isObjectType(this.funcInfo.getReturnType())
+                         && (this.isIntegerType(returnType) || this.isBooleanType(returnType)))
+                    && this.getArgumentWords(callee) == this.getArgumentWords(this.funcInfo)
+                    && !(hasStaticLink(callee) && this.isNestedIn(callee, this.funcInfo));
+        }
+
+        /**
+         * Emit code for the tail call VALUE, for which isTailCall holds.
+         */
+        private void emitTailCall(Expr value) {
+            if (value instanceof CallExpr) {
+                CallExpr call = (CallExpr) value;
+                FuncInfo callee = (FuncInfo) this.sym.get(call.function.name);
+                this.emitFunctionCall(callee, null, null, call.args, true);
+            } else {
+                this.emitMethodCall((MethodCallExpr) value, true);
+            }
+        }
+
+        /**
+         * Emit code to jump to the function FUNCINFO, or to the method at
+         * the address in METHODADDR, in place of the current function, when
+         * the top REWINDSLOTS slots of the stack hold the callee's
+         * arguments and static link, below its address if METHODADDR.
+         * The arguments replace the current function's own, and its frame
+         * is popped, so the callee returns to the current function's caller.
+         */
+        private void emitTailJump(FuncInfo funcInfo, Register methodAddr, int rewindSlots) {
+            int words = methodAddr == null ? rewindSlots : rewindSlots - 1;
+            for (int i = 0; i < words; i++) {
+                backend.emitLW(T0, SP, i * WORD_SIZE, "Load argument for tail call");
+                backend.emitSW(T0, FP, i * WORD_SIZE, T6, "Replace argument of current function");
+            }
+            if (methodAddr != null) {
+                backend.emitLW(methodAddr, SP, words * WORD_SIZE, "Restore address to method's code");
+            }
+            emitFunctionEpilogue();
+            String comment = String.format("Tail call to function: %s", funcInfo.getFuncName());
+            if (methodAddr == null) {
+                backend.emitJ(funcInfo.getCodeLabel(), comment);
+            } else {
+                backend.emitJR(methodAddr, comment);
+            }
+        }
+
+        /**
+         * Return the number of words that the arguments and static link of
+         * FUNCINFO take on the stack.
+         */
+        private int getArgumentWords(FuncInfo funcInfo) {
+            return funcInfo.getParams().size() + (hasStaticLink(funcInfo) ? 1 : 0);
+        }
+
         /*---------------- BINARY EXPRESSIONS  ------------------*/
 
         /**
@@ -887,15 +1152,17 @@ public class CodeGenImpl extends CodeGenBase {
         private void emitIntegerBinaryExpr(BinaryExpr expr) {
             /* There is no short-circuiting for integers. */
 
+            if (this.emitIntegerBinaryExprByConstant(expr)) {
+                return;
+            }
+
             // evaluate left expression, and save it on stack
             expr.left.dispatch(this);
-            record.pushToStack(A0, "Save result of left operand to stack.");
-            pushStackSpace("Reserve space for saved left operand result");
+            record().pushToStack(A0, "Save result of left operand to stack.");
 
             // evaluate right expression, and save result in A0
             expr.right.dispatch(this);
-            record.popFromStack(T0, "Retrieve result of left operand.");
-            popStackSpace("Pop off saved left operand result");
+            record().popFromStack(T0, "Retrieve result of left operand.");
 
             Label nonzeroDivisorLabel = generateLocalLabel();
 
@@ -916,27 +1183,20 @@ public class CodeGenImpl extends CodeGenBase {
 
                     // perform division
                     backend.emitLocalLabel(nonzeroDivisorLabel, "Divisor is non-zero");
+                    backend.emitDIV(T1, T0, A0, "Operator: division, toward 0");
+                    backend.emitREM(T2, T0, A0, "Remainder, with sign of left operand");
 
-                    Label adjustSignLabel = generateLocalLabel();
+                    // round down if the division was inexact and the
+                    // quotient negative, i.e. the remainder and the
+                    // divisor differ in sign
                     Label endDivLabel = generateLocalLabel();
-
-                    // normal division if two operands have same sign
-                    backend.emitXOR(T1, T0, A0, "Check for same sign");
-                    backend.emitBLTZ(T1, adjustSignLabel, "Adjust left operand if differing sign");
-                    backend.emitDIV(A0, T0, A0, "Operator: division");
-                    backend.emitJ(endDivLabel, null);
-
-                    // adjust left operant if necessary
-                    // this procedure is based on the reference implementation
-                    backend.emitLocalLabel(adjustSignLabel, null);
-                    backend.emitSLT(T1, ZERO, A0, "T1 = 1 if right > 0 else 0");
-                    backend.emitADD(T1, T1, T1, "T1 = T1 * 2");
-                    backend.emitADDI(T1, T1, -1, "T1 = 1 if right >=0 else -1");
-                    backend.emitADD(T1, T0, T1, "Adjust left operand");
-                    backend.emitDIV(T1, T1, A0, "Adjusted division, toward 0");
-                    backend.emitADDI(A0, T1, -1, "Complete division for differing sign");
+                    backend.emitBEQZ(T2, endDivLabel, "If no remainder, no adjustment");
+                    backend.emitXOR(T2, T2, A0, "Check for differing sign");
+                    backend.emitBGEZ(T2, endDivLabel, "Don't adjust if signs equal");
+                    backend.emitADDI(T1, T1, -1, "Round quotient down");
 
                     backend.emitLocalLabel(endDivLabel, "End of division");
+                    backend.emitMV(A0, T1, "Store result");
 
                     break;
                 case "%":
@@ -963,6 +1223,162 @@ public class CodeGenImpl extends CodeGenBase {
             }
         }
 
+        /**
+         * Emit code for EXPR, a binary expression of integer type, if it
+         * multiplies by, or divides by, a positive integer literal, and
+         * return true.  Otherwise, return false and emit nothing.
+         */
+        private boolean emitIntegerBinaryExprByConstant(BinaryExpr expr) {
+            Expr operand;
+            int constant;
+            if (expr.right instanceof IntegerLiteral
+                    && ((IntegerLiteral) expr.right).value > 0
+                    && (expr.operator.equals("*") || expr.operator.equals("//")
+                        || expr.operator.equals("%"))) {
+                operand = expr.left;
+                constant = ((IntegerLiteral) expr.right).value;
+            } else if (expr.left instanceof IntegerLiteral
+                    && ((IntegerLiteral) expr.left).value > 0
+                    && expr.operator.equals("*")) {
+                operand = expr.right;
+                constant = ((IntegerLiteral) expr.left).value;
+            } else {
+                return false;
+            }
+
+            // evaluate the other operand, and save result in A0
+            operand.dispatch(this);
+
+            switch (expr.operator) {
+                case "*":
+                    this.emitMultiplyByConstant(A0, A0, constant, T0);
+                    break;
+                case "//":
+                    this.emitDivideByConstant(constant, false);
+                    break;
+                case "%":
+                    this.emitDivideByConstant(constant, true);
+                    break;
+            }
+            return true;
+        }
+
+        /**
+         * Emit code to set RD to RS * MULTIPLIER, with shifts and an add
+         * when MULTIPLIER has at most two bits set, using TEMP as scratch.
+         */
+        private void emitMultiplyByConstant(Register rd, Register rs, int multiplier,
+                                            Register temp) {
+            int high = 31 - Integer.numberOfLeadingZeros(multiplier);
+            int low = Integer.numberOfTrailingZeros(multiplier);
+            if (multiplier <= 0 || Integer.bitCount(multiplier) > 2) {
+                backend.emitLI(temp, multiplier, "Load multiplier");
+                backend.emitMUL(rd, rs, temp, "Multiply by constant");
+            } else if (high == low) {
+                backend.emitSLLI(rd, rs, high, "Multiply by " + multiplier);
+            } else {
+                backend.emitSLLI(temp, rs, high, "Multiply by " + (1 << high));
+                backend.emitSLLI(rd, rs, low, "Multiply by " + (1 << low));
+                backend.emitADD(rd, rd, temp, "Multiply by " + multiplier);
+            }
+        }
+
+        /**
+         * Emit code to set A0 to A0 // DIVISOR, or to A0 % DIVISOR if
+         * REMAINDER, where DIVISOR is positive, using T0-T2 as scratch.
+         * Powers of two use shifts and masks; other divisors multiply by a
+         * magic number, as in Hacker's Delight, section 10-4, and then
+         * round the quotient toward negative infinity.
+         */
+        private void emitDivideByConstant(int divisor, boolean remainder) {
+            int shift = Integer.numberOfTrailingZeros(divisor);
+            if (divisor == 1) {
+                if (remainder) {
+                    backend.emitMV(A0, ZERO, "Remainder of division by 1");
+                }
+                return;
+            } else if (Integer.bitCount(divisor) == 1) {
+                if (!remainder) {
+                    backend.emitSRAI(A0, A0, shift, "Divide by " + divisor);
+                } else if (divisor - 1 <= MAX_ADDI_IMMEDIATE) {
+                    backend.emitANDI(A0, A0, divisor - 1, "Remainder of division by " + divisor);
+                } else {
+                    backend.emitSLLI(A0, A0, 32 - shift, "Clear all but low bits");
+                    backend.emitSRLI(A0, A0, 32 - shift, "Remainder of division by " + divisor);
+                }
+                return;
+            }
+
+            int[] magic = getDivisionMagic(divisor);
+            backend.emitLI(T0, magic[0], "Load magic number for division by " + divisor);
+            backend.emitMULH(T0, A0, T0, "Multiply by magic number");
+            if (magic[0] < 0) {
+                backend.emitADD(T0, T0, A0, "Correct for negative magic number");
+            }
+            if (magic[1] > 0) {
+                backend.emitSRAI(T0, T0, magic[1], "Shift by magic shift");
+            }
+            backend.emitSRLI(T1, A0, 31, "T1 = 1 if dividend < 0 else 0");
+            backend.emitADD(T0, T0, T1, "Quotient, rounded toward 0");
+            this.emitMultiplyByConstant(T1, T0, divisor, T2);
+            backend.emitSUB(T1, A0, T1, "Remainder, with sign of dividend");
+            if (!remainder) {
+                backend.emitSLT(T2, T1, ZERO, "T2 = 1 if quotient was rounded up");
+                backend.emitSUB(A0, T0, T2, "Quotient, rounded down");
+            } else {
+                Label nonNegativeLabel = generateLocalLabel();
+                backend.emitMV(A0, T1, "Remainder, with sign of dividend");
+                backend.emitBGEZ(A0, nonNegativeLabel, "Done, if remainder is non-negative");
+                this.emitAddConstant(A0, A0, divisor, T2);
+                backend.emitLocalLabel(nonNegativeLabel, "End of remainder by " + divisor);
+            }
+        }
+
+        /**
+         * Return the magic number and shift for signed division by DIVISOR,
+         * which is at least 2, as in Hacker's Delight, section 10-4: for all
+         * ints n, n / DIVISOR rounded toward 0 is ((n * M) >> (32 + S)),
+         * plus 1 if n is negative, where M is the magic number, read as a
+         * 32-bit unsigned int, and S is the shift.
+         */
+        private int[] getDivisionMagic(int divisor) {
+            final long two31 = 1L << 31;
+            long anc = two31 - 1 - two31 % divisor;
+            int p = 31;
+            long q1 = two31 / anc, r1 = two31 - q1 * anc;
+            long q2 = two31 / divisor, r2 = two31 - q2 * divisor;
+            long delta;
+            do {
+                p += 1;
+                q1 *= 2;
+                r1 *= 2;
+                if (r1 >= anc) {
+                    q1 += 1;
+                    r1 -= anc;
+                }
+                q2 *= 2;
+                r2 *= 2;
+                if (r2 >= divisor) {
+                    q2 += 1;
+                    r2 -= divisor;
+                }
+                delta = divisor - r2;
+            } while (q1 < delta || (q1 == delta && r1 == 0));
+            return new int[] { (int) (q2 + 1), p - 32 };
+        }
+
+        /**
+         * Emit code to set RD to RS + CONSTANT, using TEMP as scratch.
+         */
+        private void emitAddConstant(Register rd, Register rs, int constant, Register temp) {
+            if (constant <= MAX_ADDI_IMMEDIATE) {
+                backend.emitADDI(rd, rs, constant, "Add " + constant);
+            } else {
+                backend.emitLI(temp, constant, "Load " + constant);
+                backend.emitADD(rd, rs, temp, "Add " + constant);
+            }
+        }
+
         /**
          * Emit code for binary expression of boolean type.
          */
@@ -1000,13 +1416,11 @@ public class CodeGenImpl extends CodeGenBase {
             /* There is no short-circuiting for other boolean comparisons. */
 
             // save left expression result on stack
-            record.pushToStack(A0, "Save result of left operand to stack.");
-            pushStackSpace("Reserve space for saved left operand result");
+            record().pushToStack(A0, "Save result of left operand to stack.");
 
             // evaluate right expression, and save result in A0
             expr.right.dispatch(this);
-            record.popFromStack(T0, "Retrieve result of left operand.");
-            popStackSpace("Pop off saved left operand result");
+            record().popFromStack(T0, "Retrieve result of left operand.");
 
             // comparisons
             switch (expr.operator) {
@@ -1047,16 +1461,16 @@ public class CodeGenImpl extends CodeGenBase {
                                 : "static analysis should ensure string concatenation acts on strings";
 
                         // pass strings as arguments
-                        allocateStackSpace(2 * WORD_SIZE, "Reserve space for two string pointers");
-                        record.pushToStack(T0, "Save pointer to first string on stack.");
-                        record.pushToStack(A0, "Save pointer to second string on stack.");
+                        record().pushToStack(T0, "Save pointer to first string on stack.");
+                        record().pushToStack(A0, "Save pointer to second string on stack.");
 
                         // call string comparison routine
+                        this.emitArgumentsStackPointer();
                         backend.emitJAL(streqLabel, "Compare strings");
 
                         // restore stack
-                        record.downSlot(2);
-                        deallocateStackSpace(2 * WORD_SIZE, "Pop space for two string pointers");
+                        this.emitFrameStackPointer();
+                        record().downSlot(2);
                     } else {
                         throw new IllegalArgumentException("cannot apply != on non-special types");
                     }
@@ -1083,26 +1497,24 @@ public class CodeGenImpl extends CodeGenBase {
                                 : "static analysis should ensure string concatenation acts on strings";
 
                         // pass strings as arguments
-                        allocateStackSpace(2 * WORD_SIZE, "Reserve space for two string pointers");
-                        record.pushToStack(T0, "Save pointer to first string on stack.");
-                        record.pushToStack(A0, "Save pointer to second string on stack.");
+                        record().pushToStack(T0, "Save pointer to first string on stack.");
+                        record().pushToStack(A0, "Save pointer to second string on stack.");
 
                         // call string comparison routine
+                        this.emitArgumentsStackPointer();
                         backend.emitJAL(streqLabel, "Compare strings");
                         // reverse value
                         backend.emitSEQZ(A0, A0, "If str1 == str2, then (str1 != str2) is false");
 
                         // restore stack
-                        record.downSlot(2);
-                        deallocateStackSpace(2 * WORD_SIZE, "Pop space for two string pointers");
+                        this.emitFrameStackPointer();
+                        record().downSlot(2);
                     } else {
                         throw new IllegalArgumentException("cannot apply != on non-special types");
                     }
 
                     break;
                 case "is":
-                    assert expr.left.getInferredType().equals(expr.right.getInferredType())
-                            : "static analysis should ensure boolean comparison is valid";
                     assert !expr.left.getInferredType().isSpecialType()
                             : "static analysis should ensure `is` not applied on special types";
 
@@ -1132,21 +1544,19 @@ public class CodeGenImpl extends CodeGenBase {
 
             // evaluate left expression, and save it on stack
             expr.left.dispatch(this);
-            pushStackSpace("Reserve space for saved left operand result");
-            record.pushToStack(A0, "Save result of left operand to stack.");
+            record().pushToStack(A0, "Save result of left operand to stack.");
 
             // evaluate right expression, and save result in A0
             expr.right.dispatch(this);
-            pushStackSpace("Reserve space for saved right operand result");
-            record.pushToStack(A0, "Save result of right operand to stack.");
+            record().pushToStack(A0, "Save result of right operand to stack.");
 
             // call string concatenation routine
+            this.emitArgumentsStackPointer();
             backend.emitJAL(strcatLabel, "Concatenate the strings");
 
             // deallocate stack space
-            deallocateStackSpace(2 * WORD_SIZE,
-                    "Pop left and right operand results from stack");
-            record.downSlot(2);
+            this.emitFrameStackPointer();
+            record().downSlot(2);
         }
 
         /**
@@ -1164,7 +1574,6 @@ public class CodeGenImpl extends CodeGenBase {
                     : "static analysis should ensure list concatenation acts on lists";
 
             // select list element boxing routine for concatenation
-            allocateStackSpace(2 * WORD_SIZE, "Reserve space for address of boxing routines");
             if (this.isObjectType(expr.getInferredType().elementType())) {
                 backend.emitLA(T0, nobox, "Load address to boxing routine: no boxing");
                 backend.emitLA(T1, boxInt, "Load address to boxing routine: boxing integer");
@@ -1175,46 +1584,44 @@ public class CodeGenImpl extends CodeGenBase {
                 boolean firstBoolList = this.isBooleanType(expr.left.getInferredType().elementType());
 
                 if (firstIntList) {
-                    record.pushToStack(T1, "Integer boxing for first list");
+                    record().pushToStack(T1, "Integer boxing for first list");
                 } else if (firstBoolList) {
-                    record.pushToStack(T2, "Boolean boxing for first list");
+                    record().pushToStack(T2, "Boolean boxing for first list");
                 } else {
-                    record.pushToStack(T0, "No boxing for first list");
+                    record().pushToStack(T0, "No boxing for first list");
                 }
 
                 // boxing routine for second list
                 boolean secondIntList = this.isIntegerType(expr.right.getInferredType().elementType());
                 boolean secondBoolList = this.isBooleanType(expr.right.getInferredType().elementType());
                 if (secondIntList) {
-                    record.pushToStack(T1, "Integer boxing for second list");
+                    record().pushToStack(T1, "Integer boxing for second list");
                 } else if (secondBoolList) {
-                    record.pushToStack(T2, "Boolean boxing for second list");
+                    record().pushToStack(T2, "Boolean boxing for second list");
                 } else {
-                    record.pushToStack(T0, "No boxing for second list");
+                    record().pushToStack(T0, "No boxing for second list");
                 }
             } else {
                 backend.emitLA(T0, nobox, "Load address to boxing routine: no boxing");
-                record.pushToStack(T0, "No boxing for first list");
-                record.pushToStack(T0, "No boxing for second list");
+                record().pushToStack(T0, "No boxing for first list");
+                record().pushToStack(T0, "No boxing for second list");
             }
 
             // evaluate left expression, and save it on stack
             expr.left.dispatch(this);
-            pushStackSpace("Reserve space for saved left operand result");
-            record.pushToStack(A0, "Save result of left operand to stack.");
+            record().pushToStack(A0, "Save result of left operand to stack.");
 
             // evaluate right expression, and save result in A0
             expr.right.dispatch(this);
-            pushStackSpace("Reserve space for saved right operand result");
-            record.pushToStack(A0, "Save result of right operand to stack.");
+            record().pushToStack(A0, "Save result of right operand to stack.");
 
             // call list concatenation routine
+            this.emitArgumentsStackPointer();
             backend.emitJAL(listconcatLabel, "Concatenate the lists");
 
             // deallocate stack space
-            deallocateStackSpace(4 * WORD_SIZE,
-                    "Pop list concatenation arguments from stack");
-            record.downSlot(4);
+            this.emitFrameStackPointer();
+            record().downSlot(4);
         }
 
         /*----------------------- INDEXING  -----------------------*/
@@ -1228,25 +1635,27 @@ public class CodeGenImpl extends CodeGenBase {
 
             // evaluate list expression, and save it on stack
             expr.list.dispatch(this);
-            record.pushToStack(A0, "Save list pointer on stack.");
-            pushStackSpace("Reserve space for saved list pointer");
+            record().pushToStack(A0, "Save list pointer on stack.");
 
             // evaluate index expression, and save result in A0
             expr.index.dispatch(this);
 
             // restore list pointer
-            record.popFromStack(A1, "Retrieve list pointer in A1.");
-            popStackSpace("Pop off saved list pointer from stack");
+            record().popFromStack(A1, "Retrieve list pointer in A1.");
 
             // ensure list pointer is not None
-            backend.emitBNEZ(A1, checkOOBLabel, "Ensure list is not None");
-            backend.emitJ(errorNone, "Throw operation on None error.");
+            if (this.indexChecks.needsNoneCheck(expr)) {
+                backend.emitBNEZ(A1, checkOOBLabel, "Ensure list is not None");
+                backend.emitJ(errorNone, "Throw operation on None error.");
+            }
 
             // ensure index is within bound
             backend.emitLocalLabel(checkOOBLabel, "List is not none. Now check index bound");
-            backend.emitLW(T0, A1, "@.__len__", "Load attribute: __len__");
-            backend.emitBLTU(A0, T0, noErrorLabel, "Ensure 0 <= index < len");
-            backend.emitJ(errorOob, "Throw index out of bound error");
+            if (this.indexChecks.needsBoundsCheck(expr)) {
+                backend.emitLW(T0, A1, "@.__len__", "Load attribute: __len__");
+                backend.emitBLTU(A0, T0, noErrorLabel, "Ensure 0 <= index < len");
+                backend.emitJ(errorOob, "Throw index out of bound error");
+            }
 
             // list item selection
             backend.emitLocalLabel(noErrorLabel, "Index within bound, so compute list selection");
@@ -1264,25 +1673,27 @@ public class CodeGenImpl extends CodeGenBase {
 
             // evaluate string expression, and save it on stack
             expr.list.dispatch(this);
-            record.pushToStack(A0, "Save string pointer on stack.");
-            pushStackSpace("Reserve space for saved string pointer");
+            record().pushToStack(A0, "Save string pointer on stack.");
 
             // evaluate index expression, and save result in A0
             expr.index.dispatch(this);
 
             // restore string pointer to A1
-            record.popFromStack(A1, "Retrieve string pointer in A1.");
-            popStackSpace("Pop off saved string pointer from stack");
+            record().popFromStack(A1, "Retrieve string pointer in A1.");
 
             // ensure string pointer is not None
-            backend.emitBNEZ(A1, checkOOBLabel, "Ensure string is not None");
-            backend.emitJ(errorNone, "Throw operation on None error.");
+            if (this.indexChecks.needsNoneCheck(expr)) {
+                backend.emitBNEZ(A1, checkOOBLabel, "Ensure string is not None");
+                backend.emitJ(errorNone, "Throw operation on None error.");
+            }
 
             // ensure index is within bound
             backend.emitLocalLabel(checkOOBLabel, "string is not none. Now check index bound");
-            backend.emitLW(T0, A1, "@.__len__", "Load attribute: __len__");
-            backend.emitBLTU(A0, T0, noErrorLabel, "Ensure 0 <= index < len");
-            backend.emitJ(errorOob, "Throw index out of bound error");
+            if (this.indexChecks.needsBoundsCheck(expr)) {
+                backend.emitLW(T0, A1, "@.__len__", "Load attribute: __len__");
+                backend.emitBLTU(A0, T0, noErrorLabel, "Ensure 0 <= index < len");
+                backend.emitJ(errorOob, "Throw index out of bound error");
+            }
 
             // character selection
             backend.emitLocalLabel(noErrorLabel, "Index within bound, so compute string selection");
@@ -1291,8 +1702,7 @@ public class CodeGenImpl extends CodeGenBase {
             backend.emitLBU(T0, T1, 0, "Load indexed character (decimal value)");
 
             // obtain address to corresponding character object
-            backend.emitLI(T1, ONE_CHAR_STR_OBJECT_SIZE, "Load one-char string object size");
-            backend.emitMUL(T0, T0, T1, "Get offset into single-char table");
+            this.emitMultiplyByConstant(T0, T0, getOneCharStrObjectSize(), T1);
             backend.emitLA(A0, allChars, "Load address to single-char table");
             backend.emitADD(A0, A0, T0, "Index into single-char table");
         }
@@ -1321,7 +1731,7 @@ public class CodeGenImpl extends CodeGenBase {
             // prepare for-list loop values in T0-T3
 
             // fetch address to loop variable, we do it first, because it modifies T0-T2
-            record.readVariableAddress(T3, forStmt.identifier.name);
+            record().readVariableAddress(T3, forStmt.identifier.name);
             backend.emitLW(T0, A0, "@.__len__", "Store the list length in T0.");
             backend.emitMV(T1, ZERO, "The loop counter starts at 0. Store in T1.");
             backend.emitADDI(T2, A0, "@.__elts__", "Initially point T2 at first list element");
@@ -1336,11 +1746,10 @@ public class CodeGenImpl extends CodeGenBase {
             backend.emitSW(T4, T3, 0, "Store value to loop variable, at address T3");
 
             // save values of T0-T3 registers
-            allocateStackSpace(4 * WORD_SIZE, "Reserve space for T0-T3, used by for-list loop");
-            record.pushToStack(T0, "Store the value of T0, used by for-list loop");
-            record.pushToStack(T1, "Store the value of T1, used by for-list loop");
-            record.pushToStack(T2, "Store the value of T2, used by for-list loop");
-            record.pushToStack(T3, "Store the value of T3, used by for-list loop");
+            record().pushToStack(T0, "Store the value of T0, used by for-list loop");
+            record().pushToStack(T1, "Store the value of T1, used by for-list loop");
+            record().pushToStack(T2, "Store the value of T2, used by for-list loop");
+            record().pushToStack(T3, "Store the value of T3, used by for-list loop");
 
 
             // emit code for the body of for-list loop
@@ -1349,11 +1758,10 @@ public class CodeGenImpl extends CodeGenBase {
             }
 
             // restore values of T0-T3 registers
-            record.popFromStack(T3, "Restore the value of T3, used by for-list loop");
-            record.popFromStack(T2, "Restore the value of T2, used by for-list loop");
-            record.popFromStack(T1, "Restore the value of T1, used by for-list loop");
-            record.popFromStack(T0, "Restore the value of T0, used by for-list loop");
-            deallocateStackSpace(4 * WORD_SIZE, "Pop stack space for T0-T3, used by for-list loop");
+            record().popFromStack(T3, "Restore the value of T3, used by for-list loop");
+            record().popFromStack(T2, "Restore the value of T2, used by for-list loop");
+            record().popFromStack(T1, "Restore the value of T1, used by for-list loop");
+            record().popFromStack(T0, "Restore the value of T0, used by for-list loop");
 
             // end of one loop iteration
             backend.emitADDI(T1, T1, 1, "Increment loop counter by 1");
@@ -1390,7 +1798,7 @@ public class CodeGenImpl extends CodeGenBase {
             // prepare for-str loop values in T0-T3
 
             // fetch address to loop variable, we do it first, because it modifies T0-T2
-            record.readVariableAddress(T3, forStmt.identifier.name);
+            record().readVariableAddress(T3, forStmt.identifier.name);
             backend.emitLW(T0, A0, "@.__len__", "Store the str length in T0.");
             backend.emitMV(T1, ZERO, "The loop counter starts at 0. Store in T1.");
             backend.emitADDI(T2, A0, "@.__str__", "Initially point T2 at first str character");
@@ -1403,17 +1811,16 @@ public class CodeGenImpl extends CodeGenBase {
 
             // save values of T0-T3 registers
             // we do this BEFORE converting character object, to ensure T0-T3 haven't been modified
-            allocateStackSpace(4 * WORD_SIZE, "Reserve space for T0-T3, used by for-str loop");
-            record.pushToStack(T0, "Store the value of T0, used by for-str loop");
-            record.pushToStack(T1, "Store the value of T1, used by for-str loop");
-            record.pushToStack(T2, "Store the value of T2, used by for-str loop");
-            record.pushToStack(T3, "Store the value of T3, used by for-str loop");
+            record().pushToStack(T0, "Store the value of T0, used by for-str loop");
+            record().pushToStack(T1, "Store the value of T1, used by for-str loop");
+            record().pushToStack(T2, "Store the value of T2, used by for-str loop");
+            record().pushToStack(T3, "Store the value of T3, used by for-str loop");
 
             // T0: str_length, T1: loop counter, T2: pointer at str, T3: address of control variable
 
             // read current str character object
             backend.emitLBU(T4, T2, 0, "Load indexed character (decimal value) at T2");
-            backend.emitLI(T5, ONE_CHAR_STR_OBJECT_SIZE, "Load one-char string object size");
+            backend.emitLI(T5, getOneCharStrObjectSize(), "Load one-char string object size");
             backend.emitMUL(T5, T4, T5, "Get offset into single-char table");
             backend.emitLA(T2, allChars, "Load address to single-char table");
             backend.emitADD(T2, T2, T5, "Index into single-char table");
@@ -1427,11 +1834,10 @@ public class CodeGenImpl extends CodeGenBase {
             }
 
             // restore values of T0-T3 registers
-            record.popFromStack(T3, "Restore the value of T3, used by for-str loop");
-            record.popFromStack(T2, "Restore the value of T2, used by for-str loop");
-            record.popFromStack(T1, "Restore the value of T1, used by for-str loop");
-            record.popFromStack(T0, "Restore the value of T0, used by for-str loop");
-            deallocateStackSpace(4 * WORD_SIZE, "Pop stack space for T0-T3, used by for-str loop");
+            record().popFromStack(T3, "Restore the value of T3, used by for-str loop");
+            record().popFromStack(T2, "Restore the value of T2, used by for-str loop");
+            record().popFromStack(T1, "Restore the value of T1, used by for-str loop");
+            record().popFromStack(T0, "Restore the value of T0, used by for-str loop");
 
             // end of one loop iteration
             backend.emitADDI(T1, T1, 1, "Increment loop counter by 1");
@@ -1446,6 +1852,180 @@ public class CodeGenImpl extends CodeGenBase {
             backend.emitLocalLabel(endLoopLabel, "End of the for-str loop.");
         }
 
+        /*-----------------------------------------------------------*/
+        /*                                                           */
+        /*                 STRING BUILDING IN LOOPS                  */
+        /*                                                           */
+        /*-----------------------------------------------------------*/
+
+
+        /**
+         * Reserve a stack slot, initially 0, for each variable that the loop
+         * with BODY and HEADER only appends to, unless an enclosing loop
+         * already has one for it.  The appends to these variables in BODY
+         * are then emitted by emitStrAppend.  Return the variables.
+         */
+        private List<String> beginStrBuilders(List<Stmt> body, Node header) {
+            List<String> builders = new ArrayList<>();
+            for (String name : StrAppendAnalyzer.findAppendedVariables(body, header)) {
+                if (!this.strBuilders.containsKey(name) && this.isUnshared(name)) {
+                    record().pushToStack(ZERO, "No builder for str yet: " + name);
+                    this.strBuilders.put(name, record().getSlot());
+                    builders.add(name);
+                }
+            }
+            return builders;
+        }
+
+        /**
+         * Release the stack slots reserved for BUILDERS by beginStrBuilders.
+         */
+        private void endStrBuilders(List<String> builders) {
+            for (int i = builders.size() - 1; i >= 0; i--) {
+                this.strBuilders.remove(builders.get(i));
+                record().downSlot();
+            }
+        }
+
+        /**
+         * Return true iff the variable NAME cannot be read or assigned by
+         * any code other than the current function or top level: it is a
+         * local variable not used by nested functions, or a global variable
+         * used by no function.
+         */
+        private boolean isUnshared(String name) {
+            SymbolInfo info = this.sym.get(name);
+            if (this.funcInfo == null) {
+                if (!(info instanceof GlobalVarInfo)) {
+                    return false;
+                }
+            } else if (!(info instanceof StackVarInfo)
+                    || ((StackVarInfo) info).getFuncInfo() != this.funcInfo) {
+                return false;
+            }
+            for (FuncInfo other : functions) {
+                if ((this.funcInfo == null || this.isNestedIn(other, this.funcInfo))
+                        && getUsedVariables(other).contains(name)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Return the variables of the current function, or the global
+         * variables at the top level, whose initial values are non-negative
+         * ints.
+         */
+        private Set<String> getNonNegativeVariables() {
+            List<? extends VarInfo> vars = this.funcInfo == null
+                    ? globalVars : this.funcInfo.getLocals();
+            Set<String> result = new HashSet<>();
+            for (VarInfo var : vars) {
+                if (var.getInitialValue() instanceof IntegerLiteral
+                        && ((IntegerLiteral) var.getInitialValue()).value >= 0) {
+                    result.add(var.getVarName());
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Return true iff INNER is nested, at any depth, in OUTER.
+         */
+        private boolean isNestedIn(FuncInfo inner, FuncInfo outer) {
+            for (FuncInfo f = inner.getParentFuncInfo(); f != null; f = f.getParentFuncInfo()) {
+                if (f == outer) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Emit code for STMT, an append `x = x + e`, where the stack slot
+         * SLOT holds the str that only the enclosing loop refers to.
+         */
+        private void emitStrAppend(AssignStmt stmt, int slot) {
+            Identifier target = (Identifier) stmt.targets.get(0);
+            BinaryExpr value = (BinaryExpr) stmt.value;
+
+            // evaluate string being built, and save it on stack
+            value.left.dispatch(this);
+            record().pushToStack(A0, "Save string being built to stack.");
+
+            // evaluate string to append, and save it on stack
+            value.right.dispatch(this);
+            record().pushToStack(A0, "Save string to append to stack.");
+
+            // pass address of builder slot
+            backend.emitADDI(A0, FP, -slot * WORD_SIZE, T6, "Load address of builder of str: " + target.name);
+            record().pushToStack(A0, "Save address of builder to stack.");
+
+            // call string append routine
+            this.emitArgumentsStackPointer();
+            backend.emitJAL(strappendLabel, "Append to the string");
+
+            // deallocate stack space
+            this.emitFrameStackPointer();
+            record().downSlot(3);
+
+            // assign result
+            record().readVariableAddress(T0, target.name);
+            backend.emitSW(A0, T0, 0, String.format("Assign to var: %s", target.name));
+        }
+
+        /*-----------------------------------------------------------*/
+        /*                                                           */
+        /*                 APPENDING TO OWNED LISTS                  */
+        /*                                                           */
+        /*-----------------------------------------------------------*/
+
+
+        /**
+         * Emit code for STMT, an append `o.a = o.a + [...]` to an attribute
+         * whose list no other reference can reach.
+         */
+        private void emitListAppend(AssignStmt stmt) {
+            MemberExpr target = (MemberExpr) stmt.targets.get(0);
+            BinaryExpr value = (BinaryExpr) stmt.value;
+            List<Expr> elements = ((ListExpr) value.right).elements;
+            boolean isObjectList =
+                    this.isObjectType(target.getInferredType().elementType());
+
+            // evaluate list, and save it on stack
+            value.left.dispatch(this);
+            record().pushToStack(A0, "Save list to append to to stack.");
+
+            // push each element to stack
+            for (int i = 0; i < elements.size(); i++) {
+                elements.get(i).dispatch(this);
+                if (isObjectList) {
+                    this.emitObjectifyType(elements.get(i).getInferredType());
+                }
+                record().pushToStack(A0, String.format("Push list element %d to stack", i));
+            }
+
+            // push number of elements
+            backend.emitLI(A0, elements.size(), "Load number of elements");
+            record().pushToStack(A0, "Push number of elements to stack");
+
+            // call list append routine
+            this.emitArgumentsStackPointer();
+            backend.emitJAL(listappendLabel, "Append to the list");
+
+            // deallocate stack space
+            this.emitFrameStackPointer();
+            record().downSlot(elements.size() + 2);
+
+            // assign result
+            record().pushToStack(A0, "Push resulting list to stack.");
+            target.object.dispatch(this);
+            record().readAttributeAddress(T0, A0, target);
+            record().popFromStack(A0, "Retrieve resulting list.");
+            backend.emitSW(A0, T0, 0, String.format("Set attribute: %s", target.member.name));
+        }
+
         /*-----------------------------------------------------------*/
         /*                                                           */
         /*              COMMON HELPER PROCEDURE METHODS              */
@@ -1458,23 +2038,24 @@ public class CodeGenImpl extends CodeGenBase {
          * from current function into passed register Rd.
          */
         private void emitStaticLink(Register rd, FuncInfo calleeInfo) {
-            FuncInfo parentInfo = calleeInfo.getParentFuncInfo();
-            FuncInfo curFuncInfo = this.funcInfo;
+            record().readFramePointer(rd, calleeInfo.getParentFuncInfo());
+        }
 
-            // static link is initially at current frame
-            backend.emitMV(rd, FP, String.format("Get static link to %s",
-                    curFuncInfo.getFuncName()));
+        /**
+         * Emit code to point SP at the top slot of the activation record,
+         * where the arguments to a call were last pushed.
+         */
+        private void emitArgumentsStackPointer() {
+            backend.emitADDI(SP, FP, -record().getSlot() * WORD_SIZE, T6,
+                    "Point SP at arguments on stack");
+        }
 
-            // follow static link to find the static link of the enclosing
-            // function, for which the callee function is defined
-            int distance = curFuncInfo.getDepth() - parentInfo.getDepth();
-            while (distance > 0) {
-                String comment =
-                        String.format("Get static link to %s", curFuncInfo.getFuncName());
-                backend.emitLW(rd, rd, this.getStaticLinkOffset(curFuncInfo), comment);
-                curFuncInfo = curFuncInfo.getParentFuncInfo();
-                distance--;
-            }
+        /**
+         * Emit code to point SP back at the bottom of the current frame,
+         * after a call to which arguments were passed on the stack.
+         */
+        private void emitFrameStackPointer() {
+            CodeGenImpl.this.emitFrameStackPointer(this.funcInfo, "Pop arguments off the stack");
         }
 
         /**
@@ -1496,23 +2077,6 @@ public class CodeGenImpl extends CodeGenBase {
         /*-----------------------------------------------------------*/
 
 
-        /**
-         * Return the offset of the static link for function FUNCINFO
-         */
-        private int getStaticLinkOffset(FuncInfo funcInfo) {
-            assert !this.isTopLevel(funcInfo)
-                    : "No static link for top-level functions";
-            return funcInfo.getParams().size() * WORD_SIZE;
-        }
-
-        /**
-         * Return true if a function FUNCINFO is a top level function.
-         */
-        private boolean isTopLevel(FuncInfo funcInfo) {
-            return funcInfo == null ||
-                    funcInfo.getParentFuncInfo() == null;
-        }
-
         /**
          * Return paramInfo for a given parameter with NAME in FUNCINFO.
          */
@@ -1590,6 +2154,44 @@ public class CodeGenImpl extends CodeGenBase {
      * backend.emitJ(errorOob, "Go to out-of-bounds error and abort");
      */
     protected void emitCustomCode() {
+        // the custom runtime routines, in order, with their source files
+        Map<Label, String> routines = new LinkedHashMap<>();
+        routines.put(constlistLabel, constlistLabel.toString());
+        routines.put(listconcatLabel, this.getRuntimeSourceFile(listconcatLabel));
+        routines.put(listappendLabel, listappendLabel.toString());
+        routines.put(streqLabel, stringHash ? "streql.hash" : this.getRuntimeSourceFile(streqLabel));
+        routines.put(strcatLabel, this.getRuntimeSourceFile(strcatLabel));
+        routines.put(strappendLabel, strappendLabel.toString());
+        routines.put(charInitLabel, stringHash ? "initchars.hash" : "initchars");
+        routines.put(boxInt, boxInt.toString());
+        routines.put(boxBool, boxBool.toString());
+        routines.put(nobox, nobox.toString());
+
+        // the labels the routines' sources reference, besides their own,
+        // the prototypes and the allocation routines, always emitted
+        List<Label> noneCheck = Collections.singletonList(errorNone);
+        Map<Label, List<Label>> routineReferences = new HashMap<>();
+        routineReferences.put(listconcatLabel,
+                fastRuntime ? Arrays.asList(errorNone, nobox) : noneCheck);
+        routineReferences.put(listappendLabel, noneCheck);
+        routineReferences.put(streqLabel, noneCheck);
+        routineReferences.put(strcatLabel, noneCheck);
+        routineReferences.put(strappendLabel, noneCheck);
+        routineReferences.put(charInitLabel, Collections.singletonList(allChars));
+
+        // only emit what the code so far references, directly or through
+        // the routines it references
+        runtimeReferences = new HashSet<>();
+        int size;
+        do {
+            size = runtimeReferences.size();
+            for (Map.Entry<Label, List<Label>> routine : routineReferences.entrySet()) {
+                if (this.isReferenced(routine.getKey())) {
+                    runtimeReferences.addAll(routine.getValue());
+                }
+            }
+        } while (runtimeReferences.size() != size);
+
         emitErrorFunc(errorArg, ERROR_ARG, "Bad argument.");
         // note, the reference implementation has this typo: Divisonp
         emitErrorFunc(errorDiv, ERROR_DIV_ZERO, "Divison by zero");
@@ -1598,35 +2200,59 @@ public class CodeGenImpl extends CodeGenBase {
         emitErrorFunc(errorOom, ERROR_OOM, "Out of memory");
         emitErrorFunc(errorNyi, ERROR_NYI, "Unimplemented operation");
 
-        // custom list routines
-        emitStdFunc(constlistLabel, CUSTOM_LIBRARY_CODE_DIR);
-        emitStdFunc(listconcatLabel, CUSTOM_LIBRARY_CODE_DIR);
-
-        // string routines
-        emitStdFunc(streqLabel, CUSTOM_LIBRARY_CODE_DIR);
-        emitStdFunc(strcatLabel, CUSTOM_LIBRARY_CODE_DIR);
-        emitStdFunc(charInitLabel, CUSTOM_LIBRARY_CODE_DIR);
+        // list, string and boxing routines
+        for (Map.Entry<Label, String> routine : routines.entrySet()) {
+            if (this.isReferenced(routine.getKey())) {
+                emitStdFunc(routine.getKey(), routine.getValue(), CUSTOM_LIBRARY_CODE_DIR);
+            }
+        }
 
         // character data
-        backend.startData(); // start data region
-        backend.alignNext(2); // align address to multiple of 2*2 = 4
-        backend.emitGlobalLabel(allChars);
-        backend.emitInsn(
-                String.format(".space %d", ONE_CHAR_STR_OBJECT_SIZE * MAX_CHAR_DECIMAL),
-                "Allocate enough space for all one-character string objects"
-        );
-        backend.startCode(); // restart code region
+        if (this.isReferenced(allChars)) {
+            backend.startData(); // start data region
+            backend.alignNext(2); // align address to multiple of 2*2 = 4
+            backend.emitGlobalLabel(allChars);
+            backend.emitInsn(
+                    String.format(".space %d", getOneCharStrObjectSize() * MAX_CHAR_DECIMAL),
+                    "Allocate enough space for all one-character string objects"
+            );
+            backend.startCode(); // restart code region
+        }
+    }
+
+    /**
+     * Return true iff LABEL is referenced by the code emitted before the
+     * custom runtime routines, or by a routine it references.
+     */
+    private boolean isReferenced(Label label) {
+        return backend.isReferenced(label) || runtimeReferences.contains(label);
+    }
+
+    /**
+     * Return the size in bytes of each one-character string object in the
+     * single-char table, which has a __hash__ word if stringHash.
+     */
+    private int getOneCharStrObjectSize() {
+        return stringHash ? ONE_CHAR_STR_OBJECT_SIZE + WORD_SIZE : ONE_CHAR_STR_OBJECT_SIZE;
+    }
 
-        // special value boxing routines
-        emitStdFunc(boxInt, CUSTOM_LIBRARY_CODE_DIR);
-        emitStdFunc(boxBool, CUSTOM_LIBRARY_CODE_DIR);
-        emitStdFunc(nobox, CUSTOM_LIBRARY_CODE_DIR);
+    /**
+     * Return the source file of the custom runtime routine LABEL:
+     * LABEL.fast, which works a word at a time, if fastRuntime, or
+     * LABEL otherwise.
+     */
+    private String getRuntimeSourceFile(Label label) {
+        return fastRuntime ? label + ".fast" : label.toString();
     }
 
     /**
-     * Emit an error routine labeled ERRLABEL that aborts with message MSG.
+     * Emit an error routine labeled ERRLABEL that aborts with message MSG,
+     * unless nothing references it.
      */
     private void emitErrorFunc(Label errLabel, int errorCode, String msg) {
+        if (!this.isReferenced(errLabel)) {
+            return;
+        }
         backend.emitGlobalLabel(errLabel);
         backend.emitLI(A0, errorCode, "Exit code for: " + msg);
         backend.emitLA(A1, constants.getStrConstant(msg),
@@ -1655,7 +2281,7 @@ public class CodeGenImpl extends CodeGenBase {
         backend.emitSW(FP, SP, 0, "saved caller's dynamic link");
         backend.emitSW(RA, SP, WORD_SIZE, "saved caller's return addr");
         backend.emitADDI(FP, SP, 2 * WORD_SIZE, "New FP is at old SP");
-        record.upSlot(2);
+        record().upSlot(2);
     }
 
     /**
@@ -1669,6 +2295,29 @@ public class CodeGenImpl extends CodeGenBase {
         backend.emitMV(SP, T0, "Restore old stack pointer");
     }
 
+    /**
+     * Return true iff the callers of FUNCINFO push a static link for it.
+     */
+    private boolean hasStaticLink(FuncInfo funcInfo) {
+        return linkedFunctions.contains(funcInfo);
+    }
+
+    /**
+     * Emit code to push the frame pointers of the enclosing functions
+     * that FUNCINFO reaches often onto the stack, and make the activation
+     * record load them from there, rather than follow the static links
+     * each time.
+     */
+    private void emitFrameCache(FuncInfo funcInfo) {
+        Map<FuncInfo, Integer> frameOffsets = new HashMap<>();
+        record().setFrameOffsets(frameOffsets);
+        for (FuncInfo frameInfo : StaticLinkAnalyzer.findCachedFrames(funcInfo, linkedFunctions)) {
+            record().readFramePointer(T0, frameInfo);
+            record().pushToStack(T0, "Cache frame of " + frameInfo.getFuncName());
+            frameOffsets.put(frameInfo, -record().getSlot() * WORD_SIZE);
+        }
+    }
+
     /**
      * Return the offset with respect to FUNCINFO's own FP,
      * for retrieving local variables/parameters of NAME.
@@ -1684,61 +2333,53 @@ public class CodeGenImpl extends CodeGenBase {
     /*------------------------ STACK SPACE  -------------------------*/
 
     /**
-     * Explicitly allocate one slot of space on stack frame.
-     */
-    private void pushStackSpace() {
-        this.allocateStackSpace(WORD_SIZE, "Reserve one slot on stack");
-    }
-
-    /**
-     * Explicitly deallocate one slot of space on stack frame.
-     */
-    private void popStackSpace() {
-        this.deallocateStackSpace(WORD_SIZE, "Pop one slot from stack");
-    }
-
-    /**
-     * Equivalent to calling `pushStackSpace` with custom comment.
+     * Return the symbol for the size of the frame of FUNCINFO, or of the
+     * top level if FUNCINFO is null.  Each frame is allocated whole, as
+     * soon as its FP is set; its size, the deepest slot the activation
+     * record reaches, is defined once the body has been emitted.
      */
-    private void pushStackSpace(String comment) {
-        this.allocateStackSpace(WORD_SIZE, comment);
+    private String getFrameSizeSymbol(FuncInfo funcInfo) {
+        String name = funcInfo == null ? "main" : funcInfo.getCodeLabel().toString();
+        return "@" + name + ".size";
     }
 
     /**
-     * Equivalent to calling `popStackSpace` with custom comment.
+     * Emit code to point SP at the bottom of the frame of FUNCINFO, or
+     * of the top level if FUNCINFO is null, with comment COMMENT.
      */
-    private void popStackSpace(String comment) {
-        this.deallocateStackSpace(WORD_SIZE, comment);
-    }
-
-    /**
-     * Equivalent of calling `allocateStackSpace` with default comment.
-     */
-    private void allocateStackSpace(int size) {
-        this.allocateStackSpace(size, String.format("Reserve %d bytes on stack", size));
-    }
-
-    /**
-     * Equivalent of calling `deallocateStackSpace` with default comment.
-     */
-    private void deallocateStackSpace(int size) {
-        this.deallocateStackSpace(size, String.format("Pop %d bytes from stack", size));
-    }
-
-    /**
-     * Explicitly reserve space on stack frame.
-     */
-    private void allocateStackSpace(int size, String comment) {
-        assert size > 0 : "this method can only be called with positive size";
-        backend.emitADDI(SP, SP, -size, comment);
+    private void emitFrameStackPointer(FuncInfo funcInfo, String comment) {
+        Integer frameSize = largeFrameSizes.get();
+        if (frameSize == null) {
+            backend.emitADDI(SP, FP, "-" + this.getFrameSizeSymbol(funcInfo), comment);
+        } else {
+            backend.emitLI(T6, frameSize, "Load size of large frame");
+            backend.emitSUB(SP, FP, T6, comment);
+        }
     }
 
     /**
-     * Explicitly deallocate space on stack frame.
+     * Emit the code emitted by EMITFRAME, which emits the body of a
+     * function or of the top level.  Since the frame size is only known
+     * once the body has been emitted, a frame too large to reserve with
+     * an add-immediate instruction is emitted again, this time reserving
+     * it with a size loaded in full.
      */
-    private void deallocateStackSpace(int size, String comment) {
-        assert size > 0 : "this method can only be called with positive size";
-        backend.emitADDI(SP, SP, size, comment);
+    private void emitFrame(Runnable emitFrame) {
+        backend.startBuffer();
+        emitFrame.run();
+        String code = backend.endBuffer();
+        int frameSize = record().getMaxSlot() * WORD_SIZE;
+        if (!RiscVBackend.isImmediate(-frameSize)) {
+            largeFrameSizes.set(frameSize);
+            backend.startBuffer();
+            try {
+                emitFrame.run();
+            } finally {
+                largeFrameSizes.remove();
+            }
+            code = backend.endBuffer();
+        }
+        backend.emitBuffered(code);
     }
 
     /***
@@ -1772,6 +2413,16 @@ public class CodeGenImpl extends CodeGenBase {
             backend.emitLI(rd, boolValue ? 1 : 0, comment);
         } else if (literal instanceof StringLiteral) {
             String strValue = ((StringLiteral) literal).value;
+            if (stringHash && strValue.length() == 1 && strValue.charAt(0) < MAX_CHAR_DECIMAL) {
+                // intern one-character literals, so == finds them identical to indexed characters
+                backend.emitLA(rd, allChars, "Load address to single-char table");
+                int offset = strValue.charAt(0) * getOneCharStrObjectSize();
+                for (; offset > 0; offset -= MAX_ADDI_IMMEDIATE) {
+                    backend.emitADDI(rd, rd, Math.min(offset, MAX_ADDI_IMMEDIATE),
+                            "Index into single-char table");
+                }
+                return;
+            }
             // we don't print string, in case it's too long, or have line-breaks
             String comment = "Load string literal";
             backend.emitLA(rd, this.constants.getStrConstant(strValue), comment);
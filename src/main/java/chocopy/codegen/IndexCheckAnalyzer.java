@@ -0,0 +1,343 @@
+package chocopy.codegen;
+
+import chocopy.common.analysis.NodeWalker;
+import chocopy.common.astnodes.AssignStmt;
+import chocopy.common.astnodes.BinaryExpr;
+import chocopy.common.astnodes.CallExpr;
+import chocopy.common.astnodes.Expr;
+import chocopy.common.astnodes.ForStmt;
+import chocopy.common.astnodes.Identifier;
+import chocopy.common.astnodes.IfExpr;
+import chocopy.common.astnodes.IfStmt;
+import chocopy.common.astnodes.IndexExpr;
+import chocopy.common.astnodes.IntegerLiteral;
+import chocopy.common.astnodes.Node;
+import chocopy.common.astnodes.Stmt;
+import chocopy.common.astnodes.WhileStmt;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Finds the index expressions `v[...]` in the body of a function, or in
+ * the top level, whose None checks or bounds checks are redundant.
+ *
+ * Only variables v that no other function can assign are considered,
+ * so that v can change only by assignments in the body itself.  Since
+ * lists and strs never shrink, checks are then redundant:
+ *  - for None, when an earlier statement of the same block already
+ *    indexed v, and v has not been assigned since; and
+ *  - for bounds, in a loop `while i < len(v):`, for an index expression
+ *    `v[i]` in the statements of the loop body before the first that
+ *    may assign i, when v is not assigned in the loop, i is only
+ *    incremented at the top level of the body, and i is non-negative
+ *    on entry to the loop.
+ * In a loop `while i < len(v):` where v is not assigned, len(v) is also
+ * the same on every iteration.
+ */
+class IndexCheckAnalyzer {
+
+    /** Largest increment to a loop index for which bounds checks are dropped. */
+    private static final int MAX_INDEX_INCREMENT = 1 << 16;
+
+    /** True for the variables that only the analyzed body may assign. */
+    private final Predicate<String> isUnshared;
+
+    /** The variables whose initial values are non-negative ints. */
+    private final Set<String> nonNegative;
+
+    /** True iff `len` is the predefined function in the analyzed body. */
+    private final boolean isLenPredefined;
+
+    /** The index expressions that need no None check. */
+    private final Set<IndexExpr> noneChecked =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** The index expressions that need neither None nor bounds checks. */
+    private final Set<IndexExpr> boundsChecked =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** The loops `while i < len(v):` whose len(v) does not change. */
+    private final Set<WhileStmt> invariantLengths =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * An analyzer of the index expressions in BODY, the statements of a
+     * function or of the top level, where ISUNSHARED holds for variables
+     * that only BODY may assign, NONNEGATIVE are the variables of BODY
+     * whose initial values are non-negative ints, and ISLENPREDEFINED is
+     * true iff `len` is the predefined function in BODY.
+     */
+    IndexCheckAnalyzer(List<Stmt> body, Predicate<String> isUnshared,
+                       Set<String> nonNegative, boolean isLenPredefined) {
+        this.isUnshared = isUnshared;
+        this.nonNegative = nonNegative;
+        this.isLenPredefined = isLenPredefined;
+        if (body != null) {
+            this.analyzeBlock(body, new HashSet<>(), true);
+        }
+    }
+
+    /**
+     * Return true iff LOOP is a loop `while i < len(v):` or
+     * `while len(v) > i:`, where len(v) is the same on every iteration.
+     */
+    boolean hasInvariantLength(WhileStmt loop) {
+        return this.invariantLengths.contains(loop);
+    }
+
+    /**
+     * Return true iff EXPR needs a check that its list or str is not None.
+     */
+    boolean needsNoneCheck(IndexExpr expr) {
+        return !this.noneChecked.contains(expr) && !this.boundsChecked.contains(expr);
+    }
+
+    /**
+     * Return true iff EXPR needs a check that its index is in bounds.
+     */
+    boolean needsBoundsCheck(IndexExpr expr) {
+        return !this.boundsChecked.contains(expr);
+    }
+
+    /**
+     * Analyze the statements of the block STMTS, where NONNONE are the
+     * variables known not to be None on entry, and OUTERMOST is true iff
+     * STMTS is the whole body.  Update NONNONE to those known not to be
+     * None on exit.
+     */
+    private void analyzeBlock(List<Stmt> stmts, Set<String> nonNone, boolean outermost) {
+        for (int i = 0; i < stmts.size(); i++) {
+            Stmt stmt = stmts.get(i);
+            if (stmt instanceof IfStmt) {
+                IfStmt ifStmt = (IfStmt) stmt;
+                this.analyzeSimple(ifStmt.condition, nonNone);
+                this.analyzeBlock(ifStmt.thenBody, new HashSet<>(nonNone), false);
+                this.analyzeBlock(ifStmt.elseBody, new HashSet<>(nonNone), false);
+                nonNone.removeAll(findAssigned(stmt));
+            } else if (stmt instanceof WhileStmt) {
+                WhileStmt whileStmt = (WhileStmt) stmt;
+                nonNone.removeAll(findAssigned(stmt));
+                Set<String> bodyNonNone = new HashSet<>(nonNone);
+                this.analyzeSimple(whileStmt.condition, bodyNonNone);
+                this.analyzeBlock(whileStmt.body, bodyNonNone, false);
+                this.analyzeIndexLoop(stmts, i, outermost);
+            } else if (stmt instanceof ForStmt) {
+                ForStmt forStmt = (ForStmt) stmt;
+                this.analyzeSimple(forStmt.iterable, nonNone);
+                nonNone.removeAll(findAssigned(stmt));
+                this.analyzeBlock(forStmt.body, new HashSet<>(nonNone), false);
+            } else {
+                this.analyzeSimple(stmt, nonNone);
+                nonNone.removeAll(findAssigned(stmt));
+            }
+        }
+    }
+
+    /**
+     * Analyze NODE, a simple statement or an expression, where NONNONE
+     * are the variables known not to be None before it.  Add to NONNONE
+     * the variables that NODE always indexes.
+     */
+    private void analyzeSimple(Node node, Set<String> nonNone) {
+        Set<String> indexed = new HashSet<>();
+        node.dispatch(new NodeWalker() {
+            /** Number of enclosing subexpressions that may not be evaluated. */
+            private int conditional;
+
+            @Override
+            public Void analyze(BinaryExpr node) {
+                this.walk(node.left);
+                boolean shortCircuit = node.operator.equals("and") || node.operator.equals("or");
+                this.conditional += shortCircuit ? 1 : 0;
+                this.walk(node.right);
+                this.conditional -= shortCircuit ? 1 : 0;
+                return null;
+            }
+
+            @Override
+            public Void analyze(IfExpr node) {
+                this.walk(node.condition);
+                this.conditional += 1;
+                this.walk(node.thenExpr);
+                this.walk(node.elseExpr);
+                this.conditional -= 1;
+                return null;
+            }
+
+            @Override
+            protected void enter(Node node) {
+                String name = getIndexedVariable(node);
+                if (name != null && isUnshared.test(name)) {
+                    if (nonNone.contains(name)) {
+                        noneChecked.add((IndexExpr) node);
+                    } else if (this.conditional == 0) {
+                        indexed.add(name);
+                    }
+                }
+            }
+        });
+        nonNone.addAll(indexed);
+    }
+
+    /**
+     * Analyze STMTS.get(INDEX), a while loop in the block STMTS, which is
+     * the whole body iff OUTERMOST, for indexing with a loop index.
+     */
+    private void analyzeIndexLoop(List<Stmt> stmts, int index, boolean outermost) {
+        WhileStmt loop = (WhileStmt) stmts.get(index);
+        if (!(loop.condition instanceof BinaryExpr)) {
+            return;
+        }
+        BinaryExpr condition = (BinaryExpr) loop.condition;
+        Expr indexExpr, lenExpr;
+        if (condition.operator.equals("<")) {
+            indexExpr = condition.left;
+            lenExpr = condition.right;
+        } else if (condition.operator.equals(">")) {
+            indexExpr = condition.right;
+            lenExpr = condition.left;
+        } else {
+            return;
+        }
+        if (!this.isLenPredefined
+                || !(indexExpr instanceof Identifier)
+                || !(lenExpr instanceof CallExpr)
+                || !((CallExpr) lenExpr).function.name.equals("len")
+                || ((CallExpr) lenExpr).args.size() != 1
+                || !(((CallExpr) lenExpr).args.get(0) instanceof Identifier)) {
+            return;
+        }
+        String i = ((Identifier) indexExpr).name;
+        String v = ((Identifier) ((CallExpr) lenExpr).args.get(0)).name;
+        if (!this.isUnshared.test(v) || findAssigned(loop).contains(v)) {
+            return;
+        }
+        this.invariantLengths.add(loop);
+        if (!this.isUnshared.test(i)
+                || !this.isIncrementedOnly(loop.body, i)
+                || !this.isNonNegativeBefore(stmts, index, outermost, i)) {
+            return;
+        }
+
+        for (Stmt stmt : loop.body) {
+            if (findAssigned(stmt).contains(i)) {
+                break;
+            }
+            stmt.dispatch(new NodeWalker() {
+                @Override
+                protected void enter(Node node) {
+                    if (v.equals(getIndexedVariable(node))
+                            && ((IndexExpr) node).index instanceof Identifier
+                            && ((Identifier) ((IndexExpr) node).index).name.equals(i)) {
+                        boundsChecked.add((IndexExpr) node);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Return true iff BODY assigns to the variable I only with statements
+     * `I = I + c`, for a small non-negative literal c, in BODY itself.
+     */
+    private boolean isIncrementedOnly(List<Stmt> body, String i) {
+        for (Stmt stmt : body) {
+            if (findAssigned(stmt).contains(i) && !isIncrement(stmt, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return true iff the variable I is non-negative on entry to
+     * STMTS.get(INDEX), in the block STMTS, which is the whole body iff
+     * OUTERMOST.
+     */
+    private boolean isNonNegativeBefore(List<Stmt> stmts, int index, boolean outermost,
+                                        String i) {
+        for (int k = index - 1; k >= 0; k--) {
+            Stmt stmt = stmts.get(k);
+            if (findAssigned(stmt).contains(i)) {
+                return isAssignment(stmt, i)
+                        && ((AssignStmt) stmt).value instanceof IntegerLiteral
+                        && ((IntegerLiteral) ((AssignStmt) stmt).value).value >= 0;
+            }
+        }
+        return outermost && this.nonNegative.contains(i);
+    }
+
+    /**
+     * Return true iff STMT is `I = I + c` or `I = c + I`, for a small
+     * non-negative literal c.
+     */
+    private static boolean isIncrement(Stmt stmt, String i) {
+        if (!isAssignment(stmt, i) || !(((AssignStmt) stmt).value instanceof BinaryExpr)) {
+            return false;
+        }
+        BinaryExpr value = (BinaryExpr) ((AssignStmt) stmt).value;
+        Expr step;
+        if (value.left instanceof Identifier && ((Identifier) value.left).name.equals(i)) {
+            step = value.right;
+        } else if (value.right instanceof Identifier && ((Identifier) value.right).name.equals(i)) {
+            step = value.left;
+        } else {
+            return false;
+        }
+        return value.operator.equals("+")
+                && step instanceof IntegerLiteral
+                && ((IntegerLiteral) step).value >= 0
+                && ((IntegerLiteral) step).value <= MAX_INDEX_INCREMENT;
+    }
+
+    /**
+     * Return true iff STMT assigns only to the variable I.
+     */
+    private static boolean isAssignment(Stmt stmt, String i) {
+        if (!(stmt instanceof AssignStmt)) {
+            return false;
+        }
+        AssignStmt assign = (AssignStmt) stmt;
+        return assign.targets.size() == 1
+                && assign.targets.get(0) instanceof Identifier
+                && ((Identifier) assign.targets.get(0)).name.equals(i);
+    }
+
+    /**
+     * Return the variable indexed by NODE, if NODE is an index expression
+     * `v[...]` on a variable v, and otherwise null.
+     */
+    private static String getIndexedVariable(Node node) {
+        if (node instanceof IndexExpr && ((IndexExpr) node).list instanceof Identifier) {
+            return ((Identifier) ((IndexExpr) node).list).name;
+        }
+        return null;
+    }
+
+    /**
+     * Return the names of the variables assigned in NODE.
+     */
+    private static Set<String> findAssigned(Node node) {
+        Set<String> result = new HashSet<>();
+        node.dispatch(new NodeWalker() {
+            @Override
+            protected void enter(Node node) {
+                if (node instanceof AssignStmt) {
+                    for (Expr target : ((AssignStmt) node).targets) {
+                        if (target instanceof Identifier) {
+                            result.add(((Identifier) target).name);
+                        }
+                    }
+                } else if (node instanceof ForStmt) {
+                    result.add(((ForStmt) node).identifier.name);
+                }
+            }
+        });
+        return result;
+    }
+}
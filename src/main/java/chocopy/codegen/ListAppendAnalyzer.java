@@ -0,0 +1,160 @@
+package chocopy.codegen;
+
+import chocopy.common.analysis.NodeWalker;
+import chocopy.common.analysis.types.SymbolType;
+import chocopy.common.astnodes.AssignStmt;
+import chocopy.common.astnodes.BinaryExpr;
+import chocopy.common.astnodes.CallExpr;
+import chocopy.common.astnodes.Expr;
+import chocopy.common.astnodes.FuncDef;
+import chocopy.common.astnodes.Identifier;
+import chocopy.common.astnodes.IndexExpr;
+import chocopy.common.astnodes.ListExpr;
+import chocopy.common.astnodes.MemberExpr;
+import chocopy.common.astnodes.MethodCallExpr;
+import chocopy.common.astnodes.Node;
+import chocopy.common.astnodes.Program;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Finds the attributes that hold lists no other reference can reach,
+ * and that are grown with statements of the form `o.a = o.a + [e, ...]`.
+ *
+ * An attribute qualifies if, anywhere in the program, an attribute of
+ * that name is read only to be indexed, passed to len, or appended to
+ * as above.  The list in such an attribute is then never aliased, so
+ * the code generator may append to it in place.
+ */
+class ListAppendAnalyzer extends NodeWalker {
+
+    /** The attribute reads that cannot let the list read escape. */
+    private final Set<MemberExpr> safeUses =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** The attribute reads that are passed to len. */
+    private final Set<MemberExpr> lenUses =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** The names of the attributes appended to. */
+    private final Set<String> appended = new HashSet<>();
+
+    /** The names of the attributes read other than by safe uses. */
+    private final Set<String> otherUses = new HashSet<>();
+
+    /** The names of the attributes read by len. */
+    private final Set<String> lenArgs = new HashSet<>();
+
+    /** True iff the program defines a function named len. */
+    private boolean lenRedefined;
+
+    /**
+     * Return the target of STMT, if STMT is an append `o.a = o.a + [...]`
+     * of at least one element to a list attribute, where o is a variable
+     * and the elements call no functions, and otherwise null.
+     */
+    static MemberExpr getAppendTarget(AssignStmt stmt) {
+        if (stmt.targets.size() != 1
+                || !(stmt.targets.get(0) instanceof MemberExpr)
+                || !(stmt.value instanceof BinaryExpr)) {
+            return null;
+        }
+        MemberExpr target = (MemberExpr) stmt.targets.get(0);
+        BinaryExpr value = (BinaryExpr) stmt.value;
+        if (!value.operator.equals("+")
+                || !(target.object instanceof Identifier)
+                || !(value.left instanceof MemberExpr)
+                || !(value.right instanceof ListExpr)
+                || ((ListExpr) value.right).elements.isEmpty()
+                || hasCalls(value.right)) {
+            return null;
+        }
+        MemberExpr left = (MemberExpr) value.left;
+        if (!(left.object instanceof Identifier)
+                || !((Identifier) left.object).name.equals(((Identifier) target.object).name)
+                || !left.member.name.equals(target.member.name)) {
+            return null;
+        }
+        SymbolType type = target.getInferredType();
+        if (type == null || !type.isListType()
+                || !type.equals(left.getInferredType())
+                || !type.equals(value.getInferredType())) {
+            return null;
+        }
+        return target;
+    }
+
+    /**
+     * Return the names of the attributes of PROGRAM whose lists may be
+     * appended to in place.
+     */
+    static Set<String> findOwnedAttributes(Program program) {
+        ListAppendAnalyzer analyzer = new ListAppendAnalyzer();
+        analyzer.walk(program);
+        Set<String> result = new HashSet<>(analyzer.appended);
+        result.removeAll(analyzer.otherUses);
+        if (analyzer.lenRedefined) {
+            result.removeAll(analyzer.lenArgs);
+        }
+        return result;
+    }
+
+    /**
+     * Return true iff NODE contains a function or method call.
+     */
+    private static boolean hasCalls(Node node) {
+        boolean[] found = new boolean[1];
+        node.dispatch(new NodeWalker() {
+            @Override
+            protected void enter(Node node) {
+                if (node instanceof CallExpr || node instanceof MethodCallExpr) {
+                    found[0] = true;
+                }
+            }
+        });
+        return found[0];
+    }
+
+    @Override
+    protected void enter(Node node) {
+        if (node instanceof AssignStmt) {
+            AssignStmt stmt = (AssignStmt) node;
+            MemberExpr target = getAppendTarget(stmt);
+            if (target != null) {
+                this.safeUses.add((MemberExpr) ((BinaryExpr) stmt.value).left);
+                this.appended.add(target.member.name);
+            }
+            for (Expr expr : stmt.targets) {
+                if (expr instanceof MemberExpr) {
+                    this.safeUses.add((MemberExpr) expr);
+                }
+            }
+        } else if (node instanceof IndexExpr) {
+            IndexExpr expr = (IndexExpr) node;
+            if (expr.list instanceof MemberExpr && !hasCalls(expr.index)) {
+                this.safeUses.add((MemberExpr) expr.list);
+            }
+        } else if (node instanceof CallExpr) {
+            CallExpr expr = (CallExpr) node;
+            if (expr.function.name.equals("len") && expr.args.size() == 1
+                    && expr.args.get(0) instanceof MemberExpr) {
+                this.safeUses.add((MemberExpr) expr.args.get(0));
+                this.lenUses.add((MemberExpr) expr.args.get(0));
+            }
+        } else if (node instanceof FuncDef) {
+            if (((FuncDef) node).name.name.equals("len")) {
+                this.lenRedefined = true;
+            }
+        } else if (node instanceof MemberExpr) {
+            MemberExpr expr = (MemberExpr) node;
+            if (!this.safeUses.contains(expr)) {
+                this.otherUses.add(expr.member.name);
+            } else if (this.lenUses.contains(expr)) {
+                this.lenArgs.add(expr.member.name);
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package chocopy.codegen;
+
+import chocopy.common.analysis.NodeWalker;
+import chocopy.common.analysis.SymbolTable;
+import chocopy.common.analysis.types.ClassValueType;
+import chocopy.common.analysis.types.SymbolType;
+import chocopy.common.astnodes.CallExpr;
+import chocopy.common.astnodes.ClassDef;
+import chocopy.common.astnodes.Declaration;
+import chocopy.common.astnodes.ForStmt;
+import chocopy.common.astnodes.IndexExpr;
+import chocopy.common.astnodes.MethodCallExpr;
+import chocopy.common.astnodes.Node;
+import chocopy.common.astnodes.Program;
+import chocopy.common.astnodes.StringLiteral;
+import chocopy.common.codegen.ClassInfo;
+import chocopy.common.codegen.FuncInfo;
+import chocopy.common.codegen.StackVarInfo;
+import chocopy.common.codegen.SymbolInfo;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static chocopy.common.analysis.types.SymbolType.STR_TYPE;
+
+/**
+ * Finds the functions and methods a program may call, and the classes
+ * it may instantiate, starting from its top-level statements.
+ *
+ * A method call may reach the implementation of the method in any
+ * instantiated subclass of the static type of its receiver.  Classes
+ * and functions found unreachable need not be emitted at all.
+ */
+class ReachabilityAnalyzer extends NodeWalker {
+
+    /** The global symbol table. */
+    private final SymbolTable<SymbolInfo> globalSymbols;
+
+    /** The symbol table of the function whose body is being walked. */
+    private SymbolTable<SymbolInfo> sym;
+
+    /** The name of the superclass of each class. */
+    private final Map<String, String> superClasses = new HashMap<>();
+
+    /** The functions and methods found reachable. */
+    private final Set<FuncInfo> reachable = new HashSet<>();
+
+    /** The reachable functions whose bodies have yet to be walked. */
+    private final Deque<FuncInfo> worklist = new ArrayDeque<>();
+
+    /** The classes found instantiated. */
+    private final Set<ClassInfo> instantiated = new HashSet<>();
+
+    /** The names of the methods called on each static receiver type. */
+    private final Map<ClassInfo, Set<String>> calledMethods = new HashMap<>();
+
+    /** True iff reachable code indexes or iterates over a str. */
+    private boolean indexesStrings;
+
+    /** True iff reachable code loads a one-character str literal. */
+    private boolean loadsCharLiterals;
+
+    /**
+     * Analyze PROGRAM, whose global symbol table is GLOBALSYMBOLS, and
+     * whose values of the classes PREDEFINED are created other than by
+     * calling their constructors.
+     */
+    ReachabilityAnalyzer(Program program, SymbolTable<SymbolInfo> globalSymbols,
+                         Collection<ClassInfo> predefined) {
+        this.globalSymbols = globalSymbols;
+        for (Declaration decl : program.declarations) {
+            if (decl instanceof ClassDef) {
+                ClassDef classDef = (ClassDef) decl;
+                this.superClasses.put(classDef.name.name, classDef.superClass.name);
+            }
+        }
+        for (ClassInfo classInfo : predefined) {
+            this.instantiate(classInfo);
+        }
+
+        this.sym = globalSymbols;
+        this.walk(program.statements);
+        while (!this.worklist.isEmpty()) {
+            FuncInfo funcInfo = this.worklist.pop();
+            this.sym = funcInfo.getSymbolTable();
+            for (StackVarInfo local : funcInfo.getLocals()) {
+                if (local.getInitialValue() != null) {
+                    this.walk(local.getInitialValue());
+                }
+            }
+            this.walk(funcInfo.getStatements());
+        }
+    }
+
+    /**
+     * Return true iff FUNCINFO may be called.
+     */
+    boolean isReachable(FuncInfo funcInfo) {
+        return this.reachable.contains(funcInfo);
+    }
+
+    /**
+     * Return true iff CLASSINFO may be instantiated.
+     */
+    boolean isInstantiated(ClassInfo classInfo) {
+        return this.instantiated.contains(classInfo);
+    }
+
+    /**
+     * Return true iff reachable code indexes or iterates over a str.
+     */
+    boolean indexesStrings() {
+        return this.indexesStrings;
+    }
+
+    /**
+     * Return true iff reachable code loads a one-character str literal.
+     */
+    boolean loadsCharLiterals() {
+        return this.loadsCharLiterals;
+    }
+
+    /**
+     * Return true iff the class named SUBCLASS is, or inherits from, the
+     * class named SUPERCLASS.
+     */
+    private boolean isSubclass(String subclass, String superclass) {
+        for (String name = subclass; name != null; name = this.superClasses.get(name)) {
+            if (name.equals(superclass)) {
+                return true;
+            }
+        }
+        return superclass.equals("object");
+    }
+
+    /**
+     * Record that FUNCINFO may be called.
+     */
+    private void reach(FuncInfo funcInfo) {
+        if (funcInfo.getStatements() != null && !this.reachable.contains(funcInfo)) {
+            this.worklist.push(funcInfo);
+        }
+        this.reachable.add(funcInfo);
+    }
+
+    /**
+     * Record that CLASSINFO may be instantiated, so that the methods
+     * called on any of its superclasses may reach its own.
+     */
+    private void instantiate(ClassInfo classInfo) {
+        if (!this.instantiated.add(classInfo)) {
+            return;
+        }
+        for (Map.Entry<ClassInfo, Set<String>> entry : this.calledMethods.entrySet()) {
+            if (this.isSubclass(classInfo.getClassName(), entry.getKey().getClassName())) {
+                for (String name : entry.getValue()) {
+                    this.reachMethod(classInfo, name);
+                }
+            }
+        }
+    }
+
+    /**
+     * Record that the method NAME of CLASSINFO may be called.
+     */
+    private void reachMethod(ClassInfo classInfo, String name) {
+        this.reach(classInfo.getMethods().get(classInfo.getMethodIndex(name)));
+    }
+
+    @Override
+    protected void enter(Node node) {
+        if (node instanceof CallExpr) {
+            SymbolInfo callee = this.sym.get(((CallExpr) node).function.name);
+            if (callee instanceof FuncInfo) {
+                this.reach((FuncInfo) callee);
+            } else if (callee instanceof ClassInfo) {
+                this.instantiate((ClassInfo) callee);
+                this.reachMethod((ClassInfo) callee, "__init__");
+            }
+        } else if (node instanceof MethodCallExpr) {
+            MethodCallExpr expr = (MethodCallExpr) node;
+            SymbolType type = expr.method.object.getInferredType();
+            if (!(type instanceof ClassValueType)) {
+                return;
+            }
+            ClassInfo classInfo = (ClassInfo) this.globalSymbols.get(type.className());
+            String name = expr.method.member.name;
+            this.calledMethods.computeIfAbsent(classInfo, c -> new HashSet<>()).add(name);
+            for (ClassInfo subclass : this.instantiated) {
+                if (this.isSubclass(subclass.getClassName(), classInfo.getClassName())) {
+                    this.reachMethod(subclass, name);
+                }
+            }
+        } else if (node instanceof IndexExpr) {
+            if (STR_TYPE.equals(((IndexExpr) node).list.getInferredType())) {
+                this.indexesStrings = true;
+            }
+        } else if (node instanceof ForStmt) {
+            if (STR_TYPE.equals(((ForStmt) node).iterable.getInferredType())) {
+                this.indexesStrings = true;
+            }
+        } else if (node instanceof StringLiteral) {
+            if (((StringLiteral) node).value.length() == 1) {
+                this.loadsCharLiterals = true;
+            }
+        }
+    }
+}
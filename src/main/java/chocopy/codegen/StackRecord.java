@@ -7,7 +7,10 @@ import chocopy.common.codegen.RiscVBackend;
 import chocopy.common.codegen.RiscVBackend.Register;
 import chocopy.common.codegen.SymbolInfo;
 
+import java.util.Map;
+
 import static chocopy.common.codegen.RiscVBackend.Register.FP;
+import static chocopy.common.codegen.RiscVBackend.Register.T6;
 
 public class StackRecord {
 
@@ -27,6 +30,12 @@ public class StackRecord {
      */
     private int slot;
 
+    /**
+     * The deepest slot our internal SP has pointed at since the last
+     * reset, which bounds the size of the frame.
+     */
+    private int maxSlot;
+
     /**
      * The symbol table that maps global names to information about
      * the bound global variables, global functions, or classes.
@@ -73,6 +82,16 @@ public class StackRecord {
         }
     }
 
+    /**
+     * Set the offsets, from FP, of the stack slots in which the current
+     * function caches the frame pointers of enclosing functions to
+     * FRAMEOFFSETS.
+     */
+    public void setFrameOffsets(Map<FuncInfo, Integer> frameOffsets) {
+        this.valueAccessor.setFrameOffsets(frameOffsets);
+        this.addressAccessor.setFrameOffsets(frameOffsets);
+    }
+
     /*--------------------------------------------------------------*/
     /*                                                              */
     /*                       SLOT OPERATIONS                        */
@@ -92,6 +111,7 @@ public class StackRecord {
      */
     public void upSlot() {
         this.slot += 1;
+        this.maxSlot = Math.max(this.maxSlot, this.slot);
     }
 
     /**
@@ -106,6 +126,7 @@ public class StackRecord {
      */
     public void upSlot(int slots) {
         this.slot += slots;
+        this.maxSlot = Math.max(this.maxSlot, this.slot);
     }
 
     /**
@@ -120,6 +141,15 @@ public class StackRecord {
      */
     public void setSlot(int slot) {
         this.slot = slot;
+        this.maxSlot = Math.max(this.maxSlot, this.slot);
+    }
+
+    /**
+     * Reset internal SP, and the deepest slot it has pointed at, to 0.
+     */
+    public void resetSlots() {
+        this.slot = 0;
+        this.maxSlot = 0;
     }
 
     /**
@@ -129,6 +159,20 @@ public class StackRecord {
         return this.slot;
     }
 
+    /**
+     * Return the slot internal SP points at.
+     */
+    public int getSlot() {
+        return this.slot;
+    }
+
+    /**
+     * Return the deepest slot internal SP has pointed at since the last reset.
+     */
+    public int getMaxSlot() {
+        return this.maxSlot;
+    }
+
 
     /*--------------------------------------------------------------*/
     /*                                                              */
@@ -180,18 +224,27 @@ public class StackRecord {
         this.addressAccessor.readAttribute(rd, rs, expr);
     }
 
+    /**
+     * Load the frame pointer of FRAMEINFO, the current function or one
+     * enclosing it, into register RD.
+     */
+    public void readFramePointer(Register rd, FuncInfo frameInfo) {
+        assert this.valueAccessor != null : "value variable accessors hasn't been set";
+        this.valueAccessor.readFramePointer(rd, frameInfo);
+    }
+
     /**
      * Read value from top of stack to register RD.
      */
     public void peekFromStack(Register rd, String comment) {
-        backend.emitLW(rd, FP, -this.slot * WORD_SIZE, comment);
+        backend.emitLW(rd, FP, -this.slot * WORD_SIZE, T6, comment);
     }
 
     /**
      * Pop value from top of stack to register RD.
      */
     public void popFromStack(Register rd, String comment) {
-        backend.emitLW(rd, FP, -this.slot * WORD_SIZE, comment);
+        backend.emitLW(rd, FP, -this.slot * WORD_SIZE, T6, comment);
         this.downSlot();
     }
 
@@ -200,7 +253,7 @@ public class StackRecord {
      */
     public void pushToStack(Register rd, String comment) {
         this.upSlot();
-        backend.emitSW(rd, FP, -this.slot * WORD_SIZE, comment);
+        backend.emitSW(rd, FP, -this.slot * WORD_SIZE, T6, comment);
     }
 
     /**
@@ -0,0 +1,159 @@
+package chocopy.codegen;
+
+import chocopy.common.analysis.NodeWalker;
+import chocopy.common.analysis.SymbolTable;
+import chocopy.common.astnodes.CallExpr;
+import chocopy.common.astnodes.ForStmt;
+import chocopy.common.astnodes.Identifier;
+import chocopy.common.astnodes.MemberExpr;
+import chocopy.common.astnodes.Node;
+import chocopy.common.astnodes.WhileStmt;
+import chocopy.common.codegen.FuncInfo;
+import chocopy.common.codegen.StackVarInfo;
+import chocopy.common.codegen.SymbolInfo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the frames of enclosing functions that the body of a function
+ * reaches by following static links: to access a variable inherited
+ * from an enclosing function, or to compute the static link for a call
+ * to a function nested in an enclosing function.
+ *
+ * A nested function that, together with the functions nested in it,
+ * reaches no enclosing frame needs no static link, and is called as if
+ * it were defined at the top level.
+ */
+class StaticLinkAnalyzer extends NodeWalker {
+
+    /** The function whose body is analyzed. */
+    private final FuncInfo funcInfo;
+
+    /** The nested functions known to need a static link. */
+    private final Set<FuncInfo> linked;
+
+    /**
+     * The number of places the body reaches each enclosing frame from,
+     * where each place in a loop counts twice.
+     */
+    private final Map<FuncInfo, Integer> reaches = new HashMap<>();
+
+    /** The number of loops enclosing the node being walked. */
+    private int loopDepth;
+
+    /**
+     * Analyze the body of FUNCINFO, when LINKED are the functions known
+     * to need a static link.
+     */
+    private StaticLinkAnalyzer(FuncInfo funcInfo, Set<FuncInfo> linked) {
+        this.funcInfo = funcInfo;
+        this.linked = linked;
+        if (funcInfo.getStatements() != null) {
+            this.walk(funcInfo.getStatements());
+        }
+    }
+
+    /**
+     * Return the nested functions among FUNCTIONS that need a static link.
+     */
+    static Set<FuncInfo> findLinkedFunctions(List<FuncInfo> functions) {
+        Set<FuncInfo> linked = new HashSet<>();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (FuncInfo funcInfo : functions) {
+                if (funcInfo.getParentFuncInfo() != null && !linked.contains(funcInfo)
+                        && !findReachedFrames(funcInfo, functions, linked).isEmpty()) {
+                    linked.add(funcInfo);
+                    changed = true;
+                }
+            }
+        }
+        return linked;
+    }
+
+    /**
+     * Return the enclosing functions whose frames FUNCINFO should cache,
+     * nearest first, when LINKED are the functions that need a static
+     * link.  These are the frames that are at least two static links
+     * away, and that the body of FUNCINFO reaches more than once, or
+     * within a loop.
+     */
+    static List<FuncInfo> findCachedFrames(FuncInfo funcInfo, Set<FuncInfo> linked) {
+        StaticLinkAnalyzer analyzer = new StaticLinkAnalyzer(funcInfo, linked);
+        List<FuncInfo> result = new ArrayList<>();
+        for (Map.Entry<FuncInfo, Integer> entry : analyzer.reaches.entrySet()) {
+            if (funcInfo.getDepth() - entry.getKey().getDepth() >= 2
+                    && entry.getValue() >= 2) {
+                result.add(entry.getKey());
+            }
+        }
+        result.sort(Comparator.comparingInt(FuncInfo::getDepth).reversed());
+        return result;
+    }
+
+    /**
+     * Return the enclosing functions whose frames FUNCINFO, or a function
+     * nested in it, reaches through the static link of FUNCINFO, when
+     * LINKED are the functions known to need a static link.
+     */
+    private static Set<FuncInfo> findReachedFrames(FuncInfo funcInfo, List<FuncInfo> functions,
+                                                   Set<FuncInfo> linked) {
+        StaticLinkAnalyzer analyzer = new StaticLinkAnalyzer(funcInfo, linked);
+        Set<FuncInfo> result = new HashSet<>(analyzer.reaches.keySet());
+        for (FuncInfo nested : functions) {
+            if (nested.getParentFuncInfo() == funcInfo && linked.contains(nested)) {
+                result.addAll(findReachedFrames(nested, functions, linked));
+                result.remove(funcInfo);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Record that the body reaches the frame of the enclosing FRAMEINFO.
+     */
+    private void reach(FuncInfo frameInfo) {
+        this.reaches.merge(frameInfo, this.loopDepth > 0 ? 2 : 1, Integer::sum);
+    }
+
+    @Override
+    protected void enter(Node node) {
+        SymbolTable<SymbolInfo> sym = this.funcInfo.getSymbolTable();
+        if (node instanceof WhileStmt || node instanceof ForStmt) {
+            this.loopDepth++;
+        } else if (node instanceof Identifier) {
+            String name = ((Identifier) node).name;
+            if (sym.get(name) instanceof StackVarInfo && !sym.declares(name)) {
+                this.reach(((StackVarInfo) sym.get(name)).getFuncInfo());
+            }
+        } else if (node instanceof CallExpr) {
+            SymbolInfo callee = sym.get(((CallExpr) node).function.name);
+            if (callee instanceof FuncInfo && this.linked.contains(callee)
+                    && ((FuncInfo) callee).getParentFuncInfo() != this.funcInfo) {
+                this.reach(((FuncInfo) callee).getParentFuncInfo());
+            }
+        }
+    }
+
+    @Override
+    protected void leave(Node node) {
+        if (node instanceof WhileStmt || node instanceof ForStmt) {
+            this.loopDepth--;
+        }
+    }
+
+    @Override
+    public Void analyze(MemberExpr node) {
+        this.enter(node);
+        this.walk(node.object);
+        this.leave(node);
+        return null;
+    }
+}
@@ -0,0 +1,110 @@
+package chocopy.codegen;
+
+import chocopy.common.analysis.NodeWalker;
+import chocopy.common.astnodes.AssignStmt;
+import chocopy.common.astnodes.BinaryExpr;
+import chocopy.common.astnodes.Identifier;
+import chocopy.common.astnodes.MemberExpr;
+import chocopy.common.astnodes.Node;
+import chocopy.common.astnodes.Stmt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static chocopy.common.analysis.types.SymbolType.STR_TYPE;
+
+/**
+ * Finds the variables that a loop only appends to, with statements of
+ * the form `x = x + e`, where x is a str and e does not use x.
+ *
+ * Within such a loop, no reference to the str in x can escape, other
+ * than to the next append to x, so the code generator may append to
+ * a str created by an earlier append in place.
+ */
+class StrAppendAnalyzer extends NodeWalker {
+
+    /** The identifiers that are the target or left operand of an append. */
+    private final Set<Identifier> appendUses =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** The names of the variables appended to, in order of first append. */
+    private final Set<String> appended = new LinkedHashSet<>();
+
+    /** The names of the variables used other than in appends. */
+    private final Set<String> otherUses = new HashSet<>();
+
+    /**
+     * Return the target of STMT, if STMT is an append `x = x + e` to a
+     * str variable x, and otherwise null.
+     */
+    static Identifier getAppendTarget(AssignStmt stmt) {
+        if (stmt.targets.size() != 1
+                || !(stmt.targets.get(0) instanceof Identifier)
+                || !(stmt.value instanceof BinaryExpr)) {
+            return null;
+        }
+        Identifier target = (Identifier) stmt.targets.get(0);
+        BinaryExpr value = (BinaryExpr) stmt.value;
+        if (!value.operator.equals("+")
+                || !(value.left instanceof Identifier)
+                || !((Identifier) value.left).name.equals(target.name)
+                || !STR_TYPE.equals(target.getInferredType())
+                || !STR_TYPE.equals(value.getInferredType())) {
+            return null;
+        }
+        return target;
+    }
+
+    /**
+     * Return the names of the variables that the loop whose body is BODY,
+     * and whose other parts evaluated on each iteration are HEADER, only
+     * appends to.
+     */
+    static List<String> findAppendedVariables(List<Stmt> body, Node header) {
+        StrAppendAnalyzer analyzer = new StrAppendAnalyzer();
+        analyzer.walk(header);
+        analyzer.walk(body);
+        List<String> result = new ArrayList<>(analyzer.appended);
+        result.removeAll(analyzer.otherUses);
+        return result;
+    }
+
+    /**
+     * Return the names of all variables used in STMTS, other than as
+     * attribute and method names.
+     */
+    static Set<String> findUsedVariables(List<Stmt> stmts) {
+        StrAppendAnalyzer analyzer = new StrAppendAnalyzer();
+        analyzer.walk(stmts);
+        Set<String> result = new HashSet<>(analyzer.otherUses);
+        result.addAll(analyzer.appended);
+        return result;
+    }
+
+    @Override
+    protected void enter(Node node) {
+        if (node instanceof AssignStmt) {
+            Identifier target = getAppendTarget((AssignStmt) node);
+            if (target != null) {
+                this.appendUses.add(target);
+                this.appendUses.add((Identifier) ((BinaryExpr) ((AssignStmt) node).value).left);
+                this.appended.add(target.name);
+            }
+        } else if (node instanceof Identifier && !this.appendUses.contains(node)) {
+            this.otherUses.add(((Identifier) node).name);
+        }
+    }
+
+    @Override
+    public Void analyze(MemberExpr node) {
+        this.enter(node);
+        this.walk(node.object);
+        this.leave(node);
+        return null;
+    }
+}
@@ -14,9 +14,12 @@ import chocopy.common.codegen.Label;
 import chocopy.common.codegen.RiscVBackend.Register;
 import chocopy.common.astnodes.MemberExpr;
 
+import java.util.Collections;
+import java.util.Map;
 
 import static chocopy.common.codegen.RiscVBackend.Register.FP;
 import static chocopy.common.codegen.RiscVBackend.Register.T0;
+import static chocopy.common.codegen.RiscVBackend.Register.T6;
 
 /**
  * The variable accessors is a class that provides an interface
@@ -41,6 +44,11 @@ public abstract class VariableAccessor {
      * Given offset for the header of a class.
      */
     protected final int HEADER_OFFSET = 12;
+    /**
+     * The offsets, from FP, of the stack slots in which the current
+     * function caches the frame pointers of enclosing functions.
+     */
+    protected Map<FuncInfo, Integer> frameOffsets = Collections.emptyMap();
 
     public VariableAccessor(FuncInfo funcInfo,
                             SymbolTable<SymbolInfo> globalSymbols,
@@ -55,6 +63,16 @@ public abstract class VariableAccessor {
      */
     public void setFunctionInfo(FuncInfo funcInfo) {
         this.funcInfo = funcInfo;
+        this.frameOffsets = Collections.emptyMap();
+    }
+
+    /**
+     * Set the offsets, from FP, of the stack slots in which the current
+     * function caches the frame pointers of enclosing functions to
+     * FRAMEOFFSETS.
+     */
+    public void setFrameOffsets(Map<FuncInfo, Integer> frameOffsets) {
+        this.frameOffsets = frameOffsets;
     }
 
     /**
@@ -167,27 +185,51 @@ public abstract class VariableAccessor {
         String varFuncName = varInfo.getFuncInfo().getFuncName();
         String varFullName = varFuncName + "." + varBaseName;
 
+        FuncInfo curFuncInfo = varInfo.getFuncInfo();
+        this.readFramePointer(T0, curFuncInfo);
+
+        assert curFuncInfo.getSymbolTable().declares(varBaseName)
+                : "StackVarInfo should ensure its enclosing function is correct.";
+
+        String comment = String.format("Load var: %s", varFullName);
+        int offset = this.getVarOffset(curFuncInfo, varBaseName);
+        this.emitFromOffset(rd, T0, offset, comment);
+    }
+
+
+    /**
+     * Load the frame pointer of FRAMEINFO, the current function or one
+     * enclosing it, into register RD, by following the static links from
+     * the nearest frame pointer the current function caches, or from FP.
+     */
+    public void readFramePointer(Register rd, FuncInfo frameInfo) {
         FuncInfo curFuncInfo = this.funcInfo;
-        backend.emitMV(T0, FP, "Copy FP value to T0");
+        for (Map.Entry<FuncInfo, Integer> entry : this.frameOffsets.entrySet()) {
+            FuncInfo cachedInfo = entry.getKey();
+            if (cachedInfo.getDepth() >= frameInfo.getDepth()
+                    && cachedInfo.getDepth() < curFuncInfo.getDepth()) {
+                curFuncInfo = cachedInfo;
+            }
+        }
+
+        if (curFuncInfo == this.funcInfo) {
+            backend.emitMV(rd, FP, String.format("Copy FP value to %s", rd));
+        } else {
+            String comment = String.format("Load cached frame of %s", curFuncInfo.getFuncName());
+            backend.emitLW(rd, FP, this.frameOffsets.get(curFuncInfo), T6, comment);
+        }
 
-        // follow static links to the function scope in which the variable is defined
-        int distance = curFuncInfo.getDepth() - varInfo.getFuncInfo().getDepth();
+        // follow static links to the function scope of FRAMEINFO
+        int distance = curFuncInfo.getDepth() - frameInfo.getDepth();
         while (distance > 0) {
             String curFuncName = curFuncInfo.getFuncName();
             String parentFuncName = curFuncInfo.getParentFuncInfo().getFuncName();
             String comment = String.format("Load static link from %s to %s",
                     curFuncName, parentFuncName);
-            backend.emitLW(T0, T0, this.getStaticLinkOffset(curFuncInfo), comment);
+            backend.emitLW(rd, rd, this.getStaticLinkOffset(curFuncInfo), T6, comment);
             curFuncInfo = curFuncInfo.getParentFuncInfo();
             distance--;
         }
-
-        assert curFuncInfo.getSymbolTable().declares(varBaseName)
-                : "StackVarInfo should ensure its enclosing function is correct.";
-
-        String comment = String.format("Load var: %s", varFullName);
-        int offset = this.getVarOffset(curFuncInfo, varBaseName);
-        this.emitFromOffset(rd, T0, offset, comment);
     }
 
 
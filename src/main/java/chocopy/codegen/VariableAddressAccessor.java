@@ -7,6 +7,8 @@ import chocopy.common.codegen.SymbolInfo;
 import chocopy.common.codegen.FuncInfo;
 import chocopy.common.analysis.SymbolTable;
 
+import static chocopy.common.codegen.RiscVBackend.Register.T6;
+
 /**
  * The variable accessors is a class that provides an interface
  * allows the address of a named variable to be read
@@ -24,7 +26,7 @@ public class VariableAddressAccessor extends VariableAccessor {
                                   Register rs,
                                   int offset,
                                   String comment) {
-        this.backend.emitADDI(rd, rs, offset, comment);
+        this.backend.emitADDI(rd, rs, offset, T6, comment);
     }
 
     protected void emitFromLabel(Register rd,
@@ -0,0 +1,109 @@
+# Runtime support function concat.fast.s
+
+# Emit list concatenation code routine, copying unboxed elements a word at a time.
+# --------------------------------------
+# This routine behaves as a function, and may replace concat.s.
+# To concatenate two lists, 4 arguments are passed:
+# - the address of boxing routine for elements of first list
+# - the address of boxing routine for elements of second list
+# - the address of the two lists.
+# The elements of a list whose boxing routine is nobox are copied by
+# concat_copy, two words at a time, without calling the routine.
+#
+# Register A0, A1, T0, T1, T2 are modified in the routine.
+#
+
+  addi sp, sp, -8                          # Reserve space for caller's return addr, control link
+  sw fp, 0(sp)                             # saved caller's dynamic link
+  sw ra, 4(sp)                             # saved caller's return addr
+  addi fp, sp, 8                           # New FP is at old SP
+  addi sp, sp, -20                         # Reserve space for old S1-S5 values
+  sw s1, -12(fp)                           # Save S1 value
+  sw s2, -16(fp)                           # Save S2 value
+  sw s3, -20(fp)                           # Save S3 value
+  sw s4, -24(fp)                           # Save S4 value
+  sw s5, -28(fp)                           # Save S5 value
+  lw s1, 4(fp)                             # Load pointer to first list
+  lw s2, 0(fp)                             # Load pointer to second list
+  beqz s1, concat_none_error               # Check first list is not None
+  beqz s2, concat_none_error               # Check second list is not None
+  lw a0, @.__len__(s1)                     # Load length of first list
+  lw a1, @.__len__(s2)                     # Load length of second list
+  add a1, a0, a1                           # Calculate length of concatenated list
+  mv s5, a1                                # Save length of concatenated list
+  la a0, $.list$prototype                  # Load address to list prototype
+  addi a1, a1, @.__list_header_words__     # Total words needed for list object
+  jal alloc2                               # Allocate new list object
+  sw s5, @.__len__(a0)                     # set __len__ attribute
+  mv s5, a0                                # Point S5 at concatenated list
+  addi s3, s5, @.__elts__                  # Point S3 to the fist element in concatenated list object
+  lw s2, @.__len__(s1)                     # Load length of first list
+  addi s1, s1, @.__elts__                  # Point S1 to the first element of first list
+  lw s4, 12(fp)                            # Load address to first list's element boxing routine
+  la t0, nobox                             # Load address to boxing routine: no boxing
+  bne s4, t0, concat_init_list_1           # Box elements of first list one by one, if needed
+  jal t1, concat_copy                      # Copy elements of first list
+  j concat_init_list_2_pointer             # Go on to second list
+concat_init_list_1:                        # Append list items of first list
+  beqz s2, concat_init_list_2_pointer      # No need to append elements if first list is empty
+  lw a0, 0(s1)                             # Read current list item from first list
+  jalr s4                                  # Call list element boxing routine
+  sw a0, 0(s3)                             # Set current list item in concatenated list object
+  addi s3, s3, 4                           # Point S3 to next list item in concatenated list
+  addi s1, s1, 4                           # Point S1 to next list item in first list
+  addi s2, s2, -1                          # Reduce counter: one less list item to append.
+  bnez s2, concat_init_list_1              # If counter != 0, continue appending elements of first list.
+concat_init_list_2_pointer:                # Prepare for appending elements of second list
+  lw s1, 0(fp)                             # Load pointer to second list
+  lw s2, @.__len__(s1)                     # Load length of second list
+  addi s1, s1, @.__elts__                  # Point S1 to the first element of second list
+  lw s4, 8(fp)                             # Load address to second list's element boxing routine
+  la t0, nobox                             # Load address to boxing routine: no boxing
+  bne s4, t0, concat_init_list_2           # Box elements of second list one by one, if needed
+  jal t1, concat_copy                      # Copy elements of second list
+  j concat_done                            # Both lists appended
+concat_init_list_2:                        # Append list items of second list
+  beqz s2, concat_done                     # No need to append elements if second list is empty
+  lw a0, 0(s1)                             # Read current list item from second list
+  jalr s4                                  # Call list element boxing routine
+  sw a0, 0(s3)                             # Set current list item in concatenated list object
+  addi s3, s3, 4                           # Point S3 to next list item in concatenated list
+  addi s1, s1, 4                           # Point S1 to next list item in second list
+  addi s2, s2, -1                          # Reduce counter: one less list item to append.
+  bnez s2, concat_init_list_2              # If counter != 0, continue appending elements of second list.
+concat_done:                               # List concatenation done.
+  mv a0, s5                                # Point A0 at concatenated list
+  lw s5, -28(fp)                           # Restore old S5 value
+  lw s4, -24(fp)                           # Restore old S4 value
+  lw s3, -20(fp)                           # Restore old S3 value
+  lw s2, -16(fp)                           # Restore old S2 value
+  lw s1, -12(fp)                           # Restore old S1 value
+  addi sp, sp, 20                          # Pop off old S1-S5 values
+  lw ra, -4(fp)                            # Get return address
+  mv t0, fp                                # load current FP/old SP address
+  lw fp, -8(fp)                            # Use control link to restore caller's FP
+  mv sp, t0                                # Restore old stack pointer
+  jr ra                                    # Return to caller
+concat_none_error:                         # Error: at least one list is None
+  j error.None                             # Throw Operation on None error
+concat_copy:                               # Copy S2 words from S1 to S3; return to T1
+  andi t0, s2, 1                           # Check whether the number of words is odd
+  beqz t0, concat_copy_halve               # Copy pairs of words only, if not
+  lw t0, 0(s1)                             # Read first list item
+  sw t0, 0(s3)                             # Set it in concatenated list object
+  addi s1, s1, 4                           # Point S1 to next list item
+  addi s3, s3, 4                           # Point S3 to next list item in concatenated list
+concat_copy_halve:                         # Count the remaining words in pairs
+  srli s2, s2, 1                           # Number of pairs of list items left
+concat_copy_pairs:                         # Copy two list items at a time
+  beqz s2, concat_copy_done                # Done copying, if counter == 0
+  lw t0, 0(s1)                             # Read current list item
+  lw t2, 4(s1)                             # Read next list item
+  sw t0, 0(s3)                             # Set current list item in concatenated list object
+  sw t2, 4(s3)                             # Set next list item in concatenated list object
+  addi s1, s1, 8                           # Point S1 to next pair of list items
+  addi s3, s3, 8                           # Point S3 to next pair of list items in concatenated list
+  addi s2, s2, -1                          # Reduce counter: one less pair to copy
+  j concat_copy_pairs                      # Continue copying pairs of list items
+concat_copy_done:                          # List items copied
+  jr t1                                    # Return to concat
@@ -0,0 +1,75 @@
+# Runtime support function listappend.s
+
+# Emit list append code routine, used for `o.a = o.a + [...]`.
+# --------------------------------------
+# This routine behaves as a function.
+# To append N elements to a list, N+2 arguments are passed:
+# - the address of the list, which no other reference may reach
+# - the N elements to append
+# - the number of elements N, which must be positive.
+# The words of the list object beyond its header and __len__ elements
+# are its spare capacity. If the list has room for the elements, they
+# are appended in place. Otherwise, a new list with room for the result
+# twice over is allocated, and the elements are appended to it.
+#
+# This routine requires `@.__list_header_words__` constant declared
+# Register A0, A1, A2, T0, T1, T2, T3, T4, T5 are modified in the routine.
+#
+
+  addi sp, sp, -8                          # Reserve space for caller's return addr, control link
+  sw fp, 0(sp)                             # saved caller's dynamic link
+  sw ra, 4(sp)                             # saved caller's return addr
+  addi fp, sp, 8                           # New FP is at old SP
+  lw t0, 0(fp)                             # Load number of elements to append
+  slli t1, t0, 2                           # Number of elements in bytes
+  add t1, t1, fp                           # Set T1 to address of first element argument
+  lw a0, 4(t1)                             # Load pointer to list
+  beqz a0, listappend_none_error           # Check list is not None
+  lw t2, @.__len__(a0)                     # Load length of list
+  add t3, t2, t0                           # Calculate length of result
+  addi t4, t3, @.__list_header_words__     # Words needed for result
+  lw t5, @.__obj_size__(a0)                # Load size of list in words
+  bge t5, t4, listappend_in_place          # Append in place, if there is room
+listappend_grow:                           # Allocate a larger list
+  slli a1, t3, 1                           # Room for twice the length of result
+  addi a1, a1, @.__list_header_words__     # Add header size
+  la a0, $.list$prototype                  # Load address to list prototype
+  jal alloc2                               # Allocate new list object
+  lw t0, 0(fp)                             # Load number of elements to append
+  slli t1, t0, 2                           # Number of elements in bytes
+  add t1, t1, fp                           # Set T1 to address of first element argument
+  lw t2, 4(t1)                             # Point T2 at list
+  lw t3, @.__len__(t2)                     # Load length of list
+  sw t3, @.__len__(a0)                     # Copy its length to new list
+  addi t2, t2, @.__elts__                  # Point T2 at first list item in list
+  addi t4, a0, @.__elts__                  # Point T4 at first list item in new list
+listappend_copy:                           # Copy list items to new list
+  beqz t3, listappend_append_length        # Done copying, if counter == 0
+  lw t5, 0(t2)                             # Load current list item from list
+  sw t5, 0(t4)                             # Save current list item to new list
+  addi t3, t3, -1                          # Reduce counter: one less list item to copy
+  addi t2, t2, 4                           # Point T2 at next list item in list
+  addi t4, t4, 4                           # Point T4 at next list item in new list
+  j listappend_copy                        # Continue copying list items
+listappend_in_place:                       # List has room for the elements
+  slli t4, t2, 2                           # Length of list in bytes
+  add t4, t4, a0                           # Offset T4 by the list pointer
+  addi t4, t4, @.__elts__                  # Point T4 past last list item in list
+listappend_append_length:                  # Set length of result
+  lw t2, @.__len__(a0)                     # Load length of list
+  add t2, t2, t0                           # Calculate length of result
+  sw t2, @.__len__(a0)                     # Set attribute: __len__
+listappend_append:                         # Append elements to list
+  lw t5, 0(t1)                             # Read current element from function arguments
+  sw t5, 0(t4)                             # Set current list item in list
+  addi t1, t1, -4                          # Point T1 to address of next argument
+  addi t4, t4, 4                           # Point T4 to address of next list item in list
+  addi t0, t0, -1                          # Reduce counter: one less element to append
+  bnez t0, listappend_append               # If counter != 0, continue appending
+  lw ra, -4(fp)                            # Get return address
+  mv t0, fp                                # load current FP/old SP address
+  lw fp, -8(fp)                            # Use control link to restore caller's FP
+  mv sp, t0                                # Restore old stack pointer
+  jr ra                                    # Return to caller
+listappend_none_error:                     # Error: list is None
+  j error.None                             # Throw Operation on None error
@@ -0,0 +1,86 @@
+# Runtime support function strappend.s
+
+# Emit string append code routine, used for `x = x + e` in loops.
+# --------------------------------------
+# This routine behaves as a function.
+# To append a string to another, 3 arguments are passed:
+# - the address of the string being built
+# - the address of the string to append
+# - the address of a slot holding the string that only the caller's
+#   loop refers to (its builder), or 0 if it has none yet.
+# If the string being built is the builder, and has room for the
+# appended string, the string is appended in place. Otherwise, a new
+# string with room for the result twice over is allocated and becomes
+# the builder. Appending an empty string returns the string being built.
+#
+# Register A0, A1, A2, T0, T1, T2, T3, T4 are modified in the routine.
+#
+
+  addi sp, sp, -8                          # Reserve space for caller's return addr, control link
+  sw fp, 0(sp)                             # saved caller's dynamic link
+  sw ra, 4(sp)                             # saved caller's return addr
+  addi fp, sp, 8                           # New FP is at old SP
+  lw a0, 8(fp)                             # Load pointer to string being built
+  lw a1, 4(fp)                             # Load pointer to string to append
+  beqz a0, strappend_none_error            # Check string being built is not None
+  beqz a1, strappend_none_error            # Check string to append is not None
+  lw t1, @.__len__(a1)                     # Load length of string to append
+  beqz t1, strappend_end                   # Return string being built, if nothing to append
+  lw t0, @.__len__(a0)                     # Load length of string being built
+  add t3, t0, t1                           # Calculate length of result
+  lw t2, 0(fp)                             # Load address of builder slot
+  lw t2, 0(t2)                             # Load builder
+  bne a0, t2, strappend_grow               # Allocate a new builder, if string is not the builder
+  lw t4, @.__obj_size__(a0)                # Load size of builder in words
+  slli t4, t4, 2                           # Convert size from words to bytes
+  addi t2, t3, @.__str__                   # Bytes needed for header and characters of result
+  blt t2, t4, strappend_in_place           # Append in place, if there is room for a null byte too
+strappend_grow:                            # Allocate a new builder
+  srli a1, t3, 1                           # Result length in bytes / 2 = twice result length in words
+  addi a1, a1, 1                           # Add a word for the null byte
+  addi a1, a1, @.__string_header_words__   # Add header size
+  la a0, $str$prototype                    # Load prototype to string object
+  jal alloc2                               # Allocate new string object
+  lw t2, 0(fp)                             # Load address of builder slot
+  sw a0, 0(t2)                             # New string is the builder
+  lw t0, 8(fp)                             # Point T0 at string being built
+  lw t1, @.__len__(t0)                     # Load length of string being built
+  sw t1, @.__len__(a0)                     # Copy its length to the builder
+  addi t0, t0, @.__str__                   # Point T0 at first byte of string being built
+  addi t2, a0, @.__str__                   # Point T2 at first byte of builder
+strappend_copy_built:                      # Copy string being built to builder
+  beqz t1, strappend_append_pointer        # Done copying, if counter == 0
+  lbu t3, 0(t0)                            # Load current byte from string being built
+  sb t3, 0(t2)                             # Save current byte to builder
+  addi t1, t1, -1                          # Reduce counter: one less byte to copy
+  addi t0, t0, 1                           # Point T0 at next byte in string being built
+  addi t2, t2, 1                           # Point T2 at next byte in builder
+  j strappend_copy_built                   # Continue copying string being built
+strappend_in_place:                        # Builder has room for the result
+  addi t2, a0, @.__str__                   # Point T2 at first byte of builder
+  add t2, t2, t0                           # Point T2 past last byte of builder
+strappend_append_pointer:                  # Prepare pointers for appending
+  lw t0, 4(fp)                             # Point T0 at string to append
+  lw t1, @.__len__(t0)                     # Load length of string to append
+  lw t3, @.__len__(a0)                     # Load length of builder
+  add t3, t3, t1                           # Calculate length of result
+  sw t3, @.__len__(a0)                     # Set attribute: __len__
+  addi t0, t0, @.__str__                   # Point T0 at first byte of string to append
+strappend_append:                          # Append bytes of string to append
+  beqz t1, strappend_add_null              # Done appending, if counter == 0
+  lbu t3, 0(t0)                            # Load current byte from string to append
+  sb t3, 0(t2)                             # Save current byte to builder
+  addi t1, t1, -1                          # Reduce counter: one less byte to append
+  addi t0, t0, 1                           # Point T0 at next byte in string to append
+  addi t2, t2, 1                           # Point T2 at next byte in builder
+  j strappend_append                       # Continue appending
+strappend_add_null:                        # Terminate the result
+  sb zero, 0(t2)                           # Append null byte to builder
+strappend_end:                             # String append done.
+  lw ra, -4(fp)                            # Get return address
+  mv t0, fp                                # load current FP/old SP address
+  lw fp, -8(fp)                            # Use control link to restore caller's FP
+  mv sp, t0                                # Restore old stack pointer
+  jr ra                                    # Return to caller
+strappend_none_error:                      # Error: at least one string is None
+  j error.None                             # Throw Operation on None error
@@ -0,0 +1,114 @@
+# Runtime support function strcat.fast.s
+
+# Emit string concatenation code routine, copying a word at a time.
+# --------------------------------------
+# This routine behaves as a function, and may replace strcat.s.
+# To concatenate two strings, 2 arguments are passed:
+#    the address of the two strings
+# The contents of each string are copied by strcat_copy, which copies
+# whole words, two at a time, when the destination is word-aligned. When
+# it is not, each word read is stored a byte at a time. The last 0-3
+# bytes are copied one by one.
+#
+# Register A0, A1, A2, T0, T1, T2, T3, T4 are modified in the routine.
+#
+
+  addi sp, sp, -8                          # Reserve space for caller's return addr, control link
+  sw fp, 0(sp)                             # saved caller's dynamic link
+  sw ra, 4(sp)                             # saved caller's return addr
+  addi fp, sp, 8                           # New FP is at old SP
+  lw t0, 4(fp)                             # Load pointer to first string
+  lw t1, 0(fp)                             # Load pointer to second string
+  beqz t0, strcat_none_error               # Check first string is not None
+  beqz t1, strcat_none_error               # Check second string is not None
+  lw t0, @.__len__(t0)                     # Load length of first string
+  beqz t0, strcat_return_second            # Return str_2, if str_1 is empty
+  lw t1, @.__len__(t1)                     # Load length of second string
+  beqz t1, strcat_return_first             # Return str_1, if str_2 is empty
+  add t1, t0, t1                           # Calculate total length of concatenated string
+  addi sp, sp, -4                          # Reserve stack space for total length
+  sw t1, -12(fp)                           # Save total length of concatenated string on stack
+  addi t1, t1, 4                           # Add 4 for ceiling operation
+  srli t1, t1, 2                           # Convert length from bytes to words
+  addi a1, t1, @.__string_header_words__   # Add header size
+  la a0, $str$prototype                    # Load prototype to string object
+  jal alloc2                               # Allocate new string object
+  lw t0, -12(fp)                           # Retrieve total length of concatenated string
+  addi sp, sp, 4                           # Pop total length of concatenated string off stack
+  sw t0, @.__len__(a0)                     # Set attribute: __len__
+  addi t2, a0, @.__str__                   # Point T2 at first byte in new string
+  lw t0, 4(fp)                             # Point T0 at first string
+  lw t1, @.__len__(t0)                     # Load length of first string, in bytes
+  addi t0, t0, @.__str__                   # Point T0 at first byte in first string
+  jal a1, strcat_copy                      # Append bytes of first string
+  lw t0, 0(fp)                             # Point T0 at second string
+  lw t1, @.__len__(t0)                     # Load length of second string, in bytes
+  addi t0, t0, @.__str__                   # Point T0 at first byte in second string
+  jal a1, strcat_copy                      # Append bytes of second string
+  sb zero, 0(t2)                           # Append null byte to new string
+  j strcat_end                             # Go to end function epilogue
+strcat_return_first:                       # special case: return first string
+  lw a0, 4(fp)                             # Load pointer to first string
+  j strcat_end                             # Go to end function epilogue
+strcat_return_second:                      # special case: return second string
+  lw a0, 0(fp)                             # Load pointer to second string
+strcat_end:                                # string concatenation done.
+  lw ra, -4(fp)                            # Get return address
+  mv t0, fp                                # load current FP/old SP address
+  lw fp, -8(fp)                            # Use control link to restore caller's FP
+  mv sp, t0                                # Restore old stack pointer
+  jr ra                                    # Return to caller
+strcat_none_error:                         # Error: at least one string is None
+  j error.None                             # Throw Operation on None error
+strcat_copy:                               # Copy T1 bytes from T0 (word-aligned) to T2; return to A1
+  andi t4, t2, 3                           # Offset of T2 within its word
+  bnez t4, strcat_copy_unaligned           # Store bytes separately, if T2 is not word-aligned
+  andi a2, t1, -8                          # Number of bytes in whole pairs of words
+  add a2, t0, a2                           # Point A2 past last pair of words of source
+strcat_copy_pairs:                         # Copy two words at a time
+  beq t0, a2, strcat_copy_word             # Done with pairs of words, if T0 reached A2
+  lw t3, 0(t0)                             # Load current word of source
+  lw t4, 4(t0)                             # Load next word of source
+  sw t3, 0(t2)                             # Save current word to new string
+  sw t4, 4(t2)                             # Save next word to new string
+  addi t0, t0, 8                           # Point T0 at next pair of words of source
+  addi t2, t2, 8                           # Point T2 at next pair of words in new string
+  j strcat_copy_pairs                      # Continue copying pairs of words
+strcat_copy_word:                          # Copy at most one more whole word
+  andi t1, t1, 7                           # Number of bytes left to copy
+  slti t3, t1, 4                           # Check whether a whole word is left
+  bnez t3, strcat_copy_bytes               # Copy remaining bytes, if not
+  lw t3, 0(t0)                             # Load last whole word of source
+  sw t3, 0(t2)                             # Save it to new string
+  addi t0, t0, 4                           # Point T0 at next byte of source
+  addi t2, t2, 4                           # Point T2 at next byte in new string
+  addi t1, t1, -4                          # Reduce counter: one less word to copy
+  j strcat_copy_bytes                      # Copy remaining bytes
+strcat_copy_unaligned:                     # Copy words of source to unaligned T2
+  andi a2, t1, -4                          # Number of bytes in whole words
+  add a2, t0, a2                           # Point A2 past last whole word of source
+strcat_copy_split:                         # Load a word, store its four bytes
+  beq t0, a2, strcat_copy_tail             # Done with whole words, if T0 reached A2
+  lw t3, 0(t0)                             # Load current word of source
+  sb t3, 0(t2)                             # Save its first byte to new string
+  srli t3, t3, 8                           # Shift second byte into place
+  sb t3, 1(t2)                             # Save its second byte to new string
+  srli t3, t3, 8                           # Shift third byte into place
+  sb t3, 2(t2)                             # Save its third byte to new string
+  srli t3, t3, 8                           # Shift fourth byte into place
+  sb t3, 3(t2)                             # Save its fourth byte to new string
+  addi t0, t0, 4                           # Point T0 at next word of source
+  addi t2, t2, 4                           # Point T2 four bytes further in new string
+  j strcat_copy_split                      # Continue copying whole words
+strcat_copy_tail:                          # Prepare to copy the last bytes
+  andi t1, t1, 3                           # Number of bytes left to copy
+strcat_copy_bytes:                         # Copy the last bytes one by one
+  beqz t1, strcat_copy_done                # Done copying, if counter == 0
+  lbu t3, 0(t0)                            # Load current byte from source
+  sb t3, 0(t2)                             # Save current byte to new string
+  addi t0, t0, 1                           # Point T0 at next byte in source
+  addi t2, t2, 1                           # Point T2 at next byte in new string
+  addi t1, t1, -1                          # Reduce counter: one less byte to copy
+  j strcat_copy_bytes                      # Continue copying bytes
+strcat_copy_done:                          # Source copied
+  jr a1                                    # Return to strcat
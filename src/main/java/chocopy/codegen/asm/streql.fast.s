@@ -0,0 +1,72 @@
+# Runtime support function streql.fast.s
+
+# Emit string comparison check code, comparing a word at a time.
+# --------------------------------------
+# This routine behaves as a function, and may replace streql.s.
+# To compare two strings, 2 arguments are passed, each being
+# the address of the two strings. A0 is 1 if strings are equal.
+# The same string is equal to itself without being read. Otherwise,
+# whole words are compared two at a time, then the last 0-7 bytes.
+#
+# Register A0, A1, A2, T0, T1, T2, T3, T4 are modified in the routine.
+#
+
+  addi sp, sp, -8                          # Reserve space for caller's return addr, control link
+  sw fp, 0(sp)                             # saved caller's dynamic link
+  sw ra, 4(sp)                             # saved caller's return addr
+  addi fp, sp, 8                           # New FP is at old SP
+  lw a0, 4(fp)                             # Load pointer to first string
+  lw a1, 0(fp)                             # Load pointer to second string
+  beqz a0, streql_none                     # Check first string is not None
+  beqz a1, streql_none                     # Check second string is not None
+  beq a0, a1, streql_equal                 # str1 == str2, if they are the same object
+  lw t0, @.__len__(a0)                     # Load length of first string
+  lw t1, @.__len__(a1)                     # Load length of second string
+  bne t0, t1, streql_not_equal             # str1 != str2, if they differ in length
+  addi t1, a0, @.__str__                   # Point T1 at first byte of first string
+  addi t2, a1, @.__str__                   # Point T2 at first byte of second string
+  andi a2, t0, -8                          # Number of bytes in whole pairs of words
+  add a2, t1, a2                           # Point A2 past last pair of words of first string
+streql_pair_compare:                       # Compare two words at a time
+  beq t1, a2, streql_word_compare          # Done with pairs of words, if T1 reached A2
+  lw t3, 0(t1)                             # Load current word of first string
+  lw t4, 0(t2)                             # Load current word of second string
+  bne t3, t4, streql_not_equal             # str1 != str2, if one word is different
+  lw t3, 4(t1)                             # Load next word of first string
+  lw t4, 4(t2)                             # Load next word of second string
+  bne t3, t4, streql_not_equal             # str1 != str2, if one word is different
+  addi t1, t1, 8                           # Point T1 at next pair of words of first string
+  addi t2, t2, 8                           # Point T2 at next pair of words of second string
+  j streql_pair_compare                    # Continue comparison of pairs of words
+streql_word_compare:                       # Compare at most one more whole word
+  andi t0, t0, 7                           # Number of bytes left to compare
+  slti t3, t0, 4                           # Check whether a whole word is left
+  bnez t3, streql_byte_compare             # Compare remaining bytes, if not
+  lw t3, 0(t1)                             # Load last whole word of first string
+  lw t4, 0(t2)                             # Load last whole word of second string
+  bne t3, t4, streql_not_equal             # str1 != str2, if the word is different
+  addi t1, t1, 4                           # Point T1 at next byte of first string
+  addi t2, t2, 4                           # Point T2 at next byte of second string
+  addi t0, t0, -4                          # Reduce counter: one less word to compare
+streql_byte_compare:                       # Compare the last bytes one by one
+  beqz t0, streql_equal                    # str1 == str2, if no bytes are left
+  lbu t3, 0(t1)                            # Load current byte of first string
+  lbu t4, 0(t2)                            # Load current byte of second string
+  bne t3, t4, streql_not_equal             # str1 != str2, if one byte is different
+  addi t1, t1, 1                           # Point T1 at next byte of first string
+  addi t2, t2, 1                           # Point T2 at next byte of second string
+  addi t0, t0, -1                          # Reduce counter: one less to compare
+  j streql_byte_compare                    # Continue byte comparison
+streql_equal:                              # str1 == str2
+  li a0, 1                                 # Load true literal
+  j streql_done                            # Go to end function epilogue
+streql_not_equal:                          # str1 != str2
+  mv a0, zero                              # load false literal
+streql_done:                               # String comparison done
+  lw ra, -4(fp)                            # Get return address
+  mv t0, fp                                # load current FP/old SP address
+  lw fp, -8(fp)                            # Use control link to restore caller's FP
+  mv sp, t0                                # Restore old stack pointer
+  jr ra                                    # Return to caller
+streql_none:                               # Error: at least one string is None
+  j error.None                             # Throw Operation on None error
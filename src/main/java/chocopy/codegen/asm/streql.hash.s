@@ -0,0 +1,98 @@
+# Runtime support function streql.hash.s
+
+# Emit string comparison check code, using cached hash codes.
+# --------------------------------------
+# This routine behaves as a function, and replaces streql.s when str
+# objects have a __hash__ attribute.
+# To compare two strings, 2 arguments are passed, each being
+# the address of the two strings. A0 is 1 if strings are equal.
+# The same string is equal to itself without being read. Strings of
+# equal length are unequal if their hash codes differ. A hash code of 0
+# has not been computed yet: streql_hash computes it and saves it in
+# the string. Strings with equal hash codes are compared a word at a
+# time, then byte by byte for the last 0-3 bytes.
+#
+# Register A0, A1, A2, T0, T1, T2, T3, T4, T5, T6 are modified in the routine.
+#
+
+  addi sp, sp, -8                          # Reserve space for caller's return addr, control link
+  sw fp, 0(sp)                             # saved caller's dynamic link
+  sw ra, 4(sp)                             # saved caller's return addr
+  addi fp, sp, 8                           # New FP is at old SP
+  lw a0, 4(fp)                             # Load pointer to first string
+  lw a1, 0(fp)                             # Load pointer to second string
+  beqz a0, streql_none                     # Check first string is not None
+  beqz a1, streql_none                     # Check second string is not None
+  beq a0, a1, streql_equal                 # str1 == str2, if they are the same object
+  lw t0, @.__len__(a0)                     # Load length of first string
+  lw t1, @.__len__(a1)                     # Load length of second string
+  bne t0, t1, streql_not_equal             # str1 != str2, if they differ in length
+  lw t3, @.__hash__(a0)                    # Load hash code of first string
+  bnez t3, streql_second_hash              # Skip hashing, if already computed
+  mv t2, a0                                # Hash first string
+  jal a2, streql_hash                      # Compute and save hash code of first string
+streql_second_hash:                        # Ensure hash code of second string is computed
+  lw t3, @.__hash__(a1)                    # Load hash code of second string
+  bnez t3, streql_compare_hash             # Skip hashing, if already computed
+  mv t2, a1                                # Hash second string
+  jal a2, streql_hash                      # Compute and save hash code of second string
+streql_compare_hash:                       # Compare hash codes
+  lw t3, @.__hash__(a0)                    # Load hash code of first string
+  lw t4, @.__hash__(a1)                    # Load hash code of second string
+  bne t3, t4, streql_not_equal             # str1 != str2, if hash codes differ
+  lw t0, @.__len__(a0)                     # Load length of strings
+  addi t1, a0, @.__str__                   # Point T1 at first byte of first string
+  addi t2, a1, @.__str__                   # Point T2 at first byte of second string
+  andi a2, t0, -4                          # Number of bytes in whole words
+  add a2, t1, a2                           # Point A2 past last whole word of first string
+streql_word_compare:                       # Compare word by word
+  beq t1, a2, streql_tail                  # Done with whole words, if T1 reached A2
+  lw t3, 0(t1)                             # Load current word of first string
+  lw t4, 0(t2)                             # Load current word of second string
+  bne t3, t4, streql_not_equal             # str1 != str2, if one word is different
+  addi t1, t1, 4                           # Point T1 at next word of first string
+  addi t2, t2, 4                           # Point T2 at next word of second string
+  j streql_word_compare                    # Continue word comparison
+streql_tail:                               # Prepare to compare the last bytes
+  andi t0, t0, 3                           # Number of bytes left to compare
+streql_byte_compare:                       # Compare the last bytes one by one
+  beqz t0, streql_equal                    # str1 == str2, if no bytes are left
+  lbu t3, 0(t1)                            # Load current byte of first string
+  lbu t4, 0(t2)                            # Load current byte of second string
+  bne t3, t4, streql_not_equal             # str1 != str2, if one byte is different
+  addi t1, t1, 1                           # Point T1 at next byte of first string
+  addi t2, t2, 1                           # Point T2 at next byte of second string
+  addi t0, t0, -1                          # Reduce counter: one less to compare
+  j streql_byte_compare                    # Continue byte comparison
+streql_equal:                              # str1 == str2
+  li a0, 1                                 # Load true literal
+  j streql_done                            # Go to end function epilogue
+streql_not_equal:                          # str1 != str2
+  mv a0, zero                              # load false literal
+streql_done:                               # String comparison done
+  lw ra, -4(fp)                            # Get return address
+  mv t0, fp                                # load current FP/old SP address
+  lw fp, -8(fp)                            # Use control link to restore caller's FP
+  mv sp, t0                                # Restore old stack pointer
+  jr ra                                    # Return to caller
+streql_none:                               # Error: at least one string is None
+  j error.None                             # Throw Operation on None error
+streql_hash:                               # Hash string T2 and save it in __hash__; return to A2
+  lw t0, @.__len__(t2)                     # Load length of string
+  addi t1, t2, @.__str__                   # Point T1 at first byte of string
+  add t4, t1, t0                           # Point T4 past last byte of string
+  mv t3, zero                              # Initialize hash code to 0
+streql_hash_byte:                          # Add bytes to hash code one by one
+  beq t1, t4, streql_hash_save             # Done hashing, if T1 reached T4
+  lbu t5, 0(t1)                            # Load current byte of string
+  slli t6, t3, 5                           # Multiply hash code by 32
+  sub t3, t6, t3                           # Hash code now multiplied by 31
+  add t3, t3, t5                           # Add current byte to hash code
+  addi t1, t1, 1                           # Point T1 at next byte of string
+  j streql_hash_byte                       # Continue hashing
+streql_hash_save:                          # Save hash code
+  bnez t3, streql_hash_store               # Hash code is valid, if not 0
+  li t3, 1                                 # Use 1 for hash code 0, which marks no hash code
+streql_hash_store:                         # Store hash code in string
+  sw t3, @.__hash__(t2)                    # Set attribute: __hash__
+  jr a2                                    # Return to streql
@@ -0,0 +1,293 @@
+package chocopy.common.analysis;
+
+import java.util.List;
+
+import chocopy.common.astnodes.*;
+
+/**
+ * A NodeAnalyzer that visits every node of a tree in source order.
+ * For each node, it calls enter(NODE), visits the node's children from
+ * left to right, and then calls leave(NODE).  Missing children (such as
+ * the value of a bare return statement) are skipped.
+ *
+ * The errors of a Program are not part of its tree and are not visited.
+ */
+public class NodeWalker extends AbstractNodeAnalyzer<Void> {
+
+    /** Called on NODE before any of its children are visited. */
+    protected void enter(Node node) {
+    }
+
+    /** Called on NODE after all of its children have been visited. */
+    protected void leave(Node node) {
+    }
+
+    /** Visit NODE and its descendants, if NODE is not null. */
+    protected void walk(Node node) {
+        if (node != null) {
+            node.dispatch(this);
+        }
+    }
+
+    /** Visit each node in NODES, in order. */
+    protected void walk(List<? extends Node> nodes) {
+        for (Node node : nodes) {
+            this.walk(node);
+        }
+    }
+
+    @Override
+    public Void analyze(AssignStmt node) {
+        this.enter(node);
+        this.walk(node.targets);
+        this.walk(node.value);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(BinaryExpr node) {
+        this.enter(node);
+        this.walk(node.left);
+        this.walk(node.right);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(BooleanLiteral node) {
+        this.enter(node);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(CallExpr node) {
+        this.enter(node);
+        this.walk(node.function);
+        this.walk(node.args);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(ClassDef node) {
+        this.enter(node);
+        this.walk(node.name);
+        this.walk(node.superClass);
+        this.walk(node.declarations);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(ClassType node) {
+        this.enter(node);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(CompilerError node) {
+        this.enter(node);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(Errors node) {
+        this.enter(node);
+        this.walk(node.errors);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(ExprStmt node) {
+        this.enter(node);
+        this.walk(node.expr);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(ForStmt node) {
+        this.enter(node);
+        this.walk(node.identifier);
+        this.walk(node.iterable);
+        this.walk(node.body);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(FuncDef node) {
+        this.enter(node);
+        this.walk(node.name);
+        this.walk(node.params);
+        this.walk(node.returnType);
+        this.walk(node.declarations);
+        this.walk(node.statements);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(GlobalDecl node) {
+        this.enter(node);
+        this.walk(node.variable);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(Identifier node) {
+        this.enter(node);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(IfExpr node) {
+        this.enter(node);
+        this.walk(node.condition);
+        this.walk(node.thenExpr);
+        this.walk(node.elseExpr);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(IfStmt node) {
+        this.enter(node);
+        this.walk(node.condition);
+        this.walk(node.thenBody);
+        this.walk(node.elseBody);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(IndexExpr node) {
+        this.enter(node);
+        this.walk(node.list);
+        this.walk(node.index);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(IntegerLiteral node) {
+        this.enter(node);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(ListExpr node) {
+        this.enter(node);
+        this.walk(node.elements);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(ListType node) {
+        this.enter(node);
+        this.walk(node.elementType);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(MemberExpr node) {
+        this.enter(node);
+        this.walk(node.object);
+        this.walk(node.member);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(MethodCallExpr node) {
+        this.enter(node);
+        this.walk(node.method);
+        this.walk(node.args);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(NoneLiteral node) {
+        this.enter(node);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(NonLocalDecl node) {
+        this.enter(node);
+        this.walk(node.variable);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(Program node) {
+        this.enter(node);
+        this.walk(node.declarations);
+        this.walk(node.statements);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(ReturnStmt node) {
+        this.enter(node);
+        this.walk(node.value);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(StringLiteral node) {
+        this.enter(node);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(TypedVar node) {
+        this.enter(node);
+        this.walk(node.identifier);
+        this.walk(node.type);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(UnaryExpr node) {
+        this.enter(node);
+        this.walk(node.operand);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(VarDef node) {
+        this.enter(node);
+        this.walk(node.var);
+        this.walk(node.value);
+        this.leave(node);
+        return null;
+    }
+
+    @Override
+    public Void analyze(WhileStmt node) {
+        this.enter(node);
+        this.walk(node.condition);
+        this.walk(node.body);
+        this.leave(node);
+        return null;
+    }
+}
@@ -27,17 +27,18 @@ public class SymbolTable<T> {
     /** Returns the mapping of NAME in the innermost nested region
      *  containing this one. */
     public T get(String name) {
-        if (tab.containsKey(name)) {
-            return tab.get(name);
-        } else if (parent != null) {
-            return parent.get(name);
-        } else {
-            return null;
+        for (SymbolTable<T> table = this; table != null; table = table.parent) {
+            T value = table.tab.get(name);
+            if (value != null) {
+                return value;
+            }
         }
+        return null;
     }
 
     /** Adds a new mapping of NAME -> VALUE to the current region, possibly
-     *  shadowing mappings in the enclosing parent. Returns modified table. */
+     *  shadowing mappings in the enclosing parent. VALUE must not be null.
+     *  Returns modified table. */
     public SymbolTable<T> put(String name, T value) {
         tab.put(name, value);
         return this;
@@ -1,6 +1,7 @@
 package chocopy.common.analysis.types;
 
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 import chocopy.common.astnodes.ClassType;
 import com.fasterxml.jackson.annotation.JsonCreator;
@@ -23,6 +24,13 @@ public class ClassValueType extends ValueType {
         this.className = classTypeAnnotation.className;
     }
 
+    /** Returns the canonical class type for the class named CLASSNAME.
+     *  Equal types returned by this method are identical, so they may be
+     *  compared with ==. */
+    public static ClassValueType of(String className) {
+        return Canonical.TYPES.computeIfAbsent(className, ClassValueType::new);
+    }
+
     @Override
     @JsonProperty
     public String className() {
@@ -50,4 +58,13 @@ public class ClassValueType extends ValueType {
     public String toString() {
         return className;
     }
+
+    /** Holds the canonical class types.  This is a separate class so that
+     *  the constants of SymbolType can be created while ClassValueType is
+     *  still being initialized. */
+    private static class Canonical {
+        /** Canonical class types, by class name. */
+        static final ConcurrentHashMap<String, ClassValueType> TYPES =
+            new ConcurrentHashMap<>();
+    }
 }
@@ -1,6 +1,7 @@
 package chocopy.common.analysis.types;
 
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 import chocopy.common.astnodes.ListType;
 import com.fasterxml.jackson.annotation.JsonCreator;
@@ -8,19 +9,34 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 /** Represents a semantic value of a list type denotation. */
 public class ListValueType extends ValueType {
 
+    /** Canonical list types, by element type. */
+    private static final ConcurrentHashMap<ValueType, ListValueType>
+        CANONICAL = new ConcurrentHashMap<>();
+
     /** This ListValueType represents [ELEMENTTYPE]. */
     public final ValueType elementType;
+    /** Cached hash code. */
+    private final int hash;
 
     /** Represents [ELEMENTTYPE]. */
     @JsonCreator
     public ListValueType(SymbolType elementType) {
         this.elementType = (ValueType) elementType;
+        this.hash = Objects.hash(this.elementType);
     }
 
     /** Represents [<type>], where <type> is that denoted in TYPEANNOTATION. */
     public ListValueType(ListType typeAnnotation) {
         elementType
             = ValueType.annotationToValueType(typeAnnotation.elementType);
+        hash = Objects.hash(elementType);
+    }
+
+    /** Returns the canonical type [ELEMENTTYPE].  Equal types returned by
+     *  this method are identical, and nested list types built from
+     *  canonical element types share their element types. */
+    public static ListValueType of(ValueType elementType) {
+        return CANONICAL.computeIfAbsent(elementType, ListValueType::new);
     }
 
     @Override
@@ -37,7 +53,7 @@ public class ListValueType extends ValueType {
 
     @Override
     public int hashCode() {
-        return Objects.hash(elementType);
+        return hash;
     }
 
     @Override
@@ -24,20 +24,20 @@ public abstract class SymbolType {
 
     /** The type object. */
     public static final ClassValueType OBJECT_TYPE =
-        new ClassValueType("object");
+        ClassValueType.of("object");
     /** The type int. */
-    public static final ClassValueType INT_TYPE = new ClassValueType("int");
+    public static final ClassValueType INT_TYPE = ClassValueType.of("int");
     /** The type str. */
-    public static final ClassValueType STR_TYPE = new ClassValueType("str");
+    public static final ClassValueType STR_TYPE = ClassValueType.of("str");
     /** The type bool. */
-    public static final ClassValueType BOOL_TYPE = new ClassValueType("bool");
+    public static final ClassValueType BOOL_TYPE = ClassValueType.of("bool");
 
     /** The type of None. */
     public static final ClassValueType NONE_TYPE =
-        new ClassValueType("<None>");
+        ClassValueType.of("<None>");
     /** The type of []. */
     public static final ClassValueType EMPTY_TYPE =
-        new ClassValueType("<Empty>");
+        ClassValueType.of("<Empty>");
 
 
     /** Returns the name of the class, if this is a class type,
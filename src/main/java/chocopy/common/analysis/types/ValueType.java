@@ -14,13 +14,14 @@ import chocopy.common.astnodes.TypeAnnotation;
 
 public abstract class ValueType extends SymbolType {
 
-    /** Returns the type corresponding to ANNOTATION. */
+    /** Returns the canonical type corresponding to ANNOTATION. */
     public static ValueType annotationToValueType(TypeAnnotation annotation) {
         if (annotation instanceof ClassType) {
-            return new ClassValueType((ClassType) annotation);
+            return ClassValueType.of(((ClassType) annotation).className);
         } else {
             assert annotation instanceof ListType;
-            return new ListValueType((ListType) annotation);
+            return ListValueType.of(
+                annotationToValueType(((ListType) annotation).elementType));
         }
     }
 
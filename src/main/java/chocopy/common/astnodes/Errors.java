@@ -5,10 +5,13 @@ import java.util.List;
 import chocopy.common.analysis.NodeAnalyzer;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import java_cup.runtime.ComplexSymbolFactory.Location;
 
 /** Collects the error messages in a Program.  There is exactly one per
  *  Program node. */
+/* The creator property comes before those common to all Nodes. */
+@JsonPropertyOrder({"errors", "kind", "location", "errorMsg"})
 public class Errors extends Node {
 
     /** The accumulated error messages in the order added. */
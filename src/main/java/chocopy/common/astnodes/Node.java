@@ -4,6 +4,7 @@ import java.io.IOException;
 
 import chocopy.common.analysis.NodeAnalyzer;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -25,6 +26,10 @@ import java_cup.runtime.ComplexSymbolFactory.Location;
  *      messages.
  *   2. It aids in debugging by making it convenient to see which
  *      Nodes have caused an error.
+ *
+ * To keep large ASTs small, a node stores its location packed into a
+ * single long, its kind is shared by all nodes of its class, and error
+ * messages, which few nodes have, are kept in a side table.
  */
 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME,
               include = JsonTypeInfo.As.EXISTING_PROPERTY,
@@ -62,59 +67,119 @@ import java_cup.runtime.ComplexSymbolFactory.Location;
         @JsonSubTypes.Type(VarDef.class),
         @JsonSubTypes.Type(WhileStmt.class),
 })
+/* Properties common to all Nodes come first in JSON form. */
+@JsonPropertyOrder({"kind", "location", "errorMsg"})
 public abstract class Node {
 
-    /** Node-type indicator for JSON form. */
-    public final String kind;
-
-    /** Source position information: 0: line number of start, 1: column number
-     *  of start, 2: line number of end, 3: column number of end. */
-    private final int[] location = new int[4];
-
-    /** First error message "blamed" on this Node. When non-null, indicates
-     *  that an error has been found in this Node. */
-    @JsonInclude(JsonInclude.Include.NON_EMPTY)
-    private String errorMsg;
+    /** Number of bits of a packed line number. */
+    private static final int LINE_BITS = 20;
+    /** Number of bits of a packed column number. */
+    private static final int COLUMN_BITS = 12;
+    /** Marks a location that does not fit in a long, and is held in
+     *  WIDE_LOCATIONS instead. */
+    static final long WIDE = -1L;
+
+    /** Node-type indicators for JSON form, by class. */
+    private static final ClassValue<String> KINDS = new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return type.getSimpleName();
+        }
+    };
+
+    /** First error messages "blamed" on Nodes.  A Node that has an entry
+     *  here has been found to have an error.  The table is shared by all
+     *  analyses, and an entry lasts as long as its Node, as a field would:
+     *  an analysis that re-analyzes Nodes already marked, or discards the
+     *  result of analyzing them, must clear their marks itself. */
+    private static final SideTable<String> ERROR_MESSAGES = new SideTable<>();
+    /** Locations of the Nodes whose locations are WIDE. */
+    private static final SideTable<int[]> WIDE_LOCATIONS = new SideTable<>();
+
+    /** Source position information, from most to least significant bits:
+     *  line number of start, column number of start, line number of end,
+     *  column number of end.  WIDE if one of these is too large. */
+    private long packedLocation;
 
     /** A Node corresponding to source text between LEFT and RIGHT. */
     public Node(Location left, Location right) {
-        if (left != null) {
-            location[0] = left.getLine();
-            location[1] = left.getColumn();
+        if (left != null || right != null) {
+            this.setLocation(new int[] {
+                left == null ? 0 : left.getLine(),
+                left == null ? 0 : left.getColumn(),
+                right == null ? 0 : right.getLine(),
+                right == null ? 0 : right.getColumn()
+            });
         }
-        if (right != null) {
-            location[2] = right.getLine();
-            location[3] = right.getColumn();
-        }
-        this.kind = getClass().getSimpleName();
-        this.errorMsg = null;
+    }
+
+    /** Node-type indicator for JSON form: the simple name of my class. */
+    public String getKind() {
+        return KINDS.get(this.getClass());
     }
 
     /** Return my source location as
      *     { <first line>, <first column>, <last line>, <last column> }.
-     *  Result should not be modified, and contents will change after
-     *  setLocation(). */
+     *  Each call returns a new array. */
     public int[] getLocation() {
-        return location;
+        if (this.packedLocation == WIDE) {
+            return WIDE_LOCATIONS.get(this).clone();
+        }
+        return unpackLocation(this.packedLocation);
     }
 
     /** Copy LOCATION as getLocation(). */
     public void setLocation(final int[] location) {
-        System.arraycopy(location, 0, this.location, 0, 4);
+        long packed = packLocation(location);
+        if (packed == WIDE) {
+            WIDE_LOCATIONS.put(this, location.clone());
+        } else if (this.packedLocation == WIDE) {
+            WIDE_LOCATIONS.put(this, null);
+        }
+        this.packedLocation = packed;
     }
 
+    /** Return LOCATION, as returned by getLocation(), packed into a long,
+     *  or WIDE if it does not fit. */
+    static long packLocation(int[] location) {
+        long packed = 0;
+        for (int i = 0; i < 4; i += 1) {
+            int bits = i % 2 == 0 ? LINE_BITS : COLUMN_BITS;
+            if (location[i] < 0 || location[i] >= 1 << bits) {
+                return WIDE;
+            }
+            packed = (packed << bits) | location[i];
+        }
+        return packed;
+    }
+
+    /** Return the location packed into PACKED by packLocation, which
+     *  must not be WIDE. */
+    static int[] unpackLocation(long packed) {
+        int[] location = new int[4];
+        for (int i = 3; i >= 0; i -= 1) {
+            int bits = i % 2 == 0 ? LINE_BITS : COLUMN_BITS;
+            location[i] = (int) (packed & ((1L << bits) - 1));
+            packed >>>= bits;
+        }
+        return location;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
     public String getErrorMsg() {
-        return errorMsg;
+        return ERROR_MESSAGES.get(this);
     }
 
+    /** Mark me with the error message MSG, or clear my mark if MSG is
+     *  null. */
     public void setErrorMsg(String msg) {
-        this.errorMsg = msg;
+        ERROR_MESSAGES.put(this, msg);
     }
 
     /** Return true iff I have been marked with an error message. */
     @JsonIgnore
     public boolean hasError() {
-        return this.errorMsg != null;
+        return this.getErrorMsg() != null;
     }
 
     /** Invoke ANALYZER on me as a node of static type T.  See the comment
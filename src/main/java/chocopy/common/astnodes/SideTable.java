@@ -0,0 +1,147 @@
+package chocopy.common.astnodes;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/** A table of values attached to Nodes, used for data that few Nodes
+ *  have, so that the others need no field for it.  Nodes are compared by
+ *  identity, and are only weakly referenced, so that a Node's entry goes
+ *  away with the Node: the entries of collected Nodes are dropped on the
+ *  next put.  Nothing else removes an entry.  The table may be used by
+ *  several threads: puts are serialized, while gets take no lock and
+ *  allocate nothing. */
+class SideTable<V> {
+
+    /** Initial number of buckets (a power of 2). */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** The chains of entries, by identity hash code of their Nodes.  The
+     *  chains are never modified in place, only replaced. */
+    private volatile AtomicReferenceArray<Entry<V>> buckets =
+        new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    /** Number of entries, including those of collected Nodes. */
+    private volatile int size;
+    /** Entries whose Nodes have been collected. */
+    private final ReferenceQueue<Node> collected = new ReferenceQueue<>();
+
+    /** Return the value attached to NODE, or null if there is none. */
+    V get(Node node) {
+        if (this.size == 0) {
+            return null;
+        }
+        AtomicReferenceArray<Entry<V>> buckets = this.buckets;
+        int hash = System.identityHashCode(node);
+        for (Entry<V> e = buckets.get(hash & (buckets.length() - 1));
+             e != null; e = e.next) {
+            if (e.hash == hash && e.get() == node) {
+                return e.value;
+            }
+        }
+        return null;
+    }
+
+    /** Attach VALUE to NODE, or remove NODE's value if VALUE is null. */
+    synchronized void put(Node node, V value) {
+        for (Reference<? extends Node> key = this.collected.poll();
+             key != null; key = this.collected.poll()) {
+            this.remove((Entry<?>) key);
+        }
+        if (value == null && this.size == 0) {
+            return;
+        }
+        AtomicReferenceArray<Entry<V>> buckets = this.buckets;
+        int hash = System.identityHashCode(node);
+        int index = hash & (buckets.length() - 1);
+        Entry<V> head = buckets.get(index);
+        for (Entry<V> e = head; e != null; e = e.next) {
+            if (e.hash == hash && e.get() == node) {
+                if (value == null) {
+                    this.remove(e);
+                } else {
+                    e.value = value;
+                }
+                return;
+            }
+        }
+        if (value != null) {
+            buckets.set(index,
+                        new Entry<>(node, hash, value, head, this.collected));
+            this.size += 1;
+            if (this.size > buckets.length() / 4 * 3) {
+                this.grow();
+            }
+        }
+    }
+
+    /** Remove ENTRY, if it is still present, by replacing the part of its
+     *  chain that precedes it.  Entries of collected Nodes in that part
+     *  are dropped as well. */
+    private void remove(Entry<?> entry) {
+        AtomicReferenceArray<Entry<V>> buckets = this.buckets;
+        int index = entry.hash & (buckets.length() - 1);
+        Entry<V> head = buckets.get(index);
+        Entry<V> e;
+        for (e = head; e != null && e != entry; e = e.next) {
+        }
+        if (e == null) {
+            return;
+        }
+        Entry<V> rest = e.next;
+        for (e = head; e != entry; e = e.next) {
+            Node node = e.get();
+            if (node != null) {
+                rest = new Entry<>(node, e.hash, e.value, rest, this.collected);
+            } else {
+                this.size -= 1;
+            }
+        }
+        buckets.set(index, rest);
+        this.size -= 1;
+    }
+
+    /** Double the number of buckets, copying the live entries. */
+    private void grow() {
+        AtomicReferenceArray<Entry<V>> old = this.buckets;
+        AtomicReferenceArray<Entry<V>> buckets =
+            new AtomicReferenceArray<>(old.length() * 2);
+        int size = 0;
+        for (int i = 0; i < old.length(); i += 1) {
+            for (Entry<V> e = old.get(i); e != null; e = e.next) {
+                Node node = e.get();
+                if (node != null) {
+                    int index = e.hash & (buckets.length() - 1);
+                    buckets.set(index,
+                                new Entry<>(node, e.hash, e.value,
+                                            buckets.get(index),
+                                            this.collected));
+                    size += 1;
+                }
+            }
+        }
+        this.buckets = buckets;
+        this.size = size;
+    }
+
+    /** A weak reference to a Node with its value, on a chain. */
+    private static class Entry<V> extends WeakReference<Node> {
+        /** The identity hash code of the Node. */
+        final int hash;
+        /** The next entry on my chain. */
+        final Entry<V> next;
+        /** The value attached to the Node. */
+        volatile V value;
+
+        /** An entry attaching VALUE to NODE, whose identity hash code is
+         *  HASH, followed by NEXT, and enqueued on QUEUE once NODE is
+         *  collected. */
+        Entry(Node node, int hash, V value, Entry<V> next,
+              ReferenceQueue<Node> queue) {
+            super(node, queue);
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
+        }
+    }
+}
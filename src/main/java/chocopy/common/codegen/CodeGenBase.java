@@ -1,8 +1,12 @@
 package chocopy.common.codegen;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -23,6 +27,9 @@ import chocopy.common.astnodes.Stmt;
 import chocopy.common.astnodes.TypedVar;
 import chocopy.common.astnodes.VarDef;
 import chocopy.common.analysis.AbstractNodeAnalyzer;
+import chocopy.common.analysis.NodeWalker;
+import chocopy.common.astnodes.Node;
+import chocopy.common.astnodes.StringLiteral;
 
 import static chocopy.common.Utils.*;
 import static chocopy.common.codegen.RiscVBackend.Register.*;
@@ -151,7 +158,6 @@ public abstract class CodeGenBase {
 
         initClasses();
         initFunctions();
-        initAsmConstants();
     }
 
     /** Return a fresh type tag. */
@@ -159,6 +165,61 @@ public abstract class CodeGenBase {
         return nextTypeTag++;
     }
 
+    /** Number of threads used to emit function bodies. */
+    protected int parallelism = 1;
+
+    /** The name of the function whose local labels the current thread is
+     *  generating, if it is emitting a function body. */
+    protected final ThreadLocal<String> labelNamespace = new ThreadLocal<>();
+
+    /** The next local label suffix within the current thread's
+     *  labelNamespace. */
+    protected final ThreadLocal<int[]> namespaceLabelSuffix =
+        ThreadLocal.withInitial(() -> new int[1]);
+
+    /** Emit function bodies on PARALLELISM threads, when greater than 1. */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /** True to emit the larger, faster versions of runtime routines that
+     *  have them, rather than the smaller ones. */
+    protected boolean fastRuntime = false;
+
+    /** Emit the faster runtime routines iff FASTRUNTIME. */
+    public void setFastRuntime(boolean fastRuntime) {
+        this.fastRuntime = fastRuntime;
+    }
+
+    /** True if str objects have a __hash__ attribute, between __len__ and
+     *  __str__, caching the hash code of their contents, or 0 if it has
+     *  not been computed yet. */
+    protected boolean stringHash = false;
+
+    /** Give str objects a cached hash code iff STRINGHASH.  Must be called
+     *  before generate. */
+    public void setStringHash(boolean stringHash) {
+        if (stringHash && !this.stringHash) {
+            strClass.attributes.add(strClass.getAttributeIndex("__str__"),
+                makeAttrInfo("__hash__", SymbolType.INT_TYPE,
+                             new IntegerLiteral(null, null, 0)));
+        } else if (!stringHash && this.stringHash) {
+            strClass.attributes.remove(strClass.getAttributeIndex("__hash__"));
+        }
+        this.stringHash = stringHash;
+    }
+
+    /** Return the hash code of the str VALUE, as computed by the runtime
+     *  when str objects have a __hash__ attribute.  The hash code of a
+     *  string is never 0, which marks a hash code not yet computed. */
+    protected static int getStrHash(String value) {
+        int hash = 0;
+        for (int i = 0; i < value.length(); i += 1) {
+            hash = 31 * hash + (value.charAt(i) & 0xff);
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
     /** Returns the next unique label suffix. */
     protected int getNextLabelSuffix() {
         return nextLabelSuffix++;
@@ -174,8 +235,17 @@ public abstract class CodeGenBase {
      * This is useful to generate local labels in
      * function bodies (e.g. for targets of jumps),
      * where the name does not matter in general.
+     *
+     * Each function numbers its own labels, which are then of the form
+     * `label_<function>.<n>`, so that they do not depend on the order
+     * functions are emitted in.
      */
     protected Label generateLocalLabel() {
+        String namespace = labelNamespace.get();
+        if (namespace != null) {
+            int suffix = namespaceLabelSuffix.get()[0]++;
+            return new Label(String.format("label_%s.%d", namespace, suffix));
+        }
         return new Label(String.format("label_%d", getNextLabelSuffix()));
     }
 
@@ -188,6 +258,7 @@ public abstract class CodeGenBase {
      * routines, and user-defined functions).
      */
     public void generate(Program program) {
+        initAsmConstants();
         analyzeProgram(program);
 
         backend.startData();
@@ -196,8 +267,9 @@ public abstract class CodeGenBase {
             emitPrototype(classInfo);
         }
 
+        Set<FuncInfo> emittedFunctions = new HashSet<>(this.functions);
         for (ClassInfo classInfo : this.classes) {
-            emitDispatchTable(classInfo);
+            emitDispatchTable(classInfo, emittedFunctions);
         }
 
         for (GlobalVarInfo global : this.globalVars) {
@@ -224,9 +296,7 @@ public abstract class CodeGenBase {
 
         emitTopLevel(program.statements);
 
-        for (FuncInfo funcInfo : this.functions) {
-            funcInfo.emitBody();
-        }
+        emitFunctions();
 
         emitStdFunc("alloc");
         emitStdFunc("alloc2");
@@ -239,6 +309,95 @@ public abstract class CodeGenBase {
         emitConstants();
     }
 
+    /**
+     * Emit the bodies of all user-defined functions and methods, each into
+     * a buffer of its own, with its own local labels.  The bodies are
+     * emitted on worker threads if parallelism is greater than 1, and the
+     * buffers are then emitted in order, so that the code is the same for
+     * any parallelism.
+     */
+    protected void emitFunctions() {
+        // constant labels are numbered in order of first use, so
+        // number them all up front in a fixed order
+        for (FuncInfo funcInfo : this.functions) {
+            registerConstants(funcInfo);
+        }
+
+        if (parallelism <= 1) {
+            for (FuncInfo funcInfo : this.functions) {
+                backend.emitBuffered(emitFunctionBuffered(funcInfo));
+            }
+            return;
+        }
+
+        // predefined functions add the constants of their library code
+        // as they are emitted, so emit those here, in order
+        FuncInfo objectInit = objectClass.getMethods().get(0);
+        List<String> bodies = new ArrayList<>();
+        List<ForkJoinTask<String>> tasks = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (FuncInfo funcInfo : this.functions) {
+                if (funcInfo == objectInit || funcInfo == printFunc
+                    || funcInfo == lenFunc || funcInfo == inputFunc) {
+                    bodies.add(emitFunctionBuffered(funcInfo));
+                    tasks.add(null);
+                } else {
+                    bodies.add(null);
+                    tasks.add(pool.submit(
+                            () -> emitFunctionBuffered(funcInfo)));
+                }
+            }
+            for (int i = 0; i < bodies.size(); i++) {
+                ForkJoinTask<String> task = tasks.get(i);
+                backend.emitBuffered(task == null ? bodies.get(i)
+                                                  : task.join());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** Emit the body of FUNCINFO into a private buffer on the current
+     *  thread, and return the buffered code. */
+    protected String emitFunctionBuffered(FuncInfo funcInfo) {
+        backend.startBuffer();
+        labelNamespace.set(funcInfo.getFuncName());
+        namespaceLabelSuffix.get()[0] = 0;
+        try {
+            funcInfo.emitBody();
+        } finally {
+            labelNamespace.remove();
+        }
+        return backend.endBuffer();
+    }
+
+    /**
+     * Create the labels of all constants the body of FUNCINFO may refer to,
+     * so that emitting it does not create new ones.
+     *
+     * Sub-classes that refer to other constants in function bodies should
+     * override this method to create them as well.
+     */
+    protected void registerConstants(FuncInfo funcInfo) {
+        NodeWalker literals = new NodeWalker() {
+            @Override
+            protected void enter(Node node) {
+                if (node instanceof StringLiteral) {
+                    constants.getStrConstant(((StringLiteral) node).value);
+                }
+            }
+        };
+        for (StackVarInfo local : funcInfo.getLocals()) {
+            if (local.getInitialValue() != null) {
+                local.getInitialValue().dispatch(literals);
+            }
+        }
+        for (Stmt stmt : funcInfo.getStatements()) {
+            stmt.dispatch(literals);
+        }
+    }
+
     /** Create descriptors and symbols for builtin classes and methods. */
     protected void initClasses() {
         FuncInfo objectInit =
@@ -316,6 +475,7 @@ public abstract class CodeGenBase {
      * Data-structure byte offsets:
      *   @.__obj_size__: Offset of size of object.
      *   @.__len__: Offset of length in chars or words.
+     *   @.__hash__: Offset of cached hash code of string, if stringHash.
      *   @.__str__: Offset of string data.
      *   @.__elts__: Offset of first list item.
      *   @.__int__: Offset of integer value.
@@ -334,7 +494,12 @@ public abstract class CodeGenBase {
         backend.defineSym(".__len__", 12);
         backend.defineSym(".__int__", 12);
         backend.defineSym(".__bool__", 12);
-        backend.defineSym(".__str__", 16);
+        if (stringHash) {
+            backend.defineSym(".__hash__", 16);
+            backend.defineSym(".__str__", 20);
+        } else {
+            backend.defineSym(".__str__", 16);
+        }
         backend.defineSym(".__elts__", 16);
 
         backend.defineSym("error_div_zero", ERROR_DIV_ZERO);
@@ -752,12 +917,17 @@ public abstract class CodeGenBase {
             backend.emitGlobalLabel(label);
             backend.emitWordLiteral(strClass.getTypeTag(),
                                     "Type tag for class: str");
-            backend.emitWordLiteral(3 + 1 + numWordsForCharacters,
+            backend.emitWordLiteral(HEADER_SIZE + strClass.attributes.size()
+                                    - 1 + numWordsForCharacters,
                                     "Object size");
             backend.emitWordAddress(strClass.getDispatchTableLabel(),
                                     "Pointer to dispatch table");
             backend.emitWordLiteral(value.length(),
                                     "Constant value of attribute: __len__");
+            if (stringHash) {
+                backend.emitWordLiteral(getStrHash(value),
+                                        "Constant value of attribute: __hash__");
+            }
             backend.emitString(value, "Constant value of attribute: __str__");
             alignObject();
         }
@@ -779,8 +949,11 @@ public abstract class CodeGenBase {
     }
 
 
-    /** Emit the method dispatching table for CLASSINFO. */
-    protected void emitDispatchTable(ClassInfo classInfo) {
+    /** Emit the method dispatching table for CLASSINFO.  Methods that
+     *  are not among the functions to emit, EMITTEDFUNCTIONS, are never
+     *  called, and get a null entry. */
+    protected void emitDispatchTable(ClassInfo classInfo,
+                                     Set<FuncInfo> emittedFunctions) {
         Label dispatchTableLabel = classInfo.getDispatchTableLabel();
         if (dispatchTableLabel == null) {
             return;
@@ -790,7 +963,11 @@ public abstract class CodeGenBase {
             String cmnt = String.format("Implementation for method: %s.%s",
                                         classInfo.getClassName(),
                                         method.getBaseName());
-            backend.emitWordAddress(method.getCodeLabel(), cmnt);
+            if (emittedFunctions.contains(method)) {
+                backend.emitWordAddress(method.getCodeLabel(), cmnt);
+            } else {
+                backend.emitWordLiteral(0, "Never called: " + cmnt);
+            }
         }
     }
 
@@ -15,6 +15,9 @@ import chocopy.common.astnodes.StringLiteral;
  *
  * Constants are emitted in assembly in the DATA section,
  * and therefore are represented by their labels.
+ *
+ * Lookups are synchronized, since function bodies may be emitted in
+ * parallel.
  */
 public class Constants {
 
@@ -72,7 +75,7 @@ public class Constants {
      * @param value the integer value
      * @return the label for the integer value
      */
-    public Label getIntConstant(int value) {
+    public synchronized Label getIntConstant(int value) {
         if (intConstants.containsKey(value)) {
             return intConstants.get(value);
         } else {
@@ -88,7 +91,7 @@ public class Constants {
      * @param value the string value
      * @return the label for the string value
      */
-    public Label getStrConstant(String value) {
+    public synchronized Label getStrConstant(String value) {
         if (strConstants.containsKey(value)) {
             return strConstants.get(value);
         } else {
@@ -2,7 +2,10 @@ package chocopy.common.codegen;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayDeque;
 import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -18,6 +21,17 @@ public class RiscVBackend {
     /** The word size in bytes for RISC-V 32-bit. */
     protected static final int WORD_SIZE = 4;
 
+    /** Per-thread stacks of buffers that divert output away from asmText
+     *  while several functions are emitted at once, or while a function
+     *  is emitted tentatively (see startBuffer).  The innermost buffer
+     *  receives the output. */
+    private final ThreadLocal<ArrayDeque<StringBuilder>> buffers =
+        ThreadLocal.withInitial(ArrayDeque::new);
+
+    /** The labels referenced so far by jumps, loads, stores and data
+     *  words, from any thread (see isReferenced). */
+    private final Set<Label> referencedLabels = ConcurrentHashMap.newKeySet();
+
     /** Mappung from @-symbols to values. */
     private HashMap<String, String> defns = new HashMap<>();
 
@@ -138,7 +152,52 @@ public class RiscVBackend {
      * trailing newline.
      */
     protected void emit(String str) {
-        out.println(str);
+        StringBuilder buffer = buffers.get().peek();
+        if (buffer != null) {
+            buffer.append(str).append(System.lineSeparator());
+        } else {
+            out.println(str);
+        }
+    }
+
+    /**
+     * Divert all code subsequently emitted by the current thread into a
+     * private buffer, until the next call to endBuffer.  This allows
+     * different threads to emit different functions at the same time.
+     * Buffers nest: the matching endBuffer resumes diverting code into
+     * the buffer in use before, if any.
+     */
+    public void startBuffer() {
+        buffers.get().push(new StringBuilder());
+    }
+
+    /**
+     * Stop diverting code emitted by the current thread, and return the
+     * code emitted since the matching call to startBuffer.
+     */
+    public String endBuffer() {
+        return buffers.get().pop().toString();
+    }
+
+    /**
+     * Emit CODE, as returned by endBuffer, to the output stream verbatim.
+     */
+    public void emitBuffered(String code) {
+        StringBuilder buffer = buffers.get().peek();
+        if (buffer != null) {
+            buffer.append(code);
+        } else {
+            out.print(code);
+        }
+    }
+
+    /**
+     * Return true iff code emitted so far, on any thread and buffered or
+     * not, jumps to, loads or stores at, or takes the address of LABEL.
+     * References in code emitted verbatim with emitInsn are not seen.
+     */
+    public boolean isReferenced(Label label) {
+        return referencedLabels.contains(label);
     }
 
     /**
@@ -197,6 +256,7 @@ public class RiscVBackend {
         if (addr == null) {
             emitWordLiteral(0, comment);
         } else {
+            referencedLabels.add(addr);
             emitInsn(String.format(".word %s", addr), comment);
         }
     }
@@ -250,6 +310,7 @@ public class RiscVBackend {
      * LABEL.  COMMENT is an optional one-line comment (null if missing).
      */
     public void emitLA(Register rd, Label label, String comment) {
+        referencedLabels.add(label);
         emitInsn(String.format("la %s, %s", rd, label), comment);
     }
 
@@ -291,6 +352,7 @@ public class RiscVBackend {
      * COMMENT is an optional one-line comment (null if missing).
      */
     public void emitJ(Label label, String comment) {
+        referencedLabels.add(label);
         emitInsn(String.format("j %s", label), comment);
     }
 
@@ -300,6 +362,7 @@ public class RiscVBackend {
      * COMMENT is an optional one-line comment (null if missing).
      */
     public void emitJAL(Label label, String comment) {
+        referencedLabels.add(label);
         emitInsn(String.format("jal %s", label), comment);
     }
 
@@ -360,6 +423,16 @@ public class RiscVBackend {
         emitInsn(String.format("mul %s, %s, %s", rd, rs1, rs2), comment);
     }
 
+    /**
+     * Emit a multiply instruction performing RD = (RS1 * RS2) >> 32,
+     * the upper word of the signed 64-bit product.
+     * COMMENT is an optional one-line comment (null if missing).
+     */
+    public void emitMULH(Register rd, Register rs1, Register rs2,
+                         String comment) {
+        emitInsn(String.format("mulh %s, %s, %s", rd, rs1, rs2), comment);
+    }
+
     /**
      * Emit a signed integer divide instruction performing
      * RD = RS1 / RS2 mod 2**32, rounding the result toward 0.
@@ -535,11 +608,67 @@ public class RiscVBackend {
         emitInsn(String.format("sw %s, %s(%s)", rs2, imm, rs1), comment);
     }
 
+    /**
+     * Return true iff IMM fits in the 12-bit signed immediate field of
+     * an I-type or S-type instruction.
+     */
+    public static boolean isImmediate(int imm) {
+        return -2048 <= imm && imm < 2048;
+    }
+
+    /**
+     * Emit code performing RD = RS + IMM, for any IMM: an add-immediate
+     * instruction if IMM fits, and otherwise an add of IMM loaded into
+     * TEMP, which may be RD.  COMMENT is an optional one-line comment
+     * (null if missing).
+     */
+    public void emitADDI(Register rd, Register rs, int imm, Register temp,
+                         String comment) {
+        if (isImmediate(imm)) {
+            emitADDI(rd, rs, imm, comment);
+        } else {
+            emitLI(temp, imm, "Load offset too large for an immediate");
+            emitADD(rd, rs, temp, comment);
+        }
+    }
+
+    /**
+     * Emit code performing RD = MEMORY[RS + IMM]:4, for any IMM, using
+     * TEMP to hold the address if IMM does not fit in an immediate.
+     * COMMENT is an optional one-line comment (null if missing).
+     */
+    public void emitLW(Register rd, Register rs, int imm, Register temp,
+                       String comment) {
+        if (isImmediate(imm)) {
+            emitLW(rd, rs, imm, comment);
+        } else {
+            emitADDI(temp, rs, imm, temp, "Address of word too far for an offset");
+            emitLW(rd, temp, 0, comment);
+        }
+    }
+
+    /**
+     * Emit code performing MEMORY[RS1 + IMM]:4 = RS2, for any IMM, using
+     * TEMP, which must differ from RS2, to hold the address if IMM does
+     * not fit in an immediate.  COMMENT is an optional one-line comment
+     * (null if missing).
+     */
+    public void emitSW(Register rs2, Register rs1, int imm, Register temp,
+                       String comment) {
+        if (isImmediate(imm)) {
+            emitSW(rs2, rs1, imm, comment);
+        } else {
+            emitADDI(temp, rs1, imm, temp, "Address of word too far for an offset");
+            emitSW(rs2, temp, 0, comment);
+        }
+    }
+
     /**
      * Emit a load-word instruction for globals: RD = MEMORY[LABEL]:4.
      * COMMENT is an optional one-line comment (null if missing).
      */
     public void emitLW(Register rd, Label label, String comment) {
+        referencedLabels.add(label);
         emitInsn(String.format("lw %s, %s", rd, label), comment);
     }
 
@@ -550,6 +679,7 @@ public class RiscVBackend {
      */
     public void emitSW(Register rs, Label label, Register tmp,
                        String comment) {
+        referencedLabels.add(label);
         emitInsn(String.format("sw %s, %s, %s", rs, label, tmp), comment);
     }
 
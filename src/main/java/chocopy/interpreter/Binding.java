@@ -0,0 +1,9 @@
+package chocopy.interpreter;
+
+/**
+ * Abstract base of the descriptors that identifiers are resolved to
+ * before a program is interpreted: variable slots, functions and
+ * classes.
+ */
+public abstract class Binding {
+}
@@ -0,0 +1,43 @@
+package chocopy.interpreter;
+
+import chocopy.common.astnodes.Program;
+
+/**
+ * Interface to the interpreter.
+ */
+public class ChocoPyInterpreter {
+
+    /**
+     * Run PROGRAM, assumed to be well-typed, and return its output.
+     * A runtime error ends the output with the error message and the exit
+     * code, as printed when running the generated code.  An internal error
+     * is reported on stderr, and gives no output. DEBUG iff --debug
+     * was on the command line.
+     */
+    public static String process(Program program, boolean debug) {
+        Interpreter interpreter = new Interpreter();
+        try {
+            program.dispatch(interpreter);
+            return interpreter.getOutput();
+        } catch (ChocoPyRuntimeError e) {
+            return abort(interpreter, e);
+        } catch (StackOverflowError e) {
+            return abort(interpreter, ChocoPyRuntimeError.outOfMemory());
+        } catch (IllegalStateException | IllegalArgumentException
+                 | ClassCastException e) {
+            System.err.println("Error interpreting program. "
+                    + "Re-run with --debug to see stack trace.");
+            if (debug) {
+                e.printStackTrace();
+            }
+            return "";
+        }
+    }
+
+    /** Return the output of INTERPRETER after it aborted with ERROR. */
+    private static String abort(Interpreter interpreter,
+                                ChocoPyRuntimeError error) {
+        return String.format("%s%s%nExited with error code %d%n",
+                interpreter.getOutput(), error.getMessage(), error.exitCode);
+    }
+}
@@ -0,0 +1,44 @@
+package chocopy.interpreter;
+
+/**
+ * A runtime error that aborts the interpreted program. Exit codes and
+ * messages are the ones the generated code passes to `abort`.
+ */
+public class ChocoPyRuntimeError extends RuntimeException {
+
+    public static final int ERROR_ARG = 1, ERROR_DIV_ZERO = 2, ERROR_OOB = 3,
+        ERROR_NONE = 4, ERROR_OOM = 5, ERROR_NYI = 6;
+
+    /** Exit code of the aborted program. */
+    public final int exitCode;
+
+    public ChocoPyRuntimeError(int exitCode, String message) {
+        super(message);
+        this.exitCode = exitCode;
+    }
+
+    public static ChocoPyRuntimeError invalidArgument() {
+        return new ChocoPyRuntimeError(ERROR_ARG, "Invalid argument");
+    }
+
+    public static ChocoPyRuntimeError divisionByZero() {
+        // same spelling as the message emitted by the code generator
+        return new ChocoPyRuntimeError(ERROR_DIV_ZERO, "Divison by zero");
+    }
+
+    public static ChocoPyRuntimeError indexOutOfBounds() {
+        return new ChocoPyRuntimeError(ERROR_OOB, "Index out of bounds");
+    }
+
+    public static ChocoPyRuntimeError operationOnNone() {
+        return new ChocoPyRuntimeError(ERROR_NONE, "Operation on None");
+    }
+
+    public static ChocoPyRuntimeError outOfMemory() {
+        return new ChocoPyRuntimeError(ERROR_OOM, "Out of memory");
+    }
+
+    public static ChocoPyRuntimeError unsupportedOperation() {
+        return new ChocoPyRuntimeError(ERROR_NYI, "Unsupported operation");
+    }
+}
@@ -0,0 +1,82 @@
+package chocopy.interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The runtime layout of a class: its attributes in object order, with
+ * their initial values, and its methods in dispatch-table order.
+ *
+ * Inherited attributes and methods keep the slots they have in the
+ * superclass, so an index resolved against the static type of an
+ * expression is valid for every object of a subclass.
+ */
+public class ClassLayout extends Binding {
+
+    /** Name of class. */
+    protected final String className;
+
+    /** Names of the attributes, in object order. */
+    protected final List<String> attributes = new ArrayList<>();
+    /** Initial values of the attributes, in object order. */
+    protected final List<Object> attributeValues = new ArrayList<>();
+    /** Methods, in dispatch-table order. */
+    protected final List<FunctionCode> methods = new ArrayList<>();
+
+    /** A layout for class CLASSNAME whose superclass has layout
+     *  SUPERLAYOUT. The latter is null iff the class is object. */
+    public ClassLayout(String className, ClassLayout superLayout) {
+        this.className = className;
+        if (superLayout != null) {
+            this.attributes.addAll(superLayout.attributes);
+            this.attributeValues.addAll(superLayout.attributeValues);
+            this.methods.addAll(superLayout.methods);
+        }
+    }
+
+    /** Add an attribute named NAME with initial value VALUE. */
+    public void addAttribute(String name, Object value) {
+        this.attributes.add(name);
+        this.attributeValues.add(value);
+    }
+
+    /** Add METHOD, overriding any inherited method of that name. */
+    public void addMethod(FunctionCode method) {
+        int idx = this.getMethodIndex(method.getBaseName());
+        if (idx >= 0) {
+            this.methods.set(idx, method);
+        } else {
+            this.methods.add(method);
+        }
+    }
+
+    /** Return the slot of the attribute named ATTRNAME, or -1. */
+    public int getAttributeIndex(String attrName) {
+        return this.attributes.indexOf(attrName);
+    }
+
+    /** Return the dispatch-table slot of the method named METHODNAME,
+     *  or -1. */
+    public int getMethodIndex(String methodName) {
+        for (int i = 0; i < this.methods.size(); i++) {
+            if (this.methods.get(i).getBaseName().equals(methodName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Return the method at dispatch-table slot INDEX. */
+    public FunctionCode getMethod(int index) {
+        return this.methods.get(index);
+    }
+
+    /** Return a new object of this class with attributes initialized. */
+    public Instance newInstance() {
+        return new Instance(this, this.attributeValues.toArray());
+    }
+
+    public String getClassName() {
+        return className;
+    }
+}
@@ -0,0 +1,15 @@
+package chocopy.interpreter;
+
+/**
+ * The executable form of an expression or statement, into which the
+ * Interpreter compiles each function body once, when the program is
+ * loaded.  Variables, callees, attributes, methods and literal values
+ * are resolved during that compilation.
+ */
+@FunctionalInterface
+public interface Code {
+
+    /** Execute me in the current frame, returning my value, or null if
+     *  I am a statement. */
+    Object run();
+}
@@ -0,0 +1,16 @@
+package chocopy.interpreter;
+
+/** An activation record of an interpreted function. */
+public class Frame {
+
+    /** Parameters followed by locals, as laid out by FunctionCode. */
+    protected final Object[] slots;
+    /** Frame of the lexically enclosing function, or null for global
+     *  functions and methods. */
+    protected final Frame staticLink;
+
+    public Frame(Object[] slots, Frame staticLink) {
+        this.slots = slots;
+        this.staticLink = staticLink;
+    }
+}
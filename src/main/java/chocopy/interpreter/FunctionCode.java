@@ -0,0 +1,120 @@
+package chocopy.interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import chocopy.common.analysis.SymbolTable;
+import chocopy.common.astnodes.FuncDef;
+
+/**
+ * A descriptor for function and method definitions, as needed by the
+ * interpreter.
+ *
+ * Parameters and local variables are assigned consecutive slots in the
+ * function's frame: parameters first, in declaration order, followed by
+ * locals. The initial values of locals are evaluated once, when the
+ * descriptor is built, and copied into every new frame. The body is
+ * compiled once every function and class of the program is loaded.
+ */
+public class FunctionCode extends Binding {
+
+    /** The fully-qualified name of the function (e.g. `C.m` or `f.g`). */
+    protected final String funcName;
+
+    /**
+     * The static depth of the function. The top level has depth 0,
+     * global functions and methods have depth 1, and functions nested
+     * in a function of depth D have depth D+1.
+     */
+    protected final int depth;
+
+    /** The definition of the function, or null for built-in functions. */
+    protected final FuncDef funcDef;
+
+    /** The symbol table that binds identifiers seen in the body. */
+    protected final SymbolTable<Binding> symbolTable;
+
+    /** Number of parameters. */
+    protected int numParams;
+
+    /** Initial values of the local variables, in slot order. */
+    protected final List<Object> localValues = new ArrayList<>();
+
+    /** The compiled statements of the body, or null for built-ins. */
+    protected Code body;
+
+    /**
+     * A descriptor for the function FUNCDEF with fully-qualified name
+     * FUNCNAME at static depth DEPTH, whose body is resolved in a region
+     * nested in PARENTSYMBOLTABLE. FUNCDEF is null for built-ins.
+     */
+    public FunctionCode(String funcName, int depth, FuncDef funcDef,
+                        SymbolTable<Binding> parentSymbolTable) {
+        this.funcName = funcName;
+        this.depth = depth;
+        this.funcDef = funcDef;
+        this.symbolTable = new SymbolTable<>(parentSymbolTable);
+    }
+
+    /** Add a parameter named NAME, which must precede all locals. */
+    public void addParam(String name) {
+        assert this.localValues.isEmpty() : "parameters precede locals";
+        this.symbolTable.put(name, new VarSlot(this, this.numParams));
+        this.numParams += 1;
+    }
+
+    /** Add a local variable named NAME, initialized to VALUE. */
+    public void addLocal(String name, Object value) {
+        this.symbolTable.put(name,
+                new VarSlot(this, this.numParams + this.localValues.size()));
+        this.localValues.add(value);
+    }
+
+    /** Return a fresh slot array for a call to me, with the locals
+     *  initialized and the parameters left for the caller to fill in. */
+    public Object[] newSlots() {
+        Object[] slots = new Object[this.numParams + this.localValues.size()];
+        for (int i = 0; i < this.localValues.size(); i++) {
+            slots[this.numParams + i] = this.localValues.get(i);
+        }
+        return slots;
+    }
+
+    /** Return true iff I am a built-in function. */
+    public boolean isBuiltin() {
+        return this.funcDef == null;
+    }
+
+    public String getFuncName() {
+        return funcName;
+    }
+
+    /** Return the name of the function, excluding any qualifiers. */
+    public String getBaseName() {
+        return funcName.substring(funcName.lastIndexOf('.') + 1);
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public FuncDef getFuncDef() {
+        return funcDef;
+    }
+
+    public SymbolTable<Binding> getSymbolTable() {
+        return symbolTable;
+    }
+
+    public int getNumParams() {
+        return numParams;
+    }
+
+    public Code getBody() {
+        return body;
+    }
+
+    public void setBody(Code body) {
+        this.body = body;
+    }
+}
@@ -0,0 +1,19 @@
+package chocopy.interpreter;
+
+/** An object of a user-defined class (or of class object). */
+public class Instance {
+
+    /** Layout of my class, which also serves as my dispatch table. */
+    protected final ClassLayout layout;
+    /** Values of my attributes, in layout order. */
+    protected final Object[] attributes;
+
+    public Instance(ClassLayout layout, Object[] attributes) {
+        this.layout = layout;
+        this.attributes = attributes;
+    }
+
+    public ClassLayout getLayout() {
+        return layout;
+    }
+}
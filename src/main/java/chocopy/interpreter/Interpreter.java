@@ -0,0 +1,823 @@
+package chocopy.interpreter;
+
+import chocopy.common.analysis.AbstractNodeAnalyzer;
+import chocopy.common.analysis.SymbolTable;
+import chocopy.common.astnodes.AssignStmt;
+import chocopy.common.astnodes.BinaryExpr;
+import chocopy.common.astnodes.BooleanLiteral;
+import chocopy.common.astnodes.CallExpr;
+import chocopy.common.astnodes.ClassDef;
+import chocopy.common.astnodes.Declaration;
+import chocopy.common.astnodes.Expr;
+import chocopy.common.astnodes.ExprStmt;
+import chocopy.common.astnodes.ForStmt;
+import chocopy.common.astnodes.FuncDef;
+import chocopy.common.astnodes.GlobalDecl;
+import chocopy.common.astnodes.Identifier;
+import chocopy.common.astnodes.IfExpr;
+import chocopy.common.astnodes.IfStmt;
+import chocopy.common.astnodes.IndexExpr;
+import chocopy.common.astnodes.IntegerLiteral;
+import chocopy.common.astnodes.ListExpr;
+import chocopy.common.astnodes.Literal;
+import chocopy.common.astnodes.MemberExpr;
+import chocopy.common.astnodes.MethodCallExpr;
+import chocopy.common.astnodes.NoneLiteral;
+import chocopy.common.astnodes.Program;
+import chocopy.common.astnodes.ReturnStmt;
+import chocopy.common.astnodes.Stmt;
+import chocopy.common.astnodes.StringLiteral;
+import chocopy.common.astnodes.TypedVar;
+import chocopy.common.astnodes.UnaryExpr;
+import chocopy.common.astnodes.VarDef;
+import chocopy.common.astnodes.WhileStmt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import static chocopy.common.analysis.types.SymbolType.INT_TYPE;
+import static chocopy.common.analysis.types.SymbolType.STR_TYPE;
+
+/**
+ * A direct evaluator for typed, well-formed Program ASTs.
+ *
+ * Values are represented as follows:
+ * - int:   Integer
+ * - bool:  Boolean
+ * - str:   String
+ * - [T]:   Object[]
+ * - None:  null
+ * - other: Instance
+ *
+ * Before execution, every function and class is turned into a FunctionCode
+ * or ClassLayout, which assigns frame slots to variables and dispatch-table
+ * slots to methods. Each function body, and the top level, is then
+ * compiled once into Code: identifiers become frame or global slots,
+ * callees their descriptors, attributes and methods their slots, and
+ * literals their values, so that running the program consults neither
+ * symbol tables nor per-node caches.
+ *
+ * Output and runtime errors match those of the compiled program.
+ * `analyze` returns the compiled form of expressions and statements.
+ */
+public class Interpreter extends AbstractNodeAnalyzer<Code> {
+
+    /** Accumulated program output. */
+    private final StringBuilder output = new StringBuilder();
+
+    /** Global symbol table. */
+    private final SymbolTable<Binding> globalSymbols = new SymbolTable<>();
+    /** Values of global variables. */
+    private Object[] globals;
+
+    /** Predefined classes. */
+    private ClassLayout objectClass, intClass, boolClass, strClass;
+    /** Predefined functions. */
+    private FunctionCode printFunc, lenFunc, inputFunc, objectInit;
+    /** The user-defined functions and methods, in the order loaded. */
+    private final List<FunctionCode> functions = new ArrayList<>();
+
+    /** Descriptor of the function being compiled, or of the top level. */
+    private FunctionCode code;
+    /** Set while compiling a call that is the value of a return
+     *  statement, until the call has been reached. */
+    private boolean tailPosition;
+
+    /** Frame of the function being executed, or null at the top level. */
+    private Frame frame;
+
+    /** Set when a return statement has been executed and the
+     *  enclosing statements of the function should be skipped. */
+    private boolean returning;
+    /** The value returned by the last return statement. */
+    private Object returnValue;
+
+    /** The function called by the last return statement, if it is to be
+     *  called by invoke in place of the current function, or null. */
+    private FunctionCode tailCallee;
+    /** The parameters and locals, and the static link, of the call to
+     *  TAILCALLEE. */
+    private Object[] tailSlots;
+    private Frame tailStaticLink;
+
+    /** Canonical one-character strings, mirroring the runtime's table. */
+    private static final String[] CHARS = new String[256];
+
+    static {
+        for (int i = 0; i < CHARS.length; i++) {
+            CHARS[i] = String.valueOf((char) i).intern();
+        }
+    }
+
+    /**
+     * The location of a variable as seen from one use: the number of
+     * static links to follow from the current frame, or -1 for a
+     * global, and the slot index.
+     */
+    private static class VarAccess {
+        final int hops;
+        final int index;
+
+        VarAccess(int hops, int index) {
+            this.hops = hops;
+            this.index = index;
+        }
+    }
+
+    /** Return the output produced so far. */
+    public String getOutput() {
+        return this.output.toString();
+    }
+
+    /*-----------------------------------------------------------*/
+    /*                    PROGRAM LOADING                        */
+    /*-----------------------------------------------------------*/
+
+    /** Load and compile PROGRAM, then run it.  Returns null. */
+    @Override
+    public Code analyze(Program program) {
+        this.initClasses();
+        this.initFunctions();
+
+        // bind the global variables first, since functions declared
+        // before them may refer to them in global declarations
+        List<Object> globalValues = new ArrayList<>();
+        for (Declaration decl : program.declarations) {
+            if (decl instanceof VarDef) {
+                this.globalSymbols.put(decl.getIdentifier().name,
+                        new VarSlot(null, globalValues.size()));
+                globalValues.add(this.literalValue(((VarDef) decl).value));
+            }
+        }
+        for (Declaration decl : program.declarations) {
+            String name = decl.getIdentifier().name;
+            if (decl instanceof FuncDef) {
+                this.globalSymbols.put(name,
+                        this.loadFunction((FuncDef) decl, name, 1,
+                                this.globalSymbols));
+            } else if (decl instanceof ClassDef) {
+                this.globalSymbols.put(name, this.loadClass((ClassDef) decl));
+            }
+        }
+        this.globals = globalValues.toArray();
+
+        // every callee is bound now, so bodies can be compiled in any order
+        for (FunctionCode func : this.functions) {
+            this.code = func;
+            func.setBody(this.block(func.getFuncDef().statements));
+        }
+        this.code = new FunctionCode("<top>", 0, null, this.globalSymbols);
+        Code topLevel = this.block(program.statements);
+        this.code = null;
+
+        this.frame = null;
+        topLevel.run();
+        return null;
+    }
+
+    /** Create the layouts of the predefined classes. */
+    private void initClasses() {
+        this.objectInit = new FunctionCode("object.__init__", 1, null,
+                this.globalSymbols);
+        this.objectInit.addParam("self");
+
+        this.objectClass = new ClassLayout("object", null);
+        this.objectClass.addMethod(this.objectInit);
+        this.intClass = new ClassLayout("int", this.objectClass);
+        this.boolClass = new ClassLayout("bool", this.objectClass);
+        this.strClass = new ClassLayout("str", this.objectClass);
+
+        for (ClassLayout layout : new ClassLayout[] {
+                this.objectClass, this.intClass,
+                this.boolClass, this.strClass }) {
+            this.globalSymbols.put(layout.getClassName(), layout);
+        }
+    }
+
+    /** Create the descriptors of the predefined functions. */
+    private void initFunctions() {
+        this.printFunc = new FunctionCode("print", 1, null, this.globalSymbols);
+        this.printFunc.addParam("arg");
+        this.lenFunc = new FunctionCode("len", 1, null, this.globalSymbols);
+        this.lenFunc.addParam("arg");
+        this.inputFunc = new FunctionCode("input", 1, null, this.globalSymbols);
+
+        for (FunctionCode func : new FunctionCode[] {
+                this.printFunc, this.lenFunc, this.inputFunc }) {
+            this.globalSymbols.put(func.getFuncName(), func);
+        }
+    }
+
+    /** Return the layout of the class defined by CLASSDEF. */
+    private ClassLayout loadClass(ClassDef classDef) {
+        String className = classDef.name.name;
+        ClassLayout superLayout =
+            (ClassLayout) this.globalSymbols.get(classDef.superClass.name);
+        ClassLayout layout = new ClassLayout(className, superLayout);
+
+        for (Declaration decl : classDef.declarations) {
+            if (decl instanceof VarDef) {
+                VarDef attr = (VarDef) decl;
+                layout.addAttribute(attr.var.identifier.name,
+                        this.literalValue(attr.value));
+            } else if (decl instanceof FuncDef) {
+                FuncDef method = (FuncDef) decl;
+                String methodName = className + "." + method.name.name;
+                layout.addMethod(this.loadFunction(method, methodName, 1,
+                        this.globalSymbols));
+            }
+        }
+        return layout;
+    }
+
+    /** Return the descriptor of the function defined by FUNCDEF, with
+     *  fully-qualified name FUNCNAME at static depth DEPTH, nested in
+     *  the region of PARENTSYMBOLTABLE.  Its body is compiled later. */
+    private FunctionCode loadFunction(FuncDef funcDef, String funcName,
+                                      int depth,
+                                      SymbolTable<Binding> parentSymbolTable) {
+        FunctionCode func =
+            new FunctionCode(funcName, depth, funcDef, parentSymbolTable);
+        this.functions.add(func);
+
+        for (TypedVar param : funcDef.params) {
+            func.addParam(param.identifier.name);
+        }
+
+        for (Declaration decl : funcDef.declarations) {
+            String name = decl.getIdentifier().name;
+            if (decl instanceof VarDef) {
+                func.addLocal(name, this.literalValue(((VarDef) decl).value));
+            } else if (decl instanceof GlobalDecl) {
+                func.getSymbolTable().put(name, this.globalSymbols.get(name));
+            } else if (decl instanceof FuncDef) {
+                func.getSymbolTable().put(name,
+                        this.loadFunction((FuncDef) decl,
+                                funcName + "." + name, depth + 1,
+                                func.getSymbolTable()));
+            }
+            // nonlocal variables are found in the enclosing regions
+        }
+        return func;
+    }
+
+    /** Return the value of LITERAL. */
+    private Object literalValue(Literal literal) {
+        return literal.dispatch(this).run();
+    }
+
+    /*-----------------------------------------------------------*/
+    /*                       STATEMENTS                          */
+    /*-----------------------------------------------------------*/
+
+    /** Return code executing STATEMENTS until they complete or one of
+     *  them returns. */
+    private Code block(List<Stmt> statements) {
+        Code[] body = new Code[statements.size()];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = statements.get(i).dispatch(this);
+        }
+        return () -> {
+            for (Code stmt : body) {
+                stmt.run();
+                if (this.returning) {
+                    break;
+                }
+            }
+            return null;
+        };
+    }
+
+    @Override
+    public Code analyze(ExprStmt stmt) {
+        return stmt.expr.dispatch(this);
+    }
+
+    @Override
+    public Code analyze(ReturnStmt stmt) {
+        if (stmt.value == null) {
+            return () -> {
+                this.returnValue = null;
+                this.returning = true;
+                return null;
+            };
+        }
+        this.tailPosition = stmt.value instanceof CallExpr
+            || stmt.value instanceof MethodCallExpr;
+        Code value = stmt.value.dispatch(this);
+        return () -> {
+            this.returnValue = value.run();
+            this.returning = true;
+            return null;
+        };
+    }
+
+    @Override
+    public Code analyze(IfStmt stmt) {
+        Code condition = stmt.condition.dispatch(this);
+        Code thenBody = this.block(stmt.thenBody);
+        Code elseBody = this.block(stmt.elseBody);
+        return () -> {
+            if ((Boolean) condition.run()) {
+                thenBody.run();
+            } else {
+                elseBody.run();
+            }
+            return null;
+        };
+    }
+
+    @Override
+    public Code analyze(WhileStmt stmt) {
+        Code condition = stmt.condition.dispatch(this);
+        Code body = this.block(stmt.body);
+        return () -> {
+            while (!this.returning && (Boolean) condition.run()) {
+                body.run();
+            }
+            return null;
+        };
+    }
+
+    @Override
+    public Code analyze(ForStmt stmt) {
+        Code iterableCode = stmt.iterable.dispatch(this);
+        Consumer<Object> var = this.store(this.resolve(stmt.identifier));
+        Code body = this.block(stmt.body);
+
+        /* As in the generated code, the length is read once, but each
+         * element is read just before its iteration. */
+        return () -> {
+            Object iterable = this.checkNotNone(iterableCode.run());
+            if (iterable instanceof String) {
+                String str = (String) iterable;
+                int length = str.length();
+                for (int i = 0; i < length && !this.returning; i++) {
+                    var.accept(this.charAt(str, i));
+                    body.run();
+                }
+            } else {
+                Object[] list = (Object[]) iterable;
+                int length = list.length;
+                for (int i = 0; i < length && !this.returning; i++) {
+                    var.accept(list[i]);
+                    body.run();
+                }
+            }
+            return null;
+        };
+    }
+
+    @Override
+    public Code analyze(AssignStmt stmt) {
+        Code value = stmt.value.dispatch(this);
+        List<Consumer<Object>> targets = new ArrayList<>();
+        for (Expr target : stmt.targets) {
+            targets.add(this.assignment(target));
+        }
+
+        if (targets.size() == 1) {
+            Consumer<Object> target = targets.get(0);
+            return () -> {
+                target.accept(value.run());
+                return null;
+            };
+        }
+        return () -> {
+            Object result = value.run();
+            for (Consumer<Object> target : targets) {
+                target.accept(result);
+            }
+            return null;
+        };
+    }
+
+    /** Return code storing its argument into TARGET, which evaluates
+     *  the subexpressions of TARGET first. */
+    private Consumer<Object> assignment(Expr target) {
+        if (target instanceof Identifier) {
+            return this.store(this.resolve((Identifier) target));
+        } else if (target instanceof IndexExpr) {
+            IndexExpr indexExpr = (IndexExpr) target;
+            Code list = indexExpr.list.dispatch(this);
+            Code index = indexExpr.index.dispatch(this);
+            return value -> {
+                Object listValue = list.run();
+                Object indexValue = index.run();
+                Object[] elements = (Object[]) this.checkNotNone(listValue);
+                elements[this.checkIndex(indexValue, elements.length)] = value;
+            };
+        } else if (target instanceof MemberExpr) {
+            MemberExpr member = (MemberExpr) target;
+            Code object = member.object.dispatch(this);
+            int attr = this.resolveAttribute(member);
+            return value -> {
+                Instance obj = (Instance) this.checkNotNone(object.run());
+                obj.attributes[attr] = value;
+            };
+        }
+        throw new IllegalArgumentException("invalid assignment target");
+    }
+
+    /*-----------------------------------------------------------*/
+    /*                       EXPRESSIONS                         */
+    /*-----------------------------------------------------------*/
+
+    @Override
+    public Code analyze(BooleanLiteral literal) {
+        Boolean value = literal.value;
+        return () -> value;
+    }
+
+    @Override
+    public Code analyze(IntegerLiteral literal) {
+        Integer value = literal.value;
+        return () -> value;
+    }
+
+    @Override
+    public Code analyze(NoneLiteral literal) {
+        return () -> null;
+    }
+
+    @Override
+    public Code analyze(StringLiteral literal) {
+        // string constants are shared, as in the generated data segment
+        String value = literal.value.intern();
+        return () -> value;
+    }
+
+    @Override
+    public Code analyze(Identifier id) {
+        VarAccess access = this.resolve(id);
+        int index = access.index;
+        if (access.hops < 0) {
+            return () -> this.globals[index];
+        } else if (access.hops == 0) {
+            return () -> this.frame.slots[index];
+        }
+        int hops = access.hops;
+        return () -> this.frameAt(hops).slots[index];
+    }
+
+    @Override
+    public Code analyze(UnaryExpr expr) {
+        Code operand = expr.operand.dispatch(this);
+        switch (expr.operator) {
+            case "-":
+                return () -> -(Integer) operand.run();
+            case "not":
+                return () -> !(Boolean) operand.run();
+            default:
+                throw new IllegalArgumentException(
+                        "unknown unary operator: " + expr.operator);
+        }
+    }
+
+    @Override
+    public Code analyze(BinaryExpr expr) {
+        Code left = expr.left.dispatch(this);
+        Code right = expr.right.dispatch(this);
+
+        /* There is short-circuiting for boolean operators AND and OR. */
+        switch (expr.operator) {
+            case "and":
+                return () -> (Boolean) left.run() && (Boolean) right.run();
+            case "or":
+                return () -> (Boolean) left.run() || (Boolean) right.run();
+            case "==":
+                return () -> Objects.equals(left.run(), right.run());
+            case "!=":
+                return () -> !Objects.equals(left.run(), right.run());
+            case "is":
+                return () -> left.run() == right.run();
+            case "+":
+                if (INT_TYPE.equals(expr.left.getInferredType())) {
+                    return () -> (Integer) left.run() + (Integer) right.run();
+                } else if (STR_TYPE.equals(expr.left.getInferredType())) {
+                    return () -> (String) left.run() + (String) right.run();
+                }
+                return () -> this.concat(left.run(), right.run());
+            case "-":
+                return () -> (Integer) left.run() - (Integer) right.run();
+            case "*":
+                return () -> (Integer) left.run() * (Integer) right.run();
+            case "//":
+                return () -> {
+                    int dividend = (Integer) left.run();
+                    return Math.floorDiv(dividend, this.checkDivisor(right.run()));
+                };
+            case "%":
+                return () -> {
+                    int dividend = (Integer) left.run();
+                    return Math.floorMod(dividend, this.checkDivisor(right.run()));
+                };
+            case "<":
+                return () -> (Integer) left.run() < (Integer) right.run();
+            case "<=":
+                return () -> (Integer) left.run() <= (Integer) right.run();
+            case ">":
+                return () -> (Integer) left.run() > (Integer) right.run();
+            case ">=":
+                return () -> (Integer) left.run() >= (Integer) right.run();
+            default:
+                throw new IllegalArgumentException(
+                        "unknown operator: " + expr.operator);
+        }
+    }
+
+    /** Return the concatenation of lists LEFT and RIGHT. */
+    private Object[] concat(Object left, Object right) {
+        Object[] first = (Object[]) this.checkNotNone(left);
+        Object[] second = (Object[]) this.checkNotNone(right);
+        Object[] result = new Object[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    @Override
+    public Code analyze(IfExpr expr) {
+        Code condition = expr.condition.dispatch(this);
+        Code thenExpr = expr.thenExpr.dispatch(this);
+        Code elseExpr = expr.elseExpr.dispatch(this);
+        return () -> (Boolean) condition.run() ? thenExpr.run() : elseExpr.run();
+    }
+
+    @Override
+    public Code analyze(ListExpr expr) {
+        Code[] elements = this.compile(expr.elements);
+        return () -> {
+            Object[] list = new Object[elements.length];
+            for (int i = 0; i < list.length; i++) {
+                list[i] = elements[i].run();
+            }
+            return list;
+        };
+    }
+
+    @Override
+    public Code analyze(IndexExpr expr) {
+        Code list = expr.list.dispatch(this);
+        Code index = expr.index.dispatch(this);
+        if (STR_TYPE.equals(expr.list.getInferredType())) {
+            return () -> {
+                Object str = list.run();
+                Object i = index.run();
+                this.checkNotNone(str);
+                return this.charAt((String) str,
+                        this.checkIndex(i, ((String) str).length()));
+            };
+        }
+        return () -> {
+            Object elements = list.run();
+            Object i = index.run();
+            this.checkNotNone(elements);
+            return ((Object[]) elements)[
+                    this.checkIndex(i, ((Object[]) elements).length)];
+        };
+    }
+
+    @Override
+    public Code analyze(MemberExpr expr) {
+        Code object = expr.object.dispatch(this);
+        int attr = this.resolveAttribute(expr);
+        return () -> ((Instance) this.checkNotNone(object.run())).attributes[attr];
+    }
+
+    @Override
+    public Code analyze(CallExpr expr) {
+        boolean tailCall = this.tailPosition;
+        this.tailPosition = false;
+        Binding callee = this.code.getSymbolTable().get(expr.function.name);
+
+        if (callee instanceof ClassLayout) {
+            ClassLayout layout = (ClassLayout) callee;
+            return () -> this.newInstance(layout);
+        }
+
+        FunctionCode func = (FunctionCode) callee;
+        Code[] args = this.compile(expr.args);
+        int hops = func.getDepth() > 1
+            ? this.code.getDepth() - func.getDepth() + 1 : -1;
+        return () -> {
+            Object[] slots = func.newSlots();
+            for (int i = 0; i < args.length; i++) {
+                slots[i] = args[i].run();
+            }
+            Frame staticLink = hops < 0 ? null : this.frameAt(hops);
+            if (tailCall) {
+                return this.tailCall(func, slots, staticLink);
+            }
+            return this.invoke(func, slots, staticLink);
+        };
+    }
+
+    @Override
+    public Code analyze(MethodCallExpr expr) {
+        boolean tailCall = this.tailPosition;
+        this.tailPosition = false;
+        Code object = expr.method.object.dispatch(this);
+        String className = expr.method.object.getInferredType().className();
+        int index = ((ClassLayout) this.globalSymbols.get(className))
+            .getMethodIndex(expr.method.member.name);
+        Code[] args = this.compile(expr.args);
+
+        return () -> {
+            Object obj = this.checkNotNone(object.run());
+
+            /* Values of the predefined types only have object's methods. */
+            ClassLayout layout = obj instanceof Instance
+                ? ((Instance) obj).getLayout() : this.objectClass;
+            FunctionCode method = layout.getMethod(index);
+
+            Object[] slots = method.newSlots();
+            slots[0] = obj;
+            for (int i = 0; i < args.length; i++) {
+                slots[i + 1] = args[i].run();
+            }
+            if (tailCall) {
+                return this.tailCall(method, slots, null);
+            }
+            return this.invoke(method, slots, null);
+        };
+    }
+
+    /** Return the compiled forms of EXPRS, in order. */
+    private Code[] compile(List<Expr> exprs) {
+        Code[] result = new Code[exprs.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = exprs.get(i).dispatch(this);
+        }
+        return result;
+    }
+
+    /*-----------------------------------------------------------*/
+    /*                    CALLS AND OBJECTS                      */
+    /*-----------------------------------------------------------*/
+
+    /** Return a new object of the class with layout LAYOUT, after
+     *  running its __init__ method. */
+    private Object newInstance(ClassLayout layout) {
+        if (layout == this.intClass) {
+            return 0;
+        } else if (layout == this.boolClass) {
+            return false;
+        } else if (layout == this.strClass) {
+            return "";
+        }
+
+        Instance obj = layout.newInstance();
+        FunctionCode init = layout.getMethod(layout.getMethodIndex("__init__"));
+        Object[] slots = init.newSlots();
+        slots[0] = obj;
+        this.invoke(init, slots, null);
+        return obj;
+    }
+
+    /** Call FUNC with parameters and locals in SLOTS and static link
+     *  STATICLINK, returning its result. */
+    private Object invoke(FunctionCode func, Object[] slots, Frame staticLink) {
+        if (func.isBuiltin()) {
+            return this.invokeBuiltin(func, slots);
+        }
+
+        Frame savedFrame = this.frame;
+        this.frame = new Frame(slots, staticLink);
+
+        func.getBody().run();
+        while (this.tailCallee != null) {
+            /* A tail call replaces the current call, as in the generated
+             * code, so that deep tail recursion does not overflow. */
+            FunctionCode callee = this.tailCallee;
+            this.frame = new Frame(this.tailSlots, this.tailStaticLink);
+            this.tailCallee = null;
+            this.tailSlots = null;
+            this.tailStaticLink = null;
+            this.returning = false;
+            callee.getBody().run();
+        }
+        Object result = this.returning ? this.returnValue : null;
+        this.returning = false;
+        this.returnValue = null;
+
+        this.frame = savedFrame;
+        return result;
+    }
+
+    /** Call FUNC with parameters and locals in SLOTS and static link
+     *  STATICLINK, in place of the current function, which returns its
+     *  result.  A predefined function is simply called. */
+    private Object tailCall(FunctionCode func, Object[] slots,
+                            Frame staticLink) {
+        if (func.isBuiltin()) {
+            return this.invokeBuiltin(func, slots);
+        }
+        this.tailCallee = func;
+        this.tailSlots = slots;
+        this.tailStaticLink = staticLink;
+        return null;
+    }
+
+    /** Call the predefined function FUNC on arguments SLOTS. */
+    private Object invokeBuiltin(FunctionCode func, Object[] slots) {
+        if (func == this.printFunc) {
+            Object arg = slots[0];
+            if (arg instanceof Integer || arg instanceof String) {
+                this.output.append(arg).append('\n');
+            } else if (arg instanceof Boolean) {
+                this.output.append((Boolean) arg ? "True" : "False").append('\n');
+            } else {
+                throw ChocoPyRuntimeError.invalidArgument();
+            }
+            return null;
+        } else if (func == this.lenFunc) {
+            Object arg = slots[0];
+            if (arg instanceof String) {
+                return ((String) arg).length();
+            } else if (arg instanceof Object[]) {
+                return ((Object[]) arg).length;
+            }
+            throw ChocoPyRuntimeError.invalidArgument();
+        } else if (func == this.inputFunc) {
+            throw ChocoPyRuntimeError.unsupportedOperation();
+        }
+        // object.__init__
+        return null;
+    }
+
+    /*-----------------------------------------------------------*/
+    /*                        HELPERS                            */
+    /*-----------------------------------------------------------*/
+
+    /** Return the access path to the variable named by ID, as seen from
+     *  the function being compiled. */
+    private VarAccess resolve(Identifier id) {
+        VarSlot slot = (VarSlot) this.code.getSymbolTable().get(id.name);
+        int hops = slot.isGlobal()
+            ? -1 : this.code.getDepth() - slot.getOwner().getDepth();
+        return new VarAccess(hops, slot.getIndex());
+    }
+
+    /** Return code storing its argument in the variable at ACCESS. */
+    private Consumer<Object> store(VarAccess access) {
+        int index = access.index;
+        if (access.hops < 0) {
+            return value -> this.globals[index] = value;
+        } else if (access.hops == 0) {
+            return value -> this.frame.slots[index] = value;
+        }
+        int hops = access.hops;
+        return value -> this.frameAt(hops).slots[index] = value;
+    }
+
+    /** Return the slot of the attribute selected by EXPR. */
+    private int resolveAttribute(MemberExpr expr) {
+        String className = expr.object.getInferredType().className();
+        ClassLayout layout = (ClassLayout) this.globalSymbols.get(className);
+        return layout.getAttributeIndex(expr.member.name);
+    }
+
+    /** Return the frame HOPS static links away from the current one. */
+    private Frame frameAt(int hops) {
+        Frame result = this.frame;
+        for (int i = 0; i < hops; i++) {
+            result = result.staticLink;
+        }
+        return result;
+    }
+
+    /** Return the one-character string at position INDEX of STR. */
+    private String charAt(String str, int index) {
+        char c = str.charAt(index);
+        return c < CHARS.length ? CHARS[c] : String.valueOf(c);
+    }
+
+    /** Return VALUE, or abort if it is None. */
+    private Object checkNotNone(Object value) {
+        if (value == null) {
+            throw ChocoPyRuntimeError.operationOnNone();
+        }
+        return value;
+    }
+
+    /** Return DIVISOR, or abort if it is 0. */
+    private int checkDivisor(Object divisor) {
+        int d = (Integer) divisor;
+        if (d == 0) {
+            throw ChocoPyRuntimeError.divisionByZero();
+        }
+        return d;
+    }
+
+    /** Return INDEX, or abort unless 0 <= INDEX < LENGTH. */
+    private int checkIndex(Object index, int length) {
+        int i = (Integer) index;
+        if (i < 0 || i >= length) {
+            throw ChocoPyRuntimeError.indexOutOfBounds();
+        }
+        return i;
+    }
+}
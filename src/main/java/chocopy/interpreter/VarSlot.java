@@ -0,0 +1,30 @@
+package chocopy.interpreter;
+
+/** A descriptor for the storage of a variable. */
+public class VarSlot extends Binding {
+
+    /** The function whose frame holds the variable, or null for globals. */
+    protected final FunctionCode owner;
+    /** Index of the variable among the globals or in its owner's frame. */
+    protected final int index;
+
+    /** A variable stored at INDEX in the frames of OWNER, or among the
+     *  globals if OWNER is null. */
+    public VarSlot(FunctionCode owner, int index) {
+        this.owner = owner;
+        this.index = index;
+    }
+
+    /** Return true iff I describe a global variable. */
+    public boolean isGlobal() {
+        return this.owner == null;
+    }
+
+    public FunctionCode getOwner() {
+        return owner;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+}
@@ -1,5 +1,8 @@
 package chocopy.lexical;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
 
 import chocopy.common.astnodes.Program;
@@ -10,8 +13,38 @@ public class ChocoPyLexicalAnalysis {
     /** Return the Program AST resulting from parsing INPUT.  Turn on
      *  parser debugging iff DEBUG. */
     public static Program process(String input, boolean debug) {
-        ChocoPyLexer lexer = new ChocoPyLexer(new StringReader(input));
+        return process(new StringReader(input), debug);
+    }
+
+    /** Return the Program AST resulting from parsing the contents of
+     *  SOURCEFILE, which are read through a memory mapping of the file
+     *  rather than into a String.  Turn on parser debugging iff DEBUG. */
+    public static Program process(File sourceFile, boolean debug)
+        throws IOException {
+        try (Reader input = new MappedSourceReader(sourceFile)) {
+            return process(input, debug);
+        }
+    }
+
+    /** Return the Program AST resulting from parsing the characters read
+     *  from INPUT.  Turn on parser debugging iff DEBUG. */
+    public static Program process(Reader input, boolean debug) {
+        ChocoPyLexer lexer = new ChocoPyLexer(input);
         ChocoPyParser parser = new ChocoPyParser(lexer);
         return parser.parseProgram(debug);
     }
+
+    /** Return the Program AST resulting from parsing TOKENS, which may be
+     *  parsed again later.  Turn on parser debugging iff DEBUG. */
+    public static Program process(TokenStream tokens, boolean debug) {
+        ChocoPyParser parser = new ChocoPyParser(tokens.replay());
+        return parser.parseProgram(debug);
+    }
+
+    /** Return the tokens of SOURCEFILE, lexed in full before any parsing. */
+    public static TokenStream tokenize(File sourceFile) throws IOException {
+        try (Reader input = new MappedSourceReader(sourceFile)) {
+            return TokenStream.lex(input);
+        }
+    }
 }
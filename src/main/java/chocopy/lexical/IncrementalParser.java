@@ -0,0 +1,300 @@
+package chocopy.lexical;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import chocopy.common.analysis.NodeWalker;
+import chocopy.common.astnodes.Declaration;
+import chocopy.common.astnodes.Errors;
+import chocopy.common.astnodes.Node;
+import chocopy.common.astnodes.Program;
+import chocopy.common.astnodes.Stmt;
+import java_cup.runtime.ComplexSymbolFactory.Location;
+
+/**
+ * Parses successive versions of a program that is being edited, as in an
+ * editor, reparsing only the top-level units whose text has changed.
+ *
+ * The lexer starts every line that begins at column 0 with an empty
+ * indentation stack, and no token spans lines, so a program divides into
+ * units, each consisting of a line at column 0 together with the
+ * indented, blank and comment lines after it (and the elif and else
+ * lines of an if statement).  Each unit parses on its own to the
+ * declaration or statement it contains.  The parse of each unit is kept,
+ * and a unit whose text is unchanged in the next version is not lexed or
+ * parsed again: its Nodes are moved to its new lines in place and
+ * spliced into the new Program.  The Programs returned therefore share
+ * Nodes: those of a unit belong to the latest Program only, and a caller
+ * that annotates them must expect to see its annotations again.
+ *
+ * If a unit has a syntax error, or is a declaration following a
+ * statement, the program is reparsed from the unit before it on, since
+ * the parser may recover from the error by discarding that unit, or
+ * carry the error on to the end of the program.  The units before those
+ * are not parsed again.  In all cases, the result is the same as that of
+ * ChocoPyLexicalAnalysis.process.
+ */
+public class IncrementalParser {
+
+    /** True iff parser debugging is on. */
+    private final boolean debug;
+    /** The parses of the units of the last program, by their text, in
+     *  order of appearance. */
+    private Map<String, List<Unit>> units = new HashMap<>();
+    /** Number of units reused by the last call to parse. */
+    private int reusedCount;
+
+    /** An incremental parser, with parser debugging iff DEBUG. */
+    public IncrementalParser(boolean debug) {
+        this.debug = debug;
+    }
+
+    /** Return the Program AST resulting from parsing INPUT, a version of
+     *  the program last parsed, if any. */
+    public Program parse(String input) {
+        Map<String, List<Unit>> newUnits = new HashMap<>();
+        List<Declaration> declarations = new ArrayList<>();
+        List<Stmt> statements = new ArrayList<>();
+        this.reusedCount = 0;
+
+        /* The start of the unit before the current one: its position and
+         * line, and the numbers of declarations and statements before
+         * it. */
+        int previousPos = 0;
+        int previousLine = 1;
+        int previousDeclarations = 0;
+        int previousStatements = 0;
+        boolean broken = false;
+        int line = 1;
+        int pos = 0;
+        for (String text : split(input)) {
+            List<Unit> old = this.units.get(text);
+            Unit unit;
+            if (old == null || old.isEmpty()) {
+                unit = new Unit(ChocoPyLexicalAnalysis.process(text,
+                                                               this.debug));
+            } else {
+                unit = old.remove(0);
+                this.reusedCount += 1;
+            }
+            newUnits.computeIfAbsent(text, t -> new ArrayList<>()).add(unit);
+
+            Program part = unit.moveTo(line - 1);
+            if (!broken) {
+                if (part.hasErrors()
+                    || !statements.isEmpty() && !part.declarations.isEmpty()) {
+                    broken = true;
+                } else {
+                    previousPos = pos;
+                    previousLine = line;
+                    previousDeclarations = declarations.size();
+                    previousStatements = statements.size();
+                    declarations.addAll(part.declarations);
+                    statements.addAll(part.statements);
+                }
+            }
+            line += countLines(text);
+            pos += text.length();
+        }
+        this.units = newUnits;
+
+        if (broken) {
+            declarations.subList(previousDeclarations,
+                                 declarations.size()).clear();
+            statements.subList(previousStatements, statements.size()).clear();
+            return this.reparse(input.substring(previousPos), previousLine,
+                                declarations, statements);
+        }
+        return makeProgram(declarations, statements,
+                           new Errors(new ArrayList<>()));
+    }
+
+    /** Return the parse of a program whose text from the start of line
+     *  LINE on is REST, and whose DECLARATIONS and STATEMENTS before LINE
+     *  are valid and already parsed, as a full parse would produce it.
+     *  Rather than parsing those again, the parser is put into the state
+     *  they leave it in by a stand-in of one or two lines, placed at the
+     *  end of blank lines replacing them, so that the locations in REST
+     *  are unchanged. */
+    private Program reparse(String rest, int line,
+                            List<Declaration> declarations,
+                            List<Stmt> statements) {
+        String standIn = (declarations.isEmpty() ? "" : "x:int = 0\n")
+            + (statements.isEmpty() ? "" : "x\n");
+        int standInLines = countLines(standIn);
+        StringBuilder text = new StringBuilder(line - 1 + rest.length());
+        for (int i = standInLines + 1; i < line; i += 1) {
+            text.append('\n');
+        }
+        text.append(standIn).append(rest);
+        Program program = ChocoPyLexicalAnalysis.process(text.toString(),
+                                                         this.debug);
+        if (standIn.isEmpty()) {
+            return program;
+        }
+        /* Error recovery may have discarded the stand-in's declarations
+         * or statements, together with those after them, just as it
+         * would have discarded those it stands for. */
+        List<Declaration> restDeclarations = program.declarations;
+        if (startsBefore(restDeclarations, line)) {
+            restDeclarations = restDeclarations.subList(1, restDeclarations.size());
+        } else {
+            declarations.clear();
+        }
+        List<Stmt> restStatements = program.statements;
+        if (startsBefore(restStatements, line)) {
+            restStatements = restStatements.subList(1, restStatements.size());
+        } else {
+            statements.clear();
+        }
+        declarations.addAll(restDeclarations);
+        statements.addAll(restStatements);
+        return makeProgram(declarations, statements, program.errors);
+    }
+
+    /** Return true iff NODES is not empty and its first Node begins
+     *  before line LINE. */
+    private static boolean startsBefore(List<? extends Node> nodes, int line) {
+        return !nodes.isEmpty() && nodes.get(0).getLocation()[0] < line;
+    }
+
+    /** Return a Program of DECLARATIONS and STATEMENTS with ERRORS. */
+    private static Program makeProgram(List<Declaration> declarations,
+                                       List<Stmt> statements, Errors errors) {
+        Location left = getLeft(declarations.isEmpty() ? statements
+                                : declarations);
+        Location right = getRight(statements.isEmpty() ? declarations
+                                  : statements);
+        return new Program(left, right, declarations, statements, errors);
+    }
+
+    /** Return the number of top-level units whose parses were reused by
+     *  the last call to parse. */
+    public int getReusedCount() {
+        return this.reusedCount;
+    }
+
+    /** Return the texts of the top-level units of INPUT, in order. */
+    private static List<String> split(String input) {
+        List<String> result = new ArrayList<>();
+        int start = 0;
+        for (int pos = 0; pos < input.length(); pos = nextLine(input, pos)) {
+            if (pos > start && startsUnit(input, pos)) {
+                result.add(input.substring(start, pos));
+                start = pos;
+            }
+        }
+        if (start < input.length()) {
+            result.add(input.substring(start));
+        }
+        return result;
+    }
+
+    /** Return true iff the line of INPUT starting at POS begins a new
+     *  top-level unit. */
+    private static boolean startsUnit(String input, int pos) {
+        char c = input.charAt(pos);
+        if (c == ' ' || c == '\t' || c == '#' || c == '\r' || c == '\n') {
+            return false;
+        }
+        return !startsWithKeyword(input, pos, "elif")
+            && !startsWithKeyword(input, pos, "else");
+    }
+
+    /** Return true iff the text of INPUT at POS is the keyword KEYWORD. */
+    private static boolean startsWithKeyword(String input, int pos,
+                                             String keyword) {
+        int end = pos + keyword.length();
+        if (!input.startsWith(keyword, pos)) {
+            return false;
+        }
+        return end == input.length()
+            || !Character.isLetterOrDigit(input.charAt(end))
+               && input.charAt(end) != '_';
+    }
+
+    /** Return the position of the line of INPUT after the one containing
+     *  POS, or the length of INPUT if there is none. */
+    private static int nextLine(String input, int pos) {
+        while (pos < input.length()) {
+            char c = input.charAt(pos);
+            pos += 1;
+            if (c == '\n') {
+                break;
+            } else if (c == '\r') {
+                if (pos < input.length() && input.charAt(pos) == '\n') {
+                    pos += 1;
+                }
+                break;
+            }
+        }
+        return pos;
+    }
+
+    /** Return the number of lines of TEXT, as counted by the lexer. */
+    private static int countLines(String text) {
+        int lines = 0;
+        for (int pos = 0; pos < text.length(); pos = nextLine(text, pos)) {
+            lines += 1;
+        }
+        return lines;
+    }
+
+    /** Return the leftmost location in NODES, or null if NODES is
+     *  empty. */
+    private static Location getLeft(List<? extends Node> nodes) {
+        if (nodes.isEmpty()) {
+            return null;
+        }
+        int[] location = nodes.get(0).getLocation();
+        return new Location(location[0], location[1]);
+    }
+
+    /** Return the rightmost location in NODES, or null if NODES is
+     *  empty. */
+    private static Location getRight(List<? extends Node> nodes) {
+        if (nodes.isEmpty()) {
+            return null;
+        }
+        int[] location = nodes.get(nodes.size() - 1).getLocation();
+        return new Location(location[2], location[3]);
+    }
+
+    /** The parse of one top-level unit, as if it were a whole program. */
+    private static class Unit {
+        /** The parse. */
+        private final Program program;
+        /** Number of lines by which PROGRAM has been moved down. */
+        private int delta;
+
+        /** A unit whose parse is PROGRAM. */
+        Unit(Program program) {
+            this.program = program;
+        }
+
+        /** Return the parse, moved down by DELTA lines from where the
+         *  parser put it. */
+        Program moveTo(int delta) {
+            int shift = delta - this.delta;
+            if (shift != 0) {
+                this.program.dispatch(new NodeWalker() {
+                    @Override
+                    protected void enter(Node node) {
+                        int[] location = node.getLocation();
+                        if (location[0] != 0) {
+                            location[0] += shift;
+                        }
+                        if (location[2] != 0) {
+                            location[2] += shift;
+                        }
+                        node.setLocation(location);
+                    }
+                });
+                this.delta = delta;
+            }
+            return this.program;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package chocopy.lexical;
+
+/** A table of canonical strings, used by the lexer to return the same
+ *  String instance for every occurrence of an identifier or literal.
+ *
+ *  Lookups take the characters of the string from a range of a char
+ *  array or from a CharSequence, so that no String is allocated when the
+ *  string is already in the table.  The table uses open addressing with
+ *  linear probing, and is not thread-safe. */
+public class InternTable {
+
+    /** Initial number of buckets; a power of 2. */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /** The canonical strings, or null for empty buckets.  Its length is
+     *  a power of 2. */
+    private String[] strings = new String[INITIAL_CAPACITY];
+    /** The hash codes of the strings in STRINGS. */
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    /** Number of strings in the table. */
+    private int size;
+
+    /** Returns the canonical string consisting of the LENGTH characters
+     *  of BUF starting at START. */
+    public String intern(char[] buf, int start, int length) {
+        int hash = 0;
+        for (int i = start; i < start + length; i += 1) {
+            hash = 31 * hash + buf[i];
+        }
+        int mask = this.strings.length - 1;
+        for (int b = hash & mask; ; b = (b + 1) & mask) {
+            String s = this.strings[b];
+            if (s == null) {
+                return this.add(b, new String(buf, start, length), hash);
+            }
+            if (this.hashes[b] == hash && s.length() == length
+                && this.matches(s, buf, start)) {
+                return s;
+            }
+        }
+    }
+
+    /** Returns the canonical string with the same characters as CHARS. */
+    public String intern(CharSequence chars) {
+        int length = chars.length();
+        int hash = 0;
+        for (int i = 0; i < length; i += 1) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        int mask = this.strings.length - 1;
+        for (int b = hash & mask; ; b = (b + 1) & mask) {
+            String s = this.strings[b];
+            if (s == null) {
+                return this.add(b, chars.toString(), hash);
+            }
+            if (this.hashes[b] == hash && s.length() == length
+                && s.contentEquals(chars)) {
+                return s;
+            }
+        }
+    }
+
+    /** Returns the number of distinct strings interned so far. */
+    public int size() {
+        return this.size;
+    }
+
+    /** Returns true iff S consists of the characters of BUF starting at
+     *  START. */
+    private boolean matches(String s, char[] buf, int start) {
+        for (int i = 0; i < s.length(); i += 1) {
+            if (s.charAt(i) != buf[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Stores S, whose hash code is HASH, in the empty bucket B, growing
+     *  the table if it becomes half full, and returns S. */
+    private String add(int b, String s, int hash) {
+        this.strings[b] = s;
+        this.hashes[b] = hash;
+        this.size += 1;
+        if (2 * this.size > this.strings.length) {
+            this.rehash();
+        }
+        return s;
+    }
+
+    /** Doubles the number of buckets. */
+    private void rehash() {
+        String[] oldStrings = this.strings;
+        int[] oldHashes = this.hashes;
+        this.strings = new String[2 * oldStrings.length];
+        this.hashes = new int[2 * oldStrings.length];
+        int mask = this.strings.length - 1;
+        for (int i = 0; i < oldStrings.length; i += 1) {
+            if (oldStrings[i] != null) {
+                int b = oldHashes[i] & mask;
+                while (this.strings[b] != null) {
+                    b = (b + 1) & mask;
+                }
+                this.strings[b] = oldStrings[i];
+                this.hashes[b] = oldHashes[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package chocopy.lexical;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/** A Reader of a source file that maps the file into memory and decodes
+ *  it directly into the buffers of its caller (normally the lexer), so
+ *  that the contents of the file are never held in a String.
+ *
+ *  The file is decoded as UTF-8, whatever the platform's default
+ *  charset, and, as when reading the file into a String, a newline is
+ *  added at the end of a non-empty file that does not end with a line
+ *  break, so that its last line is terminated. */
+public class MappedSourceReader extends Reader {
+
+    /** The undecoded remainder of the file. */
+    private final ByteBuffer bytes;
+    /** Decoder from the file's charset. */
+    private final CharsetDecoder decoder;
+    /** True once all bytes have been passed to the decoder. */
+    private boolean flushing;
+    /** True once the decoder has produced all its characters. */
+    private boolean decoded;
+    /** The last character decoded, or -1 if there has been none. */
+    private int last = -1;
+    /** True if a final newline remains to be read. */
+    private boolean newlinePending;
+    /** Characters decoded but not yet read, when a read asks for fewer
+     *  characters than the decoder must produce at once (a surrogate
+     *  pair). */
+    private final CharBuffer spill = (CharBuffer) CharBuffer.allocate(2).flip();
+
+    /** A reader of the contents of FILE. */
+    public MappedSourceReader(File file) throws IOException {
+        try (FileChannel channel = new FileInputStream(file).getChannel()) {
+            this.bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                                     channel.size());
+        }
+        this.decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        this.drainSpill(out);
+        if (!this.decoded && out.hasRemaining()) {
+            this.decode(out);
+            if (out.position() == off && !this.decoded) {
+                this.spill.clear();
+                this.decode(this.spill);
+                this.spill.flip();
+                this.drainSpill(out);
+            }
+        }
+        if (this.decoded && this.newlinePending && out.hasRemaining()
+            && !this.spill.hasRemaining()) {
+            out.put('\n');
+            this.newlinePending = false;
+        }
+        int count = out.position() - off;
+        return count == 0 ? -1 : count;
+    }
+
+    /** Moves as many spilled characters as fit into OUT. */
+    private void drainSpill(CharBuffer out) {
+        while (this.spill.hasRemaining() && out.hasRemaining()) {
+            out.put(this.spill.get());
+        }
+    }
+
+    /** Decodes as many characters as fit into OUT. */
+    private void decode(CharBuffer out) {
+        int start = out.position();
+        if (!this.flushing
+            && this.decoder.decode(this.bytes, out, true).isUnderflow()) {
+            this.flushing = true;
+        }
+        if (this.flushing) {
+            CoderResult result = this.decoder.flush(out);
+            if (result.isUnderflow()) {
+                this.decoded = true;
+            }
+        }
+        if (out.position() > start) {
+            this.last = out.get(out.position() - 1);
+        }
+        if (this.decoded) {
+            this.newlinePending =
+                this.last != -1 && this.last != '\n' && this.last != '\r';
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,15 @@
+package chocopy.lexical;
+
+import java_cup.runtime.Scanner;
+import java_cup.runtime.SymbolFactory;
+
+/** A source of tokens for the parser: either the lexer itself, or a
+ *  replay of a TokenStream produced by it. */
+public interface TokenSource extends Scanner {
+
+    /** Return the factory that produced the tokens. */
+    SymbolFactory getSymbolFactory();
+
+    /** Return the source text of the last token returned. */
+    String yytext();
+}
@@ -0,0 +1,127 @@
+package chocopy.lexical;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import java_cup.runtime.ComplexSymbolFactory;
+import java_cup.runtime.ComplexSymbolFactory.Location;
+import java_cup.runtime.Symbol;
+import java_cup.runtime.SymbolFactory;
+
+/** The complete sequence of tokens of a source file, as produced by the
+ *  lexer, held in arrays rather than as Symbols.
+ *
+ *  Each token takes TOKEN_SIZE consecutive ints, giving its kind and the
+ *  line and column of its first and last characters, together with its
+ *  semantic value and source text, which the lexer has interned.  The
+ *  lexer adds the tokens directly, without creating Symbols for them.  A
+ *  stream is immutable once lexed, and may be parsed any number of times
+ *  through replay(), which creates the parser's Symbols one at a time as
+ *  it asks for them: the parser keeps the Symbols it shifts, so each
+ *  needs one of its own. */
+public class TokenStream {
+
+    /** Offsets of the fields of a token. */
+    private static final int
+        KIND = 0, LEFT_LINE = 1, LEFT_COLUMN = 2,
+        RIGHT_LINE = 3, RIGHT_COLUMN = 4;
+    /** Number of ints per token. */
+    private static final int TOKEN_SIZE = 5;
+
+    /** The tokens, TOKEN_SIZE ints each. */
+    private int[] tokens = new int[TOKEN_SIZE * 1024];
+    /** The semantic values of the tokens. */
+    private Object[] values = new Object[1024];
+    /** The source texts of the tokens. */
+    private String[] texts = new String[1024];
+    /** Number of tokens, the last of which is EOF. */
+    private int size;
+
+    /** Return the stream of tokens of INPUT, which ends with EOF. */
+    public static TokenStream lex(Reader input) throws IOException {
+        TokenStream stream = new TokenStream();
+        new ChocoPyLexer(input).lexInto(stream);
+        stream.tokens = Arrays.copyOf(stream.tokens, TOKEN_SIZE * stream.size);
+        stream.values = Arrays.copyOf(stream.values, stream.size);
+        stream.texts = Arrays.copyOf(stream.texts, stream.size);
+        return stream;
+    }
+
+    /** Return the number of tokens, including the final EOF. */
+    public int size() {
+        return this.size;
+    }
+
+    /** Return a new source of the tokens of this stream, from the first. */
+    public TokenSource replay() {
+        return new Replay();
+    }
+
+    /** Append a token of kind KIND, whose first character is at line
+     *  LEFTLINE and column LEFTCOLUMN, whose last character is at line
+     *  RIGHTLINE and column RIGHTCOLUMN, and whose value is VALUE.  Its
+     *  text is given by setText. */
+    void add(int kind, int leftLine, int leftColumn,
+             int rightLine, int rightColumn, Object value) {
+        if (this.size == this.values.length) {
+            this.tokens = Arrays.copyOf(this.tokens, 2 * this.tokens.length);
+            this.values = Arrays.copyOf(this.values, 2 * this.size);
+            this.texts = Arrays.copyOf(this.texts, 2 * this.size);
+        }
+        int t = TOKEN_SIZE * this.size;
+        this.tokens[t + KIND] = kind;
+        this.tokens[t + LEFT_LINE] = leftLine;
+        this.tokens[t + LEFT_COLUMN] = leftColumn;
+        this.tokens[t + RIGHT_LINE] = rightLine;
+        this.tokens[t + RIGHT_COLUMN] = rightColumn;
+        this.values[this.size] = value;
+        this.size += 1;
+    }
+
+    /** Set the text of the last token added to TEXT. */
+    void setText(String text) {
+        this.texts[this.size - 1] = text;
+    }
+
+    /** A pass over the tokens of the enclosing stream. */
+    private class Replay implements TokenSource {
+        /** Producer of the Symbols returned. */
+        private final ComplexSymbolFactory symbolFactory =
+            new ComplexSymbolFactory();
+        /** Index of the next token to return.  Once the EOF token has been
+         *  returned, it is returned again by every call. */
+        private int next;
+        /** Index of the last token returned, or -1 if none has been. */
+        private int last = -1;
+
+        @Override
+        public Symbol next_token() {
+            this.last = this.next;
+            if (this.next < TokenStream.this.size - 1) {
+                this.next += 1;
+            }
+            int t = TOKEN_SIZE * this.last;
+            int[] tokens = TokenStream.this.tokens;
+            int kind = tokens[t + KIND];
+            return this.symbolFactory.newSymbol(
+                ChocoPyTokens.terminalNames[kind], kind,
+                new Location(tokens[t + LEFT_LINE], tokens[t + LEFT_COLUMN]),
+                new Location(tokens[t + RIGHT_LINE], tokens[t + RIGHT_COLUMN]),
+                TokenStream.this.values[this.last]);
+        }
+
+        @Override
+        public SymbolFactory getSymbolFactory() {
+            return this.symbolFactory;
+        }
+
+        @Override
+        public String yytext() {
+            if (this.last == -1) {
+                return "";
+            }
+            return TokenStream.this.texts[this.last];
+        }
+    }
+}
@@ -15,6 +15,27 @@ public class ChocoPySemanticAnalysis {
      * tree.
      */
     public static Program process(Program program, boolean debug) {
+        return process(program, debug, 1);
+    }
+
+    /**
+     * Perform semantic analysis on PROGRAM as process(PROGRAM, DEBUG), but
+     * type-check function and method bodies on PARALLELISM threads when
+     * PARALLELISM is greater than 1.  The result is the same.
+     */
+    public static Program process(Program program, boolean debug,
+                                  int parallelism) {
+        return process(program, debug, parallelism, false);
+    }
+
+    /**
+     * Perform semantic analysis on PROGRAM as process(PROGRAM, DEBUG,
+     * PARALLELISM).  Iff FUSED, the statement checks are done by the type
+     * checker in the same traversal, instead of by a separate pass over
+     * all statements.  The result is the same.
+     */
+    public static Program process(Program program, boolean debug,
+                                  int parallelism, boolean fused) {
         if (program.hasErrors()) {
             return program;
         }
@@ -27,17 +48,20 @@ public class ChocoPySemanticAnalysis {
 
         SymbolTable<DeclarationNode> globalSym =
                 declarationAnalyzer.getGlobals();
+        inheritanceTable.freeze();
 
         if (!program.hasErrors()) {
             // Analyze semantics on statements
-            StatementAnalyzer statementAnalyzer =
-                    new StatementAnalyzer(program.errors, globalSym);
-            program.dispatch(statementAnalyzer);
+            if (!fused) {
+                StatementAnalyzer statementAnalyzer =
+                        new StatementAnalyzer(program.errors, globalSym);
+                program.dispatch(statementAnalyzer);
+            }
 
             // Type checking
-            TypeChecker typeChecker =
-                    new TypeChecker(globalSym, program.errors, inheritanceTable);
-            program.dispatch(typeChecker);
+            new ParallelTypeChecker(globalSym, inheritanceTable,
+                                    parallelism, fused)
+                    .check(program, program.errors);
         }
 
         return program;
@@ -32,7 +32,7 @@ public class ClassDefType extends SymbolType {
      */
     public ClassDefType(String className, String superclassName) {
         this.className = className;
-        this.classValueType = new ClassValueType(className);
+        this.classValueType = ClassValueType.of(className);
         this.superclassName = superclassName;
     }
 
@@ -41,7 +41,7 @@ public class ClassDefType extends SymbolType {
      */
     public ClassDefType(ClassType classTypeAnnotation) {
         this.className = classTypeAnnotation.className;
-        this.classValueType = new ClassValueType(this.className);
+        this.classValueType = ClassValueType.of(this.className);
     }
 
     @Override
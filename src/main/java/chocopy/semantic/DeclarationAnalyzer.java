@@ -109,7 +109,7 @@ public class DeclarationAnalyzer extends AbstractNodeAnalyzer<DeclarationNode> {
             // The predefined classes object, int, bool, and str each define
             // an __init__ method.
             List<ValueType> parameters = new ArrayList<>();
-            parameters.add(new ClassValueType(className));
+            parameters.add(ClassValueType.of(className));
             FuncType initFuncType = new FuncType(parameters, NONE_TYPE);
 
             SymbolTable<DeclarationNode> classSym = new SymbolTable<>(this.sym);
@@ -130,6 +130,32 @@ public class DeclarationAnalyzer extends AbstractNodeAnalyzer<DeclarationNode> {
         return this.globals;
     }
 
+    /**
+     * Re-analyze DECL, a top-level function or class definition replacing
+     * one of the same signature in the program this analyzer has already
+     * analyzed, and rebind its name in the global declarative region.
+     */
+    void reanalyzeDeclaration(Declaration decl) {
+        this.sym = this.globals;
+
+        try {
+            DeclarationNode declType = decl.dispatch(this);
+            this.sym = declType.sym;
+
+            if (decl instanceof FuncDef) {
+                this.analyzeDeclarations(((FuncDef) decl).declarations);
+            } else if (decl instanceof ClassDef) {
+                ClassDefType classDefType = (ClassDefType) declType.getType();
+                this.analyzeClassDeclarations((ClassDef) decl,
+                                              classDefType.superclassName());
+            }
+
+            this.globals.put(decl.getIdentifier().name, declType);
+        } finally {
+            this.sym = this.globals;
+        }
+    }
+
     @Override
     public DeclarationNode analyze(Program program) {
 
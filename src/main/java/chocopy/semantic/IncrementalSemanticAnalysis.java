@@ -0,0 +1,399 @@
+package chocopy.semantic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import chocopy.common.analysis.NodeWalker;
+import chocopy.common.analysis.SymbolTable;
+import chocopy.common.astnodes.BinaryExpr;
+import chocopy.common.astnodes.BooleanLiteral;
+import chocopy.common.astnodes.ClassDef;
+import chocopy.common.astnodes.ClassType;
+import chocopy.common.astnodes.CompilerError;
+import chocopy.common.astnodes.Declaration;
+import chocopy.common.astnodes.Errors;
+import chocopy.common.astnodes.FuncDef;
+import chocopy.common.astnodes.Identifier;
+import chocopy.common.astnodes.IntegerLiteral;
+import chocopy.common.astnodes.Node;
+import chocopy.common.astnodes.Program;
+import chocopy.common.astnodes.Stmt;
+import chocopy.common.astnodes.StringLiteral;
+import chocopy.common.astnodes.TypedVar;
+import chocopy.common.astnodes.UnaryExpr;
+import chocopy.common.astnodes.VarDef;
+
+/**
+ * Semantic analysis for a program that is edited and re-analyzed
+ * repeatedly, as in an editor.
+ *
+ * Each top-level declaration of a program is a unit of analysis, and the
+ * top-level statements form one more.  The interface of a program is
+ * the list of its global variables, the signatures of its global functions,
+ * and the attributes and method signatures of its classes.  Statements
+ * in a unit depend only on the interface of the program and on the unit
+ * itself, so when an edited program has the same interface as the last
+ * one analyzed, a function or class definition whose text is unchanged
+ * (up to its starting line) is not checked again: its old subtree, with
+ * its inferred types, symbol tables and error messages, is moved into the
+ * new program in place of the new one.  Only the changed definitions are
+ * re-declared and checked.  Global variable definitions and top-level
+ * statements are cheap and are always checked.
+ *
+ * Any change to the interface, and any previous analysis with declaration
+ * errors, causes a full analysis.  In all cases, the resulting errors
+ * and annotations are the same as those of ChocoPySemanticAnalysis.
+ */
+public class IncrementalSemanticAnalysis {
+
+    /** Analyzer holding the symbol tables of the last analyzed program,
+     *  or null if there is none to reuse. */
+    private DeclarationAnalyzer declarationAnalyzer;
+    /** The receiver of the errors found by the declaration analyzer. */
+    private Errors declarationErrors;
+    /** The inheritance relationship of the last analyzed program. */
+    private InheritanceTable inheritanceTable;
+    /** The interface of the last analyzed program. */
+    private String interfaceKey;
+    /** The top-level declarations of the last analyzed program. */
+    private List<Declaration> units;
+    /** The fingerprints of the units of the last analyzed program. */
+    private List<String> fingerprints;
+    /** The errors reported by the StatementAnalyzer on each unit. */
+    private List<List<CompilerError>> statementErrors;
+    /** The errors reported by the TypeChecker on each unit. */
+    private List<List<CompilerError>> typeErrors;
+    /** The number of units reused by the last call to process. */
+    private int reusedCount;
+
+    /**
+     * Perform semantic analysis on PROGRAM, adding error messages and
+     * type annotations, and reusing the analysis of the previously
+     * processed program where possible. Provide debugging output iff DEBUG.
+     * Returns modified tree.
+     *
+     * Subtrees of the previously processed program may be moved into
+     * PROGRAM, so that program should not be used afterwards.
+     */
+    public Program process(Program program, boolean debug) {
+        this.reusedCount = 0;
+
+        if (program.hasErrors()) {
+            // keep the last good analysis around until the syntax is fixed
+            return program;
+        }
+
+        String newInterfaceKey = interfaceKey(program);
+        List<String> newFingerprints = new ArrayList<>();
+        for (Declaration decl : program.declarations) {
+            newFingerprints.add(fingerprint(decl));
+        }
+
+        boolean reuse = this.declarationAnalyzer != null
+                        && newInterfaceKey.equals(this.interfaceKey)
+                        && this.redeclare(program, newFingerprints);
+
+        if (!reuse && !this.declare(program)) {
+            this.declarationAnalyzer = null;
+            return program;
+        }
+
+        this.interfaceKey = newInterfaceKey;
+        this.check(program, newFingerprints, reuse);
+
+        if (debug) {
+            System.err.printf("Reused %d of %d top-level declarations.%n",
+                              this.reusedCount, program.declarations.size());
+        }
+
+        return program;
+    }
+
+    /** Return the number of top-level declarations reused by the last
+     *  call to process. */
+    public int getReusedCount() {
+        return this.reusedCount;
+    }
+
+    /**
+     * Analyze the declarations of PROGRAM from scratch.  Returns true iff
+     * there are no declaration errors.
+     */
+    private boolean declare(Program program) {
+        this.inheritanceTable = new InheritanceTable();
+        this.declarationErrors = new Errors(new ArrayList<>());
+        this.declarationAnalyzer =
+                new DeclarationAnalyzer(this.declarationErrors,
+                                        this.inheritanceTable);
+        program.dispatch(this.declarationAnalyzer);
+        this.inheritanceTable.freeze();
+        program.errors.errors.addAll(this.declarationErrors.errors);
+        return !program.hasErrors();
+    }
+
+    /**
+     * Re-declare the function and class definitions of PROGRAM whose
+     * fingerprints differ from those in NEWFINGERPRINTS, using the symbol
+     * tables of the last analyzed program.  Returns false if this produced
+     * errors, in which case the program must be analyzed from scratch.
+     * The error marks that this left on the nodes of PROGRAM are then
+     * cleared, so that they do not stand in for those of the full analysis.
+     */
+    private boolean redeclare(Program program, List<String> newFingerprints) {
+        this.declarationErrors.errors.clear();
+        List<Declaration> redeclared = new ArrayList<>();
+        for (int i = 0; i < program.declarations.size(); i++) {
+            Declaration decl = program.declarations.get(i);
+            if (!(decl instanceof VarDef)
+                && !newFingerprints.get(i).equals(this.fingerprints.get(i))) {
+                redeclared.add(decl);
+                this.declarationAnalyzer.reanalyzeDeclaration(decl);
+            }
+        }
+        if (!this.declarationErrors.hasErrors()) {
+            return true;
+        }
+        for (Declaration decl : redeclared) {
+            clearErrorMarks(decl);
+        }
+        return false;
+    }
+
+    /**
+     * Check the statements of each unit of PROGRAM, whose units have
+     * fingerprints NEWFINGERPRINTS.  Iff REUSE, unchanged units are taken
+     * from the last analyzed program instead.  Errors are added to PROGRAM
+     * in the order ChocoPySemanticAnalysis would report them.
+     */
+    private void check(Program program, List<String> newFingerprints,
+                       boolean reuse) {
+        SymbolTable<DeclarationNode> globals =
+                this.declarationAnalyzer.getGlobals();
+        List<List<CompilerError>> newStatementErrors = new ArrayList<>();
+        List<List<CompilerError>> newTypeErrors = new ArrayList<>();
+
+        for (int i = 0; i < program.declarations.size(); i++) {
+            Declaration decl = program.declarations.get(i);
+
+            if (reuse && !(decl instanceof VarDef)
+                && newFingerprints.get(i).equals(this.fingerprints.get(i))) {
+                Declaration old = this.units.get(i);
+                int delta = decl.getLocation()[0] - old.getLocation()[0];
+                shiftLines(old, delta);
+                program.declarations.set(i, old);
+                newStatementErrors.add(
+                        shiftLines(this.statementErrors.get(i), delta));
+                newTypeErrors.add(shiftLines(this.typeErrors.get(i), delta));
+                this.reusedCount += 1;
+                continue;
+            }
+
+            Errors unitErrors = new Errors(new ArrayList<>());
+            StatementAnalyzer statementAnalyzer =
+                    new StatementAnalyzer(unitErrors, globals);
+            List<Declaration> unit = new ArrayList<>();
+            unit.add(decl);
+            statementAnalyzer.analyzeDeclarations(unit);
+            newStatementErrors.add(unitErrors.errors);
+
+            unitErrors = new Errors(new ArrayList<>());
+            decl.dispatch(new TypeChecker(globals, unitErrors,
+                                          this.inheritanceTable));
+            newTypeErrors.add(unitErrors.errors);
+        }
+
+        for (List<CompilerError> errs : newStatementErrors) {
+            program.errors.errors.addAll(errs);
+        }
+        StatementAnalyzer statementAnalyzer =
+                new StatementAnalyzer(program.errors, globals);
+        for (Stmt stmt : program.statements) {
+            stmt.dispatch(statementAnalyzer);
+        }
+
+        for (List<CompilerError> errs : newTypeErrors) {
+            program.errors.errors.addAll(errs);
+        }
+        TypeChecker typeChecker =
+                new TypeChecker(globals, program.errors, this.inheritanceTable);
+        for (Stmt stmt : program.statements) {
+            stmt.dispatch(typeChecker);
+        }
+
+        this.units = new ArrayList<>(program.declarations);
+        this.fingerprints = newFingerprints;
+        this.statementErrors = newStatementErrors;
+        this.typeErrors = newTypeErrors;
+    }
+
+    /** Remove the error marks from every node of TREE. */
+    private static void clearErrorMarks(Node tree) {
+        tree.dispatch(new NodeWalker() {
+            @Override
+            protected void enter(Node node) {
+                node.setErrorMsg(null);
+            }
+        });
+    }
+
+    /** Move every node of TREE down by DELTA lines. */
+    private static void shiftLines(Node tree, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        tree.dispatch(new NodeWalker() {
+            @Override
+            protected void enter(Node node) {
+                shiftNodeLines(node, delta);
+            }
+        });
+    }
+
+    /** Return copies of ERRORS moved down by DELTA lines. */
+    private static List<CompilerError> shiftLines(List<CompilerError> errors,
+                                                  int delta) {
+        List<CompilerError> result = new ArrayList<>();
+        for (CompilerError err : errors) {
+            CompilerError copy =
+                    new CompilerError(null, null, err.message, err.isSyntax());
+            copy.setLocation(err.getLocation());
+            shiftNodeLines(copy, delta);
+            result.add(copy);
+        }
+        return result;
+    }
+
+    /** Move the lines of the location of NODE down by DELTA, leaving
+     *  unknown (zero) lines alone. */
+    private static void shiftNodeLines(Node node, int delta) {
+        int[] location = node.getLocation();
+        if (location[0] != 0) {
+            location[0] += delta;
+        }
+        if (location[2] != 0) {
+            location[2] += delta;
+        }
+        node.setLocation(location);
+    }
+
+    /**
+     * Return a string that is equal for two top-level declarations iff
+     * they are the same but for their starting lines.
+     */
+    private static String fingerprint(Declaration decl) {
+        Fingerprinter fingerprinter =
+                new Fingerprinter(decl.getLocation()[0], true);
+        decl.dispatch(fingerprinter);
+        return fingerprinter.toString();
+    }
+
+    /** Return a string that is equal for two programs iff they have the
+     *  same interface. */
+    private static String interfaceKey(Program program) {
+        Fingerprinter fingerprinter = new Fingerprinter(0, false);
+        for (Declaration decl : program.declarations) {
+            if (decl instanceof VarDef) {
+                decl.dispatch(fingerprinter);
+            } else if (decl instanceof FuncDef) {
+                signature((FuncDef) decl, fingerprinter);
+            } else if (decl instanceof ClassDef) {
+                ClassDef classDef = (ClassDef) decl;
+                fingerprinter.enter(classDef);
+                classDef.name.dispatch(fingerprinter);
+                classDef.superClass.dispatch(fingerprinter);
+                for (Declaration member : classDef.declarations) {
+                    if (member instanceof FuncDef) {
+                        signature((FuncDef) member, fingerprinter);
+                    } else {
+                        member.dispatch(fingerprinter);
+                    }
+                }
+                fingerprinter.leave(classDef);
+            }
+        }
+        return fingerprinter.toString();
+    }
+
+    /** Add the signature of FUNCDEF to FINGERPRINTER. */
+    private static void signature(FuncDef funcDef, Fingerprinter fingerprinter) {
+        fingerprinter.enter(funcDef);
+        funcDef.name.dispatch(fingerprinter);
+        for (TypedVar param : funcDef.params) {
+            param.dispatch(fingerprinter);
+        }
+        funcDef.returnType.dispatch(fingerprinter);
+        fingerprinter.leave(funcDef);
+    }
+
+    /**
+     * Serializes the trees it walks: their node kinds, names, literal
+     * values and operators, and optionally their locations, with lines
+     * taken relative to a base line.
+     */
+    private static class Fingerprinter extends NodeWalker {
+
+        /** The serialized form of all trees walked so far. */
+        private final StringBuilder text = new StringBuilder();
+        /** The line that locations are relative to. */
+        private final int baseLine;
+        /** True iff locations are part of the serialized form. */
+        private final boolean withLocations;
+
+        /** A Fingerprinter recording locations relative to BASELINE iff
+         *  WITHLOCATIONS. */
+        Fingerprinter(int baseLine, boolean withLocations) {
+            this.baseLine = baseLine;
+            this.withLocations = withLocations;
+        }
+
+        @Override
+        protected void enter(Node node) {
+            this.text.append('(').append(node.getKind());
+            if (this.withLocations) {
+                int[] location = node.getLocation();
+                this.text.append(' ').append(this.relativeLine(location[0]))
+                         .append(':').append(location[1])
+                         .append('-').append(this.relativeLine(location[2]))
+                         .append(':').append(location[3]);
+            }
+
+            String data = null;
+            if (node instanceof Identifier) {
+                data = ((Identifier) node).name;
+            } else if (node instanceof ClassType) {
+                data = ((ClassType) node).className;
+            } else if (node instanceof StringLiteral) {
+                data = ((StringLiteral) node).value;
+            } else if (node instanceof IntegerLiteral) {
+                data = Integer.toString(((IntegerLiteral) node).value);
+            } else if (node instanceof BooleanLiteral) {
+                data = Boolean.toString(((BooleanLiteral) node).value);
+            } else if (node instanceof BinaryExpr) {
+                data = ((BinaryExpr) node).operator;
+            } else if (node instanceof UnaryExpr) {
+                data = ((UnaryExpr) node).operator;
+            }
+            if (data != null) {
+                // length-prefixed, so that no string value can forge structure
+                this.text.append(' ').append(data.length())
+                         .append('#').append(data);
+            }
+        }
+
+        @Override
+        protected void leave(Node node) {
+            this.text.append(')');
+        }
+
+        /** Return LINE relative to the base line, leaving unknown (zero)
+         *  lines alone, as shiftLines does. */
+        private int relativeLine(int line) {
+            return line == 0 ? 0 : line - this.baseLine;
+        }
+
+        @Override
+        public String toString() {
+            return this.text.toString();
+        }
+    }
+}
@@ -28,6 +28,25 @@ public class InheritanceTable {
     /* a mapping between a ValueType to its parent ValueType */
     private HashMap<ValueType, ValueType> map;
 
+    /* dense ids of the classes in the hierarchy, assigned by `freeze`,
+     * or null if the table is not frozen */
+    private HashMap<ValueType, Integer> ids;
+
+    /* the classes of the frozen hierarchy, indexed by id */
+    private ValueType[] types;
+
+    /* DFS entry and exit times of each class id: a class is a subclass
+     * of another iff its interval nests within the other's */
+    private int[] enterTime, exitTime;
+
+    /* the depth of each class id, and its first position in the Euler
+     * tour of the hierarchy */
+    private int[] depth, firstVisit;
+
+    /* shallowest[k][i] is the id of least depth among the 2^k ids of
+     * the Euler tour starting at position i */
+    private int[][] shallowest;
+
     /* constructs a default inheritance table */
     public InheritanceTable() {
         this.map = new HashMap<>();
@@ -88,6 +107,113 @@ public class InheritanceTable {
      * or bool. etc.). This error check should be handled by the caller. */
     public void extend(ValueType subclass, ValueType superclass) {
         this.map.put(subclass, superclass);
+        this.ids = null;
+    }
+
+    /* Precompute the subtype relation of the hierarchy as it is now, so
+     * that conformance checks take constant time, and joins of classes
+     * are a constant-time lowest common ancestor lookup in its Euler tour.
+     * Extending the table afterwards undoes this.
+     *
+     * Called once declaration analysis has built the hierarchy. */
+    public void freeze() {
+        HashMap<ValueType, Integer> newIds = new HashMap<>();
+        List<ValueType> newTypes = new ArrayList<>();
+        newIds.put(this.rootType, 0);
+        newTypes.add(this.rootType);
+        for (ValueType t : this.map.keySet()) {
+            if (!newIds.containsKey(t)) {
+                newIds.put(t, newTypes.size());
+                newTypes.add(t);
+            }
+        }
+        for (ValueType t : this.map.values()) {
+            if (!newIds.containsKey(t)) {
+                newIds.put(t, newTypes.size());
+                newTypes.add(t);
+            }
+        }
+
+        int n = newTypes.size();
+        List<List<Integer>> children = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            children.add(new ArrayList<>());
+        }
+        for (int i = 1; i < n; i++) {
+            children.get(newIds.get(this.getSuper(newTypes.get(i)))).add(i);
+        }
+
+        // iterative DFS, since generated hierarchies may be very deep
+        int[] newEnter = new int[n];
+        int[] newExit = new int[n];
+        int[] newDepth = new int[n];
+        int[] newFirst = new int[n];
+        int[] tour = new int[2 * n - 1];
+        int[] nextChild = new int[n];
+        int[] stack = new int[n];
+        int top = 0, time = 0, tourLength = 0, visited = 1;
+        stack[0] = 0;
+        newEnter[0] = time++;
+        newFirst[0] = tourLength;
+        tour[tourLength++] = 0;
+        while (top >= 0) {
+            int id = stack[top];
+            List<Integer> kids = children.get(id);
+            if (nextChild[id] < kids.size()) {
+                int kid = kids.get(nextChild[id]++);
+                newDepth[kid] = newDepth[id] + 1;
+                newEnter[kid] = time++;
+                newFirst[kid] = tourLength;
+                tour[tourLength++] = kid;
+                stack[++top] = kid;
+                visited += 1;
+            } else {
+                newExit[id] = time++;
+                top -= 1;
+                if (top >= 0) {
+                    tour[tourLength++] = stack[top];
+                }
+            }
+        }
+        if (visited != n) {
+            // a cycle not through the root: leave the table unfrozen
+            return;
+        }
+
+        int levels = 1;
+        while ((1 << levels) <= tourLength) {
+            levels += 1;
+        }
+        int[][] table = new int[levels][];
+        table[0] = tour;
+        for (int k = 1; k < levels; k++) {
+            int half = 1 << (k - 1);
+            table[k] = new int[tourLength - (1 << k) + 1];
+            for (int i = 0; i < table[k].length; i++) {
+                int left = table[k - 1][i];
+                int right = table[k - 1][i + half];
+                table[k][i] = newDepth[left] <= newDepth[right] ? left : right;
+            }
+        }
+
+        this.types = newTypes.toArray(new ValueType[0]);
+        this.enterTime = newEnter;
+        this.exitTime = newExit;
+        this.depth = newDepth;
+        this.firstVisit = newFirst;
+        this.shallowest = table;
+        this.ids = newIds;
+    }
+
+    /* Return the lowest common ancestor of the classes with ids ID1 and
+     * ID2 in the frozen hierarchy. */
+    private ValueType lowestCommonAncestor(int id1, int id2) {
+        int from = Math.min(this.firstVisit[id1], this.firstVisit[id2]);
+        int to = Math.max(this.firstVisit[id1], this.firstVisit[id2]) + 1;
+        int k = 31 - Integer.numberOfLeadingZeros(to - from);
+        int left = this.shallowest[k][from];
+        int right = this.shallowest[k][to - (1 << k)];
+        return this.types[this.depth[left] <= this.depth[right] ? left : right];
     }
 
     /* A renamed method that acts exactly the same as `extend`. */
@@ -150,6 +276,13 @@ public class InheritanceTable {
         } else if (t1.equals(this.rootType)) {
             // t2.equals(this.rootType) is not true from last branch
             return false;
+        } else if (this.ids != null) {
+            Integer id1 = this.ids.get(t1);
+            Integer id2 = this.ids.get(t2);
+            // classes outside the hierarchy are only subclasses of the root
+            return id1 != null && id2 != null
+                   && this.enterTime[id2] <= this.enterTime[id1]
+                   && this.exitTime[id1] <= this.exitTime[id2];
         } else if (this.map.containsKey(t2) && this.map.get(t2).equals(t1)) {
             // early-stopping to make recursion more efficient
             // if t2 < t1, then t1 is not a subclass (but superclass) of t2
@@ -172,6 +305,13 @@ public class InheritanceTable {
             return null;
         } else if (t1.equals(this.rootType) || t2.equals(this.rootType)) {
             return this.rootType;
+        } else if (this.ids != null) {
+            Integer id1 = this.ids.get(t1);
+            Integer id2 = this.ids.get(t2);
+            if (id1 == null || id2 == null) {
+                return this.rootType;
+            }
+            return this.lowestCommonAncestor(id1, id2);
         }
         HashSet<ValueType> supertypesOft1 = new HashSet<>(this.getHierarchy(t1));
         while (!t2.equals(this.rootType)) {
@@ -0,0 +1,163 @@
+package chocopy.semantic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import chocopy.common.analysis.SymbolTable;
+import chocopy.common.astnodes.ClassDef;
+import chocopy.common.astnodes.Declaration;
+import chocopy.common.astnodes.Errors;
+import chocopy.common.astnodes.FuncDef;
+import chocopy.common.astnodes.Program;
+import chocopy.common.astnodes.Stmt;
+
+/**
+ * Type checks the bodies of the functions and methods of a program in
+ * parallel, when there are enough of them, and sequentially otherwise.
+ *
+ * Once declaration analysis is done, the global symbol table and the
+ * inheritance table are only read, and each function body annotates only
+ * its own nodes, so every top-level declaration and every member of a
+ * class can be checked by its own TypeChecker with its own error
+ * collector.  The collected errors are then added to the program in the
+ * source order of the declarations they came from, followed by those of
+ * the top-level statements, which gives exactly the errors a sequential
+ * TypeChecker would report, in the same order.  When the checks of
+ * StatementAnalyzer are done while type checking, their errors are
+ * reported first, as if a StatementAnalyzer had run before.
+ *
+ * The worker threads are shared by all the checks asking for the same
+ * parallelism, so that analyzing a program repeatedly, as incremental
+ * analysis does, does not start new threads each time.  Programs with
+ * few function and method bodies are checked sequentially.
+ */
+class ParallelTypeChecker {
+
+    /** Programs with fewer function and method bodies than this are
+     *  checked on the calling thread, where handing out so few tasks
+     *  would cost more than it saves. */
+    static final int MIN_PARALLEL_BODIES = 16;
+
+    /** The worker pools, by parallelism.  Their threads are daemons, and
+     *  the pools live as long as the compiler. */
+    private static final Map<Integer, ForkJoinPool> POOLS =
+            new ConcurrentHashMap<>();
+
+    /** Global symbol table. */
+    private final SymbolTable<DeclarationNode> globals;
+    /** The inheritance relationship between classes. */
+    private final InheritanceTable inheritanceTable;
+    /** Number of worker threads. */
+    private final int parallelism;
+    /** True if the StatementAnalyzer checks are done while type checking. */
+    private final boolean checkStatements;
+
+    /**
+     * A type checker using GLOBALS and INHERITANCETABLE, as built by a
+     * DeclarationAnalyzer, and PARALLELISM worker threads.  Iff
+     * CHECKSTATEMENTS, it also performs the checks of StatementAnalyzer.
+     */
+    ParallelTypeChecker(SymbolTable<DeclarationNode> globals,
+                        InheritanceTable inheritanceTable,
+                        int parallelism, boolean checkStatements) {
+        this.globals = globals;
+        this.inheritanceTable = inheritanceTable;
+        this.parallelism = parallelism;
+        this.checkStatements = checkStatements;
+    }
+
+    /** Type-check PROGRAM, adding errors to ERRORS. */
+    void check(Program program, Errors errors) {
+        /* The statement checks, if done here, report their errors before
+         * those of type checking, as a StatementAnalyzer run first would. */
+        Errors typeErrors =
+                this.checkStatements ? new Errors(new ArrayList<>()) : errors;
+        Errors statementErrors = this.checkStatements ? errors : null;
+
+        List<BodyCheck> tasks = new ArrayList<>();
+        int bodies = 0;
+        for (Declaration decl : program.declarations) {
+            if (decl instanceof ClassDef) {
+                ClassDef classDef = (ClassDef) decl;
+                for (Declaration member : classDef.declarations) {
+                    tasks.add(new BodyCheck(classDef, member));
+                    bodies += member instanceof FuncDef ? 1 : 0;
+                }
+            } else {
+                tasks.add(new BodyCheck(null, decl));
+                bodies += decl instanceof FuncDef ? 1 : 0;
+            }
+        }
+
+        if (this.parallelism <= 1 || bodies < MIN_PARALLEL_BODIES) {
+            program.dispatch(new TypeChecker(this.globals, typeErrors,
+                                             this.inheritanceTable,
+                                             statementErrors));
+        } else {
+            ForkJoinPool pool =
+                    POOLS.computeIfAbsent(this.parallelism, ForkJoinPool::new);
+            for (BodyCheck task : tasks) {
+                pool.execute(task);
+            }
+            for (BodyCheck task : tasks) {
+                task.join();
+                if (this.checkStatements) {
+                    task.statementErrors.errors.forEach(errors::add);
+                }
+                task.typeErrors.errors.forEach(typeErrors::add);
+            }
+
+            TypeChecker typeChecker =
+                    new TypeChecker(this.globals, typeErrors,
+                                    this.inheritanceTable, statementErrors);
+            for (Stmt stmt : program.statements) {
+                stmt.dispatch(typeChecker);
+            }
+        }
+
+        if (this.checkStatements) {
+            typeErrors.errors.forEach(errors::add);
+        }
+    }
+
+    /**
+     * Checks one top-level declaration, or one member of a class, and
+     * collects the errors found in it.
+     */
+    private class BodyCheck extends RecursiveAction {
+
+        /** The class containing the declaration, or null if it is a
+         *  top-level declaration. */
+        private final ClassDef classDef;
+        /** The declaration to check. */
+        private final Declaration decl;
+        /** The errors found by type checking. */
+        private final Errors typeErrors = new Errors(new ArrayList<>());
+        /** The errors found by the statement checks, if they are done. */
+        private final Errors statementErrors = new Errors(new ArrayList<>());
+
+        /** A task checking DECL, a member of CLASSDEF if non-null. */
+        BodyCheck(ClassDef classDef, Declaration decl) {
+            this.classDef = classDef;
+            this.decl = decl;
+        }
+
+        @Override
+        protected void compute() {
+            TypeChecker typeChecker =
+                    new TypeChecker(globals, this.typeErrors, inheritanceTable,
+                                    checkStatements ? this.statementErrors : null);
+            if (this.classDef == null) {
+                this.decl.dispatch(typeChecker);
+            } else {
+                typeChecker.analyzeClassMembers(
+                        this.classDef, Collections.singletonList(this.decl));
+            }
+        }
+    }
+}
@@ -184,7 +184,7 @@ public class StatementAnalyzer extends AbstractNodeAnalyzer<Boolean> {
      * Helper function to recursively analyze the statements inside
      * a list of DECLARATIONS.
      */
-    private void analyzeDeclarations(List<Declaration> declarations) {
+    void analyzeDeclarations(List<Declaration> declarations) {
         for (Declaration decl : declarations) {
             String name = decl.getIdentifier().name;
             if (this.sym.declares(name)) {
@@ -82,6 +82,17 @@ public class TypeChecker extends AbstractNodeAnalyzer<SymbolType> {
      * This is null, if MemberExpr is examined individually.
      */
     private Node currentMethodCallExpr;
+    /**
+     * Collector for the errors found by the checks of StatementAnalyzer,
+     * if this checker also performs them, so that statements need to be
+     * traversed only once, and null otherwise.
+     */
+    private final Errors statementErrors;
+    /**
+     * True if the statement just analyzed has an explicit return along
+     * all of its paths.
+     */
+    private boolean explicitReturn;
 
 
     /**
@@ -93,6 +104,14 @@ public class TypeChecker extends AbstractNodeAnalyzer<SymbolType> {
         this.errors.semError(node, message, args);
     }
 
+    /**
+     * Inserts an error message found by a check of StatementAnalyzer in
+     * NODE, as err does, but reports it to statementErrors.
+     */
+    private void stmtErr(Node node, String message, Object... args) {
+        this.statementErrors.semError(node, message, args);
+    }
+
     /**
      * Creates a type checker using GLOBALSYMBOLS for the initial global
      * symbol table and ERRORS0 to receive semantic errors.
@@ -100,6 +119,20 @@ public class TypeChecker extends AbstractNodeAnalyzer<SymbolType> {
     public TypeChecker(SymbolTable<DeclarationNode> globalSymbols,
                        Errors errors0,
                        InheritanceTable inheritanceTable) {
+        this(globalSymbols, errors0, inheritanceTable, null);
+    }
+
+    /**
+     * Creates a type checker as above that, iff STATEMENTERRORS is not
+     * null, also performs the checks of StatementAnalyzer in the same
+     * traversal, and reports their errors to STATEMENTERRORS.  These are
+     * the errors a StatementAnalyzer would report, in the same order.
+     */
+    TypeChecker(SymbolTable<DeclarationNode> globalSymbols,
+                Errors errors0,
+                InheritanceTable inheritanceTable,
+                Errors statementErrors) {
+        this.statementErrors = statementErrors;
         this.sym = globalSymbols;
         this.globals = globalSymbols;
         this.errors = errors0;
@@ -117,12 +150,34 @@ public class TypeChecker extends AbstractNodeAnalyzer<SymbolType> {
         for (Declaration decl : program.declarations) {
             decl.dispatch(this);
         }
-        for (Stmt stmt : program.statements) {
-            stmt.dispatch(this);
-        }
+        this.analyzeStatements(program.statements);
         return null;
     }
 
+    /**
+     * Type-check STATEMENTS in order.  Returns true iff one of them has
+     * an explicit return along all of its paths.
+     */
+    private boolean analyzeStatements(List<Stmt> statements) {
+        boolean hasExplicitReturn = false;
+        for (Stmt s : statements) {
+            this.explicitReturn = false;
+            s.dispatch(this);
+            hasExplicitReturn = this.explicitReturn || hasExplicitReturn;
+        }
+        this.explicitReturn = false;
+        return hasExplicitReturn;
+    }
+
+    /**
+     * Return true if identifier ID is implicitly inherited.
+     */
+    private boolean isImplicitlyInherited(Identifier id) {
+        return !this.sym.declares(id.name) && // not in current scope
+                this.sym.get(id.name) != null && // but exists in upper scope
+                this.sym.get(id.name).isVarDef(); // is a variable
+    }
+
     @Override
     public SymbolType analyze(ExprStmt s) {
         s.expr.dispatch(this);
@@ -131,6 +186,16 @@ public class TypeChecker extends AbstractNodeAnalyzer<SymbolType> {
 
     @Override
     public SymbolType analyze(AssignStmt s) {
+        if (this.statementErrors != null) {
+            for (Expr target : s.targets) {
+                if (target instanceof Identifier
+                    && this.isImplicitlyInherited((Identifier) target)) {
+                    Identifier id = (Identifier) target;
+                    this.stmtErr(id, TypeErrorMessages.NO_IMPLICIT_ASSIGNMENT, id.name);
+                }
+            }
+        }
+
         SymbolType valueType = s.value.dispatch(this);
 
         if (valueType == null) {
@@ -223,7 +288,7 @@ public class TypeChecker extends AbstractNodeAnalyzer<SymbolType> {
                 SymbolType t = elem.dispatch(this);
                 baseJoin = this.inheritanceTable.join((ValueType) baseJoin, (ValueType) t);
             }
-            return n.setInferredType(new ListValueType(baseJoin));
+            return n.setInferredType(ListValueType.of((ValueType) baseJoin));
         }
     }
 
@@ -245,10 +310,10 @@ public class TypeChecker extends AbstractNodeAnalyzer<SymbolType> {
                     return e.setInferredType(STR_TYPE);
                 } else if (t1 != null && t2 != null &&
                         t1.isListType() && t2.isListType()) {
-                    SymbolType joinedType =
+                    ValueType joinedType =
                             this.inheritanceTable.join(t1.elementType(),
                                     t2.elementType());
-                    return e.setInferredType(new ListValueType(joinedType));
+                    return e.setInferredType(ListValueType.of(joinedType));
                 } else if (INT_TYPE.equals(t1) || INT_TYPE.equals(t2)) {
                     // result is inferred as INT, as long as one of them is
                     this.setBinaryError(e, t1, t2);
@@ -307,15 +372,12 @@ public class TypeChecker extends AbstractNodeAnalyzer<SymbolType> {
         }
 
         // then body is stmt list
-        for (Stmt s : e.thenBody) {
-            s.dispatch(this);
-        }
+        boolean thenHasExplicitReturn = this.analyzeStatements(e.thenBody);
 
         // else body is also a stmt list with possible nested if-stmts
-        for (Stmt s : e.elseBody) {
-            s.dispatch(this);
-        }
+        boolean elseHasExplicitReturn = this.analyzeStatements(e.elseBody);
 
+        this.explicitReturn = thenHasExplicitReturn && elseHasExplicitReturn;
         return null;
     }
 
@@ -325,14 +387,18 @@ public class TypeChecker extends AbstractNodeAnalyzer<SymbolType> {
         if (!BOOL_TYPE.equals(condType)) {
             this.err(e, TypeErrorMessages.CONDITION_EXPR_TYPE, condType);
         }
-        for (Stmt s : e.body) {
-            s.dispatch(this);
-        }
+        this.analyzeStatements(e.body);
         return null;
     }
 
      @Override
     public SymbolType analyze(ForStmt s) {
+        if (this.statementErrors != null && this.isImplicitlyInherited(s.identifier)) {
+            // control variable for for loop cannot be implicitly inherited
+            this.stmtErr(s.identifier, TypeErrorMessages.NO_IMPLICIT_ASSIGNMENT,
+                     s.identifier.name);
+        }
+
         SymbolType idValueType = s.identifier.dispatch(this);
         SymbolType iterableType = s.iterable.dispatch(this);
 
@@ -368,9 +434,7 @@ public class TypeChecker extends AbstractNodeAnalyzer<SymbolType> {
         }
 
         // Type check the body of the for stmt
-        for (Stmt st : s.body) {
-            st.dispatch(this);
-        }
+        this.analyzeStatements(s.body);
 
         return null;
     }
@@ -462,6 +526,11 @@ public class TypeChecker extends AbstractNodeAnalyzer<SymbolType> {
 
     @Override
     public SymbolType analyze(ReturnStmt n) {
+        if (this.statementErrors != null && this.sym.getParent() == null) {
+            this.stmtErr(n, TypeErrorMessages.NO_RETURN_TOP_LEVEL);
+        }
+        this.explicitReturn = true;
+
         SymbolType actualReturnType = null;
         if (n.value != null) {
             actualReturnType = n.value.dispatch(this);
@@ -518,8 +587,12 @@ public class TypeChecker extends AbstractNodeAnalyzer<SymbolType> {
             d.dispatch(this);
         }
 
-        for (Stmt s : f.statements) {
-            s.dispatch(this);
+        boolean hasExplicitReturn = this.analyzeStatements(f.statements);
+
+        if (this.statementErrors != null && !hasExplicitReturn
+            && ValueType.annotationToValueType(f.returnType).isSpecialType()) {
+            Identifier id = f.getIdentifier();
+            this.stmtErr(id, TypeErrorMessages.ALL_PATHS_MUST_RETURN, id.name);
         }
 
         // switch back to parent declarative region
@@ -583,6 +656,15 @@ public class TypeChecker extends AbstractNodeAnalyzer<SymbolType> {
 
     @Override
     public SymbolType analyze(ClassDef n) {
+        this.analyzeClassMembers(n, n.declarations);
+        return null;
+    }
+
+    /**
+     * Type-check MEMBERS, some of the declarations of class definition N,
+     * in the declarative region of N.
+     */
+    void analyzeClassMembers(ClassDef n, List<Declaration> members) {
         DeclarationNode classDecl = this.globals.get(n.getIdentifier().name);
         SymbolTable<DeclarationNode> classHierarchy =
                 ClassUtilities.getBaseClassDeclaration(classDecl.classValueType(),
@@ -595,15 +677,13 @@ public class TypeChecker extends AbstractNodeAnalyzer<SymbolType> {
         this.atClassLevel = true;
         this.sym = classDecl.sym;
 
-        for (Declaration s : n.declarations) {
+        for (Declaration s : members) {
             s.dispatch(this);
         }
 
         this.atClassLevel = false;
         this.classHierarchy = null;
         this.sym = parentSym;
-
-        return null;
     }
 
     @Override
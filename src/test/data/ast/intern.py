@@ -0,0 +1,7 @@
+count:int = 0
+name:str = "count"
+other:str = "a b"
+count = count + 1
+name = "count"
+other = "a b"
+print(name == "a b")
@@ -0,0 +1,15 @@
+x:int = 1
+y:str = "a"
+
+class A(object):
+    n:int = 0
+    def f(self:"A", n:int) -> int:
+        return self.n + "n"
+
+def g(z:int) -> str:
+    x = z
+    return z
+
+x = y
+print(A().f(x, 2))
+print(undefined)
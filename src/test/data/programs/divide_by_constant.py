@@ -0,0 +1,42 @@
+# Floor division and remainder by constant divisors, which are compiled
+# to shifts, masks and multiplications by magic numbers.
+
+def show(n:int) -> object:
+    print(n)
+    print(n // 1)
+    print(n % 1)
+    print(n // 2)
+    print(n % 2)
+    print(n // 3)
+    print(n % 3)
+    print(n // 7)
+    print(n % 7)
+    print(n // 8)
+    print(n % 8)
+    print(n // 10)
+    print(n % 10)
+    print(n // 4096)
+    print(n % 4096)
+    print(n // 1073741824)
+    print(n % 1073741824)
+    print(n // 2147483647)
+    print(n % 2147483647)
+    print(n // -5)
+    print(n % -5)
+
+int_min:int = 0
+int_max:int = 2147483647
+dividends:[int] = None
+i:int = 0
+
+int_min = -2147483647 - 1
+dividends = [0, 1, 2, 3, 6, 7, 8, 20, 21, 4095, 4096, 123456789, int_max, int_max - 1]
+dividends = dividends + [-1, -2, -3, -6, -7, -8, -20, -21, -4096, -4097, -123456789]
+dividends = dividends + [int_min, int_min + 1]
+while i < len(dividends):
+    show(dividends[i])
+    i = i + 1
+
+# the divisor on the left, and expressions as dividends
+print(7 * (int_min // 7) + int_min % 7 == int_min)
+print((int_max - 5) // 3 + (int_min + 5) % 3)
@@ -0,0 +1,28 @@
+# Functions and methods that declare globals defined after them
+
+def bump(d:int) -> int:
+    global count
+    count = count + d
+    return count
+
+class Counter(object):
+    def add(self:"Counter", d:int) -> int:
+        global total
+        total = total + bump(d)
+        return total
+
+def nested() -> int:
+    count:int = 100
+    def inner() -> int:
+        global count
+        return count
+    return inner() + count
+
+count:int = 1
+total:int = 0
+
+print(bump(2))
+print(Counter().add(3))
+print(count)
+print(total)
+print(nested())
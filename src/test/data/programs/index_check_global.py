@@ -0,0 +1,18 @@
+# The global list indexed in a `while i < len(v)` loop is reassigned,
+# shorter, by a function called in the loop body, so the second v[i]
+# must still be bounds checked.
+
+v:[int] = None
+i:int = 0
+
+def shrink() -> object:
+    global v
+    v = [0]
+
+v = [1, 2, 3]
+while i < len(v):
+    print(v[i])
+    if i == 2:
+        shrink()
+    print(v[i])
+    i = i + 1
@@ -0,0 +1,10 @@
+# The index of a `while i < len(v)` loop is incremented before the
+# second v[i], so that one must still be bounds checked.
+
+v:[int] = None
+i:int = 0
+v = [1, 2, 3]
+while i < len(v):
+    print(v[i])
+    i = i + 1
+    print(v[i])
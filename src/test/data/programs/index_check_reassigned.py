@@ -0,0 +1,12 @@
+# The list indexed in a `while i < len(v)` loop is reassigned, shorter,
+# in the loop body, so the second v[i] must still be bounds checked.
+
+v:[int] = None
+i:int = 0
+v = [1, 2, 3]
+while i < len(v):
+    print(v[i])
+    if i == 1:
+        v = [9]
+    print(v[i])
+    i = i + 1
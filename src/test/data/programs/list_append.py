@@ -0,0 +1,72 @@
+# Lists in attributes grown with `o.a = o.a + [...]`: an attribute whose
+# list is read elsewhere (aliased), and one only indexed, measured and
+# appended to, grown far past its first capacity.
+
+class Box(object):
+    a:[int] = None
+
+class Stack(object):
+    items:[int] = None
+
+    def push(self:"Stack", x:int) -> object:
+        self.items = self.items + [x]
+
+    def push3(self:"Stack", x:int) -> object:
+        self.items = self.items + [x, x + 1, x + 2]
+
+    def total(self:"Stack") -> int:
+        t:int = 0
+        i:int = 0
+        while i < len(self.items):
+            t = t + self.items[i]
+            i = i + 1
+        return t
+
+def show(l:[int]) -> object:
+    s:str = ""
+    x:int = 0
+    for x in l:
+        s = s + "0123456789"[x % 10]
+    print(s)
+
+o:Box = None
+b:[int] = None
+c:[int] = None
+s:Stack = None
+u:Stack = None
+i:int = 0
+
+o = Box()
+o.a = [1, 2]
+b = o.a
+o.a = o.a + [3]
+show(b)
+show(o.a)
+c = o.a
+while i < 20:
+    o.a = o.a + [i]
+    i = i + 1
+show(b)
+show(c)
+show(o.a)
+print(len(o.a))
+
+s = Stack()
+u = Stack()
+s.items = []
+u.items = [7]
+i = 0
+while i < 100:
+    s.push(i)
+    if i % 10 == 0:
+        u.push3(i)
+    i = i + 1
+print(len(s.items))
+print(s.items[0])
+print(s.items[50])
+print(s.items[99])
+print(s.total())
+print(len(u.items))
+print(u.total())
+i = len(u.items) - 1
+print(u.items[i])
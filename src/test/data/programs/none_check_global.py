@@ -0,0 +1,13 @@
+# A global list already indexed is set to None by a called function,
+# so indexing it again must still be checked for None.
+
+v:[int] = None
+
+def clear() -> object:
+    global v
+    v = None
+
+v = [1, 2]
+print(v[0])
+clear()
+print(v[1])
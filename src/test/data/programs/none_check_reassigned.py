@@ -0,0 +1,8 @@
+# A list already indexed is set to None, so indexing it again must
+# still be checked for None.
+
+v:[int] = None
+v = [1, 2]
+print(v[0])
+v = None
+print(v[1])
@@ -0,0 +1,119 @@
+# Strings built by appending in loops, with and without other
+# references to them escaping while they are built.
+
+kept:[str] = None
+
+def keep(s:str) -> str:
+    global kept
+    kept = kept + [s]
+    return s
+
+def digits(n:int) -> str:
+    s:str = ""
+    i:int = 0
+    while i < n:
+        s = s + "0123456789"[i % 10]
+        i = i + 1
+    return s
+
+def aliased(n:int) -> str:
+    s:str = ""
+    t:str = ""
+    i:int = 0
+    while i < n:
+        s = s + "a"
+        if i == 3:
+            t = s
+            print(t)
+        s = s + "b"
+        i = i + 1
+    print(t)
+    return s
+
+def passed(n:int) -> str:
+    s:str = ""
+    i:int = 0
+    while i < n:
+        s = s + "c"
+        if i == 2:
+            keep(s)
+        s = s + "d"
+        i = i + 1
+    return s
+
+def listed(n:int) -> [str]:
+    s:str = ""
+    l:[str] = None
+    i:int = 0
+    l = []
+    for i in [0, 1, 2, 3, 4, 5]:
+        s = s + "e"
+        if i % 2 == 1:
+            l = l + [s]
+    l = l + [s]
+    return l
+
+def reentered(n:int) -> str:
+    s:str = "x"
+    saved:[str] = None
+    t:str = ""
+    i:int = 0
+    j:int = 0
+    saved = []
+    while j < 3:
+        i = 0
+        while i < n:
+            s = s + "y"
+            i = i + 1
+        saved = saved + [s]
+        j = j + 1
+    for t in saved:
+        print(t)
+    return s
+
+def after(n:int) -> str:
+    s:str = ""
+    t:str = ""
+    i:int = 0
+    while i < n:
+        s = s + "f"
+        i = i + 1
+    t = s
+    i = 0
+    while i < n:
+        s = s + "g"
+        i = i + 1
+    print(t)
+    return s
+
+g:str = ""
+h:str = ""
+i:int = 0
+l:[str] = None
+x:str = ""
+
+kept = []
+print(digits(0))
+print(digits(1))
+print(digits(25))
+print(len(digits(1000)))
+print(aliased(6))
+print(passed(5))
+for x in kept:
+    print(x)
+for x in listed(6):
+    print(x)
+print(reentered(4))
+print(after(5))
+
+while i < 30:
+    g = g + "h"
+    i = i + 1
+h = g
+i = 0
+while i < 3:
+    g = g + "i"
+    i = i + 1
+print(h)
+print(g)
+print(len(g))
@@ -0,0 +1,64 @@
+# String comparisons that strings with cached hash codes decide in each
+# possible way: by identity, by length, by hash code, and by contents
+# when the hash codes are equal ("Aa" and "BB" have the same hash code).
+
+def join(a:str, b:str) -> str:
+    return a + b
+
+words:[str] = None
+w:str = ""
+v:str = ""
+c:str = ""
+s:str = ""
+hits:int = 0
+i:int = 0
+
+words = ["Aa", "BB", join("A", "a"), join("B", "B"), "", join("", "")]
+words = words + ["AaAa", "BBBB", "AaBB", "BBAa", join("AaB", "B"), "x", join("x", "")]
+
+for w in words:
+    s = ""
+    for v in words:
+        if w == v:
+            s = s + "="
+        else:
+            s = s + "."
+    print(s)
+
+print("Aa" == "BB")
+print(join("A", "a") == "Aa")
+print(join("A", "a") == "BB")
+print(join("B", "B") == join("B", "B"))
+print(join("", "") == "")
+
+s = "hello, world"
+hits = 0
+for c in s:
+    if c == "o":
+        hits = hits + 1
+    if c == ",":
+        hits = hits + 10
+print(hits)
+
+i = 0
+hits = 0
+while i < len(s):
+    if s[i] == "l":
+        hits = hits + 1
+    if s[i] == join("w", ""):
+        hits = hits + 100
+    i = i + 1
+print(hits)
+
+w = join("Aa", "BB")
+i = 0
+hits = 0
+while i < 5:
+    if w == "AaBB":
+        hits = hits + 1
+    if w == "BBAa":
+        hits = hits + 10
+    if w == "BBBB":
+        hits = hits + 100
+    i = i + 1
+print(hits)
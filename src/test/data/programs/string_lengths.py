@@ -0,0 +1,97 @@
+# Strings of lengths 0 to 13, compared, concatenated and indexed, and
+# lists of lengths 0 to 9 concatenated: the lengths cover whole words,
+# partial words, and none.
+
+def build(n:int, c:str) -> str:
+    s:str = ""
+    i:int = 0
+    while i < n:
+        s = s + c
+        i = i + 1
+    return s
+
+def numbers(n:int) -> [int]:
+    l:[int] = None
+    i:int = 0
+    l = []
+    while i < n:
+        l = l + [i]
+        i = i + 1
+    return l
+
+def describe(l:[int]) -> str:
+    s:str = "["
+    x:int = 0
+    for x in l:
+        s = s + "x"
+    return s + "]"
+
+strs:[str] = None
+others:[str] = None
+i:int = 0
+j:int = 0
+s:str = ""
+t:str = ""
+l:[int] = None
+count:int = 0
+
+strs = []
+others = []
+while i < 14:
+    strs = strs + [build(i, "a")]
+    others = others + [build(i, "a")]
+    i = i + 1
+
+i = 0
+while i < 14:
+    s = strs[i]
+    t = others[i]
+    print(len(s))
+    print(s == t)
+    print(s != t)
+    if i > 0:
+        print(s == build(i - 1, "a") + "b")
+        print(s == "b" + build(i - 1, "a"))
+        print(s[i - 1] == "a")
+    i = i + 1
+
+count = 0
+i = 0
+while i < 14:
+    j = 0
+    while j < 14:
+        s = strs[i] + build(j, "b")
+        if len(s) != i + j:
+            print("bad length")
+        if s == strs[j] + build(i, "b"):
+            count = count + 1
+        if s == build(i, "a") + build(j, "b"):
+            count = count + 1
+        j = j + 1
+    i = i + 1
+print(count)
+
+print("" == "")
+print("" + "" == "")
+print("abc" + "" == "abc")
+print("" + "abc" == "abc")
+print("abcd" + "e" == "abcde")
+print("abcde" == "abcdf")
+print("xabcd" == "yabcd")
+print(build(5, "z") + build(3, "y"))
+print(build(9, "q") + "!")
+
+i = 0
+while i < 10:
+    j = 0
+    while j < 10:
+        l = numbers(i) + numbers(j)
+        if len(l) != i + j:
+            print("bad length")
+        if j > 0 and l[i + j - 1] != j - 1:
+            print("bad element")
+        if i > 0 and l[i - 1] != i - 1:
+            print("bad element")
+        j = j + 1
+    print(describe(numbers(i) + numbers(i)))
+    i = i + 1
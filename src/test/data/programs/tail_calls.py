@@ -0,0 +1,75 @@
+# Calls in tail position.  The recursions a million calls deep only
+# run in constant stack space because the calls are compiled as jumps.
+
+class Counter(object):
+    step:int = 1
+
+    def count(self:"Counter", n:int, acc:int) -> int:
+        if n == 0:
+            return acc
+        return self.count(n - 1, acc + self.step)
+
+class Doubler(Counter):
+    def count(self:"Doubler", n:int, acc:int) -> int:
+        if n == 0:
+            return acc
+        return self.count(n - 1, acc + 2 * self.step)
+
+def sum_to(n:int, acc:int) -> int:
+    if n == 0:
+        return acc
+    return sum_to(n - 1, acc + n)
+
+def is_even(n:int) -> bool:
+    if n == 0:
+        return True
+    return is_odd(n - 1)
+
+def is_odd(n:int) -> bool:
+    if n == 0:
+        return False
+    return is_even(n - 1)
+
+def spread(a:int, b:int, c:int, d:int) -> int:
+    return a + b + c + d
+
+def narrow(n:int) -> int:
+    if n == 0:
+        return spread(1, 2, 3, 4)
+    return narrow(n - 1)
+
+def wide(n:int, a:int, b:int, c:int, d:int, e:int) -> int:
+    if n == 0:
+        return a + b + c + d + e
+    return wide(n - 1, b, c, d, e, a + 1)
+
+def start_wide(n:int) -> int:
+    return wide(n, 1, 2, 3, 4, 5)
+
+def describe(n:int) -> str:
+    if n % 2 == 0:
+        return describe_even(n)
+    return "odd"
+
+def describe_even(n:int) -> str:
+    return "even"
+
+def boxed(n:int) -> object:
+    return sum_to(n, 0)
+
+# deep self-recursion
+print(sum_to(1000000, 0))
+# deep mutual recursion
+print(is_even(1000000))
+print(is_odd(999999))
+print(is_even(7))
+# deep method recursion, through the dispatch table
+print(Counter().count(1000000, 0))
+print(Doubler().count(1000000, 0))
+# tail calls to functions with more parameters than the caller
+print(narrow(1000))
+print(start_wide(1000))
+# tail calls returning a reference, and an int as an object
+print(describe(4))
+print(describe(5))
+print(boxed(100))
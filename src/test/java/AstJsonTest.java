@@ -0,0 +1,83 @@
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+import chocopy.common.astnodes.Node;
+import chocopy.common.astnodes.Program;
+import chocopy.lexical.ChocoPyLexicalAnalysis;
+import chocopy.semantic.ChocoPySemanticAnalysis;
+
+/**
+ * Checks that the parsed and typed ASTs of each program in AST_DIR
+ * serialize to exactly the JSON in the program's .ast and .ast.typed
+ * files, and that reading that JSON back gives the same JSON again.
+ * The typed AST must be the same whether the statement checks are
+ * done in their own pass or fused with type checking.
+ */
+@RunWith(Parameterized.class)
+public class AstJsonTest {
+
+    /** The directory holding the programs and their expected ASTs. */
+    private static final String AST_DIR = "src/test/data/ast";
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> programs() {
+        File[] files = new File(AST_DIR).listFiles((d, name) -> name.endsWith(".py"));
+        Arrays.sort(files);
+        Collection<Object[]> result = new ArrayList<>();
+        for (File file : files) {
+            result.add(new Object[] { file });
+        }
+        return result;
+    }
+
+    private final File file;
+
+    public AstJsonTest(File file) {
+        this.file = file;
+    }
+
+    /** Return the contents of the file named by appending EXT to this.file. */
+    private String expected(String ext) throws IOException {
+        return ProgramRunner.read(new File(this.file.getPath() + ext));
+    }
+
+    @Test
+    public void test_parsed_ast() throws IOException {
+        Program program =
+            ChocoPyLexicalAnalysis.process(ProgramRunner.read(this.file), false);
+        assertEquals(expected(".ast"), program.toJSON());
+    }
+
+    @Test
+    public void test_typed_ast() throws IOException {
+        Program program =
+            ChocoPyLexicalAnalysis.process(ProgramRunner.read(this.file), false);
+        program = ChocoPySemanticAnalysis.process(program, false);
+        assertEquals(expected(".ast.typed"), program.toJSON());
+    }
+
+    @Test
+    public void test_fused_typed_ast() throws IOException {
+        Program program =
+            ChocoPyLexicalAnalysis.process(ProgramRunner.read(this.file), false);
+        program = ChocoPySemanticAnalysis.process(program, false, 1, true);
+        assertEquals(expected(".ast.typed"), program.toJSON());
+    }
+
+    @Test
+    public void test_round_trip() throws IOException {
+        for (String ext : new String[] { ".ast", ".ast.typed" }) {
+            String json = expected(ext);
+            assertEquals(ext, json, Node.fromJSON(json, Program.class).toJSON());
+        }
+    }
+}
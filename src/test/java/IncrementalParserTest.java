@@ -0,0 +1,184 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import chocopy.common.astnodes.Program;
+import chocopy.common.astnodes.Stmt;
+import chocopy.lexical.ChocoPyLexicalAnalysis;
+import chocopy.lexical.IncrementalParser;
+
+public class IncrementalParserTest {
+
+    private static final String ORIGINAL =
+        "# a comment before everything\n"
+        + "x:int = 1\n"
+        + "def f(a:int) -> int:\n"
+        + "    b:int = 2\n"
+        + "# a comment in a body, at column 0\n"
+        + "\n"
+        + "    return a + b + x\n"
+        + "class C(object):\n"
+        + "    n:int = 0\n"
+        + "    def get(self:\"C\") -> int:\n"
+        + "        return self.n\n"
+        + "\n"
+        + "if x > 0:\n"
+        + "    print(f(3))\n"
+        + "elif x < 0:\n"
+        + "    pass\n"
+        + "# between the clauses\n"
+        + "else:\n"
+        + "    print(C().get())\n"
+        + "print(x)\n"
+        + "print(x)\n";
+
+    /** Return the AST of SOURCE, parsed from scratch, as JSON. */
+    private static String fullParse(String source)
+        throws JsonProcessingException {
+        return ChocoPyLexicalAnalysis.process(source, false).toJSON();
+    }
+
+    /** Parse ORIGINAL with PARSER, then EDITED, and check that the result
+     *  is that of a full parse of EDITED.  Return the number of units
+     *  reused. */
+    private static int reparse(IncrementalParser parser, String edited)
+        throws JsonProcessingException {
+        assertEquals(fullParse(ORIGINAL), parser.parse(ORIGINAL).toJSON());
+        assertEquals(fullParse(edited), parser.parse(edited).toJSON());
+        return parser.getReusedCount();
+    }
+
+    @Test
+    public void test_unchanged() throws JsonProcessingException {
+        IncrementalParser parser = new IncrementalParser(false);
+        assertEquals(7, reparse(parser, ORIGINAL));
+    }
+
+    @Test
+    public void test_edited_body() throws JsonProcessingException {
+        IncrementalParser parser = new IncrementalParser(false);
+        String edited = ORIGINAL.replace("return a + b + x", "return a * b");
+        assertEquals(6, reparse(parser, edited));
+    }
+
+    @Test
+    public void test_inserted_lines_shift_later_units()
+        throws JsonProcessingException {
+        IncrementalParser parser = new IncrementalParser(false);
+        String edited = ORIGINAL.replace("    b:int = 2\n",
+                                         "    b:int = 2\n    c:int = 3\n\n# more\n");
+        assertEquals(6, reparse(parser, edited));
+    }
+
+    @Test
+    public void test_edited_else_clause() throws JsonProcessingException {
+        IncrementalParser parser = new IncrementalParser(false);
+        String edited = ORIGINAL.replace("    print(C().get())\n",
+                                         "    x = 2\n    print(C().get())\n");
+        assertEquals(6, reparse(parser, edited));
+    }
+
+    @Test
+    public void test_comments_and_blank_lines_at_column_0()
+        throws JsonProcessingException {
+        IncrementalParser parser = new IncrementalParser(false);
+        String edited = "\n# leading\n\n" + ORIGINAL.replace("print(x)\nprint(x)\n",
+                                                           "print(x)\n\n# end\nprint(x)\n# last\n");
+        assertEquals(fullParse(edited), parser.parse(edited).toJSON());
+        assertEquals(fullParse(ORIGINAL), parser.parse(ORIGINAL).toJSON());
+    }
+
+    @Test
+    public void test_declaration_after_statement() throws JsonProcessingException {
+        IncrementalParser parser = new IncrementalParser(false);
+        String edited = ORIGINAL + "y:int = 2\n";
+        reparse(parser, edited);
+        assertTrue(parser.parse(edited).hasErrors());
+    }
+
+    @Test
+    public void test_syntax_error_and_fix() throws JsonProcessingException {
+        IncrementalParser parser = new IncrementalParser(false);
+        String edited = ORIGINAL.replace("return self.n", "return self.n +");
+        reparse(parser, edited);
+        assertTrue(parser.parse(edited).hasErrors());
+        assertEquals(fullParse(ORIGINAL), parser.parse(ORIGINAL).toJSON());
+    }
+
+    @Test
+    public void test_no_final_newline() throws JsonProcessingException {
+        IncrementalParser parser = new IncrementalParser(false);
+        // like a full parse, this is a syntax error at the end of input
+        String edited = ORIGINAL.substring(0, ORIGINAL.length() - 1);
+        reparse(parser, edited);
+        assertTrue(parser.parse(edited).hasErrors());
+    }
+
+    @Test
+    public void test_only_comments() throws JsonProcessingException {
+        IncrementalParser parser = new IncrementalParser(false);
+        String edited = "# nothing\n\n# here\n";
+        reparse(parser, edited);
+        assertEquals(fullParse(""), new IncrementalParser(false).parse("").toJSON());
+    }
+
+    @Test
+    public void test_nodes_reused_and_moved() throws JsonProcessingException {
+        IncrementalParser parser = new IncrementalParser(false);
+        Program first = parser.parse(ORIGINAL);
+        Stmt last = first.statements.get(first.statements.size() - 1);
+        int[] location = last.getLocation();
+        String edited = "\n\n" + ORIGINAL.replace("return a + b + x", "return a");
+        Program second = parser.parse(edited);
+        assertEquals(fullParse(edited), second.toJSON());
+        assertSame(last, second.statements.get(second.statements.size() - 1));
+        assertEquals(location[0] + 2, last.getLocation()[0]);
+        assertSame(first.declarations.get(2), second.declarations.get(2));
+        assertNotSame(first.declarations.get(1), second.declarations.get(1));
+    }
+
+    @Test
+    public void test_syntax_error_keeps_earlier_units()
+        throws JsonProcessingException {
+        IncrementalParser parser = new IncrementalParser(false);
+        Program first = parser.parse(ORIGINAL);
+        String edited = ORIGINAL.replace("print(x)\nprint(x)\n",
+                                         "print(x))\nprint(x)\n");
+        Program second = parser.parse(edited);
+        assertEquals(fullParse(edited), second.toJSON());
+        assertTrue(second.hasErrors());
+        for (int i = 0; i < 3; i++) {
+            assertSame(first.declarations.get(i), second.declarations.get(i));
+        }
+    }
+
+    @Test
+    public void test_unrecovered_syntax_error() throws JsonProcessingException {
+        IncrementalParser parser = new IncrementalParser(false);
+        parser.parse(ORIGINAL);
+        String edited = ORIGINAL.replace("return a + b + x", "return a +* b");
+        Program program = parser.parse(edited);
+        assertEquals(fullParse(edited), program.toJSON());
+        assertTrue(program.declarations.isEmpty());
+        assertEquals(fullParse(ORIGINAL), parser.parse(ORIGINAL).toJSON());
+    }
+
+    @Test
+    public void test_single_character_edits() throws JsonProcessingException {
+        IncrementalParser parser = new IncrementalParser(false);
+        for (int pos = 0; pos <= ORIGINAL.length(); pos++) {
+            String prefix = ORIGINAL.substring(0, pos);
+            String suffix = ORIGINAL.substring(pos);
+            if (pos < ORIGINAL.length()) {
+                String edited = prefix + suffix.substring(1);
+                assertEquals(edited, fullParse(edited), parser.parse(edited).toJSON());
+            }
+            for (String insert : new String[] { "(", ":", "x", " ", "\n", "def " }) {
+                String edited = prefix + insert + suffix;
+                assertEquals(edited, fullParse(edited), parser.parse(edited).toJSON());
+            }
+            assertEquals(fullParse(ORIGINAL), parser.parse(ORIGINAL).toJSON());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import chocopy.common.astnodes.Program;
+import chocopy.lexical.ChocoPyLexicalAnalysis;
+import chocopy.semantic.ChocoPySemanticAnalysis;
+import chocopy.semantic.IncrementalSemanticAnalysis;
+
+public class IncrementalSemanticAnalysisTest {
+
+    private static final String ORIGINAL =
+        "x:int = 1\n"
+        + "def f(a:int) -> int:\n"
+        + "    b:int = 2\n"
+        + "    return a + b + x\n"
+        + "def g(s:str) -> str:\n"
+        + "    return s + s\n"
+        + "class C(object):\n"
+        + "    n:int = 0\n"
+        + "    def get(self:\"C\") -> int:\n"
+        + "        return self.n\n"
+        + "print(f(3))\n"
+        + "print(g(\"ab\"))\n"
+        + "print(C().get())\n";
+
+    /** Return the typed AST of SOURCE, analyzed from scratch, as JSON. */
+    private static String fullAnalysis(String source)
+        throws JsonProcessingException {
+        Program program = ChocoPyLexicalAnalysis.process(source, false);
+        return ChocoPySemanticAnalysis.process(program, false).toJSON();
+    }
+
+    /** Return the typed AST of SOURCE, analyzed by ANALYSIS, as JSON. */
+    private static String incrementalAnalysis(IncrementalSemanticAnalysis analysis,
+                                              String source)
+        throws JsonProcessingException {
+        Program program = ChocoPyLexicalAnalysis.process(source, false);
+        return analysis.process(program, false).toJSON();
+    }
+
+    @Test
+    public void test_edited_body() throws JsonProcessingException {
+        IncrementalSemanticAnalysis analysis = new IncrementalSemanticAnalysis();
+        incrementalAnalysis(analysis, ORIGINAL);
+
+        String edited = ORIGINAL.replace("return s + s", "return s + s + s");
+        assertEquals(fullAnalysis(edited), incrementalAnalysis(analysis, edited));
+        assertEquals(2, analysis.getReusedCount());
+    }
+
+    @Test
+    public void test_edited_method() throws JsonProcessingException {
+        IncrementalSemanticAnalysis analysis = new IncrementalSemanticAnalysis();
+        incrementalAnalysis(analysis, ORIGINAL);
+
+        String edited = ORIGINAL.replace("return self.n", "return self.n + 1");
+        assertEquals(fullAnalysis(edited), incrementalAnalysis(analysis, edited));
+        assertEquals(2, analysis.getReusedCount());
+    }
+
+    @Test
+    public void test_edited_body_with_type_error() throws JsonProcessingException {
+        IncrementalSemanticAnalysis analysis = new IncrementalSemanticAnalysis();
+        incrementalAnalysis(analysis, ORIGINAL);
+
+        String edited = ORIGINAL.replace("return a + b + x", "return a + \"b\"");
+        String result = incrementalAnalysis(analysis, edited);
+        assertEquals(fullAnalysis(edited), result);
+        assertEquals(2, analysis.getReusedCount());
+
+        // fixing the error again reuses the other definitions
+        assertEquals(fullAnalysis(ORIGINAL), incrementalAnalysis(analysis, ORIGINAL));
+        assertEquals(2, analysis.getReusedCount());
+    }
+
+    @Test
+    public void test_shifted_definitions() throws JsonProcessingException {
+        IncrementalSemanticAnalysis analysis = new IncrementalSemanticAnalysis();
+        incrementalAnalysis(analysis, ORIGINAL);
+
+        String edited = ORIGINAL.replace("    b:int = 2\n",
+                                         "    b:int = 2\n    c:int = 3\n\n");
+        assertEquals(fullAnalysis(edited), incrementalAnalysis(analysis, edited));
+        assertEquals(2, analysis.getReusedCount());
+    }
+
+    @Test
+    public void test_declaration_error_falls_back() throws JsonProcessingException {
+        IncrementalSemanticAnalysis analysis = new IncrementalSemanticAnalysis();
+        incrementalAnalysis(analysis, ORIGINAL);
+
+        // the re-declaration fails, so the program is analyzed from scratch
+        String edited = ORIGINAL.replace("    b:int = 2\n",
+                                         "    b:int = 2\n    global y\n    b:int = 3\n");
+        String result = incrementalAnalysis(analysis, edited);
+        assertEquals(fullAnalysis(edited), result);
+        assertEquals(0, analysis.getReusedCount());
+
+        // and the next edit starts over
+        assertEquals(fullAnalysis(ORIGINAL), incrementalAnalysis(analysis, ORIGINAL));
+        assertEquals(0, analysis.getReusedCount());
+    }
+
+    @Test
+    public void test_changed_interface() throws JsonProcessingException {
+        IncrementalSemanticAnalysis analysis = new IncrementalSemanticAnalysis();
+        incrementalAnalysis(analysis, ORIGINAL);
+
+        String edited = ORIGINAL.replace("def g(s:str) -> str:", "def g(s:str) -> object:");
+        assertEquals(fullAnalysis(edited), incrementalAnalysis(analysis, edited));
+        assertEquals(0, analysis.getReusedCount());
+    }
+}
@@ -399,6 +399,47 @@ public class InheritanceTableTest {
 
     }
 
+    @Test
+    public void test_frozen_table() {
+        InheritanceTable table = new InheritanceTable();
+        InheritanceTable frozen = new InheritanceTable();
+        ArrayList<ValueType> types = new ArrayList<>();
+        types.add(INT_TYPE);
+        types.add(STR_TYPE);
+        types.add(BOOL_TYPE);
+        types.add(OBJECT_TYPE);
+        types.add(NONE_TYPE);
+        types.add(EMPTY_TYPE);
+        types.add(new ListValueType(INT_TYPE));
+        types.add(new ClassValueType("undeclared"));
+
+        // set inheritance graph: a deep chain c0 <- c1 <- ... <- c49,
+        // with a side branch d_i hanging off every c_i
+        ValueType parent = OBJECT_TYPE;
+        for (int i = 0; i < 50; i++) {
+            ClassValueType c = new ClassValueType("c" + i);
+            ClassValueType d = new ClassValueType("d" + i);
+            table.extend(c, parent);
+            frozen.extend(c, parent);
+            table.extend(d, c);
+            frozen.extend(d, c);
+            types.add(c);
+            types.add(d);
+            parent = c;
+        }
+        frozen.freeze();
+
+        // frozen tables answer exactly like unfrozen ones
+        for (ValueType t1 : types) {
+            for (ValueType t2 : types) {
+                assertEquals(table.isCompatible(t1, t2),
+                             frozen.isCompatible(t1, t2));
+                assertEquals(table.join(t1, t2), frozen.join(t1, t2));
+            }
+        }
 
+        assertEquals(new ClassValueType("c10"),
+                     frozen.join(new ClassValueType("d10"),
+                                 new ClassValueType("d40")));
+    }
 }
-
@@ -0,0 +1,127 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import java_cup.runtime.Symbol;
+
+import chocopy.common.astnodes.AssignStmt;
+import chocopy.common.astnodes.BinaryExpr;
+import chocopy.common.astnodes.Identifier;
+import chocopy.common.astnodes.Program;
+import chocopy.lexical.ChocoPyLexer;
+import chocopy.lexical.ChocoPyLexicalAnalysis;
+import chocopy.lexical.ChocoPyTokens;
+import chocopy.lexical.InternTable;
+
+/**
+ * Checks that the lexer returns one String instance for all the
+ * occurrences of an identifier or string literal, and that this does not
+ * change the AST from the one in PROGRAM.ast.
+ */
+public class InternTableTest {
+
+    /** The program to lex, whose baseline AST is in PROGRAM.ast. */
+    private static final String PROGRAM = "src/test/data/ast/intern.py";
+
+    private static String source() throws IOException {
+        return ProgramRunner.read(new File(PROGRAM));
+    }
+
+    /** Return the tokens of SOURCE, all from one lexer. */
+    private static List<Symbol> lex(String source) throws IOException {
+        ChocoPyLexer lexer = new ChocoPyLexer(new StringReader(source));
+        List<Symbol> result = new ArrayList<>();
+        for (Symbol token = lexer.next_token(); token.sym != ChocoPyTokens.EOF;
+             token = lexer.next_token()) {
+            result.add(token);
+        }
+        return result;
+    }
+
+    /** Return those of TOKENS with syntactic category KIND. */
+    private static List<Symbol> select(List<Symbol> tokens, int kind) {
+        List<Symbol> result = new ArrayList<>();
+        for (Symbol token : tokens) {
+            if (token.sym == kind) {
+                result.add(token);
+            }
+        }
+        return result;
+    }
+
+    /** Check that tokens with equal values have the same value instance,
+     *  and return the number of distinct values. */
+    private static int checkCanonical(List<Symbol> tokens) {
+        Map<String, String> canonical = new HashMap<>();
+        for (Symbol token : tokens) {
+            String value = (String) token.value;
+            canonical.putIfAbsent(value, value);
+            assertSame(value, canonical.get(value), value);
+        }
+        return canonical.size();
+    }
+
+    @Test
+    public void test_identifiers() throws IOException {
+        List<Symbol> ids = select(lex(source()), ChocoPyTokens.IDENTIFIER);
+        assertEquals(12, ids.size());
+        assertEquals(6, checkCanonical(ids));
+    }
+
+    @Test
+    public void test_string_literals() throws IOException {
+        List<Symbol> tokens = lex(source());
+        List<Symbol> idStrings = select(tokens, ChocoPyTokens.IDSTRING);
+        List<Symbol> strings = select(tokens, ChocoPyTokens.STRING);
+        assertEquals(2, idStrings.size());
+        assertEquals(3, strings.size());
+        assertEquals(1, checkCanonical(idStrings));
+        assertEquals(1, checkCanonical(strings));
+
+        // a string literal spelling an identifier is the identifier's string
+        List<Symbol> ids = select(tokens, ChocoPyTokens.IDENTIFIER);
+        assertSame(ids.get(0).value, idStrings.get(0).value);
+    }
+
+    @Test
+    public void test_ast_shares_names() throws IOException {
+        Program program = ChocoPyLexicalAnalysis.process(source(), false);
+        assertFalse(program.hasErrors());
+        AssignStmt assign = (AssignStmt) program.statements.get(0);
+        Identifier target = (Identifier) assign.targets.get(0);
+        Identifier operand = (Identifier) ((BinaryExpr) assign.value).left;
+        assertSame(target.name, operand.name);
+        assertSame(target.name, program.declarations.get(0).getIdentifier().name);
+    }
+
+    @Test
+    public void test_ast_unchanged() throws IOException {
+        Program program = ChocoPyLexicalAnalysis.process(source(), false);
+        assertEquals(ProgramRunner.read(new File(PROGRAM + ".ast")), program.toJSON());
+    }
+
+    @Test
+    public void test_growth() {
+        InternTable table = new InternTable();
+        List<String> first = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            first.add(table.intern("name" + i));
+        }
+        assertEquals(1000, table.size());
+        for (int i = 0; i < 1000; i++) {
+            char[] chars = ("  name" + i + " ").toCharArray();
+            assertSame(first.get(i), table.intern(chars, 2, chars.length - 3));
+            assertSame(first.get(i), table.intern(new StringBuilder("name").append(i)));
+        }
+        assertEquals(1000, table.size());
+        assertEquals("", table.intern(new char[0], 0, 0));
+        assertSame(table.intern(""), table.intern(new char[3], 1, 0));
+    }
+}
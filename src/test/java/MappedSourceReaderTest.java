@@ -0,0 +1,98 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import chocopy.common.astnodes.Program;
+import chocopy.lexical.ChocoPyLexicalAnalysis;
+import chocopy.lexical.MappedSourceReader;
+
+/**
+ * Checks that reading a source file through a memory mapping gives the
+ * characters and the AST that reading it into a String does.
+ */
+public class MappedSourceReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** Return a new file containing TEXT encoded as UTF-8. */
+    private File file(String text) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /** Return all the characters of FILE, read SIZE at a time. */
+    private static String read(File file, int size) throws IOException {
+        StringBuilder result = new StringBuilder();
+        char[] buf = new char[size + 2];
+        try (Reader reader = new MappedSourceReader(file)) {
+            for (int n = reader.read(buf, 1, size); n != -1;
+                 n = reader.read(buf, 1, size)) {
+                result.append(buf, 1, n);
+            }
+        }
+        return result.toString();
+    }
+
+    /** Check that the file containing TEXT reads as EXPECTED, whatever
+     *  the size of the reads, and parses as the String EXPECTED does. */
+    private void check(String text, String expected) throws IOException {
+        File file = file(text);
+        for (int size : new int[] { 1, 2, 3, 7, 8192 }) {
+            assertEquals("reads of " + size, expected, read(file, size));
+        }
+        Program mapped = ChocoPyLexicalAnalysis.process(file, false);
+        Program string = ChocoPyLexicalAnalysis.process(expected, false);
+        assertEquals(string.toJSON(), mapped.toJSON());
+    }
+
+    @Test
+    public void test_empty() throws IOException {
+        check("", "");
+    }
+
+    @Test
+    public void test_trailing_newline() throws IOException {
+        check("x:int = 1\nprint(x)\n", "x:int = 1\nprint(x)\n");
+    }
+
+    @Test
+    public void test_no_trailing_newline() throws IOException {
+        check("x:int = 1\nprint(x)", "x:int = 1\nprint(x)\n");
+        check("x", "x\n");
+    }
+
+    @Test
+    public void test_crlf() throws IOException {
+        check("x:int = 1\r\nif x > 0:\r\n    print(x)\r\n",
+              "x:int = 1\r\nif x > 0:\r\n    print(x)\r\n");
+        check("x:int = 1\r\nprint(x)", "x:int = 1\r\nprint(x)\n");
+        File file = file("x:int = 1\r\nif x > 0:\r\n    print(x)\r\n");
+        assertEquals(ChocoPyLexicalAnalysis.process(
+                         "x:int = 1\nif x > 0:\n    print(x)\n", false).toJSON(),
+                     ChocoPyLexicalAnalysis.process(file, false).toJSON());
+    }
+
+    @Test
+    public void test_utf8() throws IOException {
+        check("# café ☃ 😀\nprint(\"ok\")\n",
+              "# café ☃ 😀\nprint(\"ok\")\n");
+    }
+
+    @Test
+    public void test_sample_programs() throws IOException {
+        for (File file : ProgramRunner.programs()) {
+            assertEquals(file.getName(),
+                         ChocoPyLexicalAnalysis.process(ProgramRunner.read(file), false).toJSON(),
+                         ChocoPyLexicalAnalysis.process(file, false).toJSON());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import chocopy.common.astnodes.Identifier;
+
+/**
+ * Checks the error marks and out-of-range locations that Nodes keep in
+ * side tables: that each Node sees only its own entry, as the tables
+ * grow, as entries are cleared, and when several threads mark Nodes.
+ */
+public class NodeSideTableTest {
+
+    /** Return N new unmarked Nodes. */
+    private static List<Identifier> nodes(int n) {
+        List<Identifier> result = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            result.add(new Identifier(null, null, "x" + i));
+        }
+        return result;
+    }
+
+    @Test
+    public void test_marks() {
+        List<Identifier> nodes = nodes(5000);
+        for (int i = 0; i < nodes.size(); i += 2) {
+            nodes.get(i).setErrorMsg("error " + i);
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            assertEquals(i % 2 == 0 ? "error " + i : null,
+                         nodes.get(i).getErrorMsg());
+        }
+        for (int i = 0; i < nodes.size(); i += 4) {
+            nodes.get(i).setErrorMsg(null);
+            nodes.get(i + 1).setErrorMsg(null);
+        }
+        nodes.get(2).setErrorMsg("again");
+        for (int i = 0; i < nodes.size(); i++) {
+            String expected = i == 2 ? "again"
+                : i % 4 == 2 ? "error " + i : null;
+            assertEquals(expected, nodes.get(i).getErrorMsg());
+            assertEquals(expected != null, nodes.get(i).hasError());
+        }
+    }
+
+    @Test
+    public void test_wide_locations() {
+        List<Identifier> nodes = nodes(200);
+        for (int i = 0; i < nodes.size(); i++) {
+            nodes.get(i).setLocation(new int[] { i, 1 << 13, i, i % 2 == 0 ? 1 : 5000 });
+        }
+        for (int i = 0; i < nodes.size(); i += 3) {
+            nodes.get(i).setLocation(new int[] { i, 1, i, 2 });
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            int[] expected = i % 3 == 0 ? new int[] { i, 1, i, 2 }
+                : new int[] { i, 1 << 13, i, i % 2 == 0 ? 1 : 5000 };
+            assertArrayEquals(expected, nodes.get(i).getLocation());
+        }
+    }
+
+    @Test
+    public void test_threads() throws InterruptedException {
+        List<Identifier> nodes = nodes(20000);
+        AtomicInteger misses = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int first = t;
+            threads[t] = new Thread(() -> {
+                for (int i = first; i < nodes.size(); i += threads.length) {
+                    nodes.get(i).setErrorMsg("error " + i);
+                    if (!("error " + i).equals(nodes.get(i).getErrorMsg())) {
+                        misses.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, misses.get());
+        for (int i = 0; i < nodes.size(); i++) {
+            assertEquals("error " + i, nodes.get(i).getErrorMsg());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Checks that each program in ProgramRunner.PROGRAM_DIRS compiles to the
+ * same assembly code whether function bodies are emitted on one thread or
+ * on several.
+ */
+@RunWith(Parameterized.class)
+public class ParallelCodeGenTest {
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> programs() {
+        Collection<Object[]> result = new ArrayList<>();
+        for (File file : ProgramRunner.programs()) {
+            result.add(new Object[] { file });
+        }
+        return result;
+    }
+
+    private final File file;
+
+    public ParallelCodeGenTest(File file) {
+        this.file = file;
+    }
+
+    @Test
+    public void test_parallel_code_is_deterministic() throws IOException {
+        String source = ProgramRunner.read(this.file);
+        String serial = ProgramRunner.compile(source, 1);
+        for (int jobs : new int[] { 2, 4, 8 }) {
+            assertEquals("--jobs " + jobs, serial, ProgramRunner.compile(source, jobs));
+        }
+    }
+}
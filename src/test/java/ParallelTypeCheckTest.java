@@ -0,0 +1,65 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import chocopy.common.astnodes.Program;
+import chocopy.lexical.ChocoPyLexicalAnalysis;
+import chocopy.semantic.ChocoPySemanticAnalysis;
+
+/**
+ * Checks that type checking function and method bodies on several
+ * threads gives the same typed AST and errors as a sequential check,
+ * with or without the statement checks fused into type checking.
+ */
+public class ParallelTypeCheckTest {
+
+    /** Return a program with N functions and a class with N methods,
+     *  every third of which has a type error, and every fifth function
+     *  an assignment to a global it does not declare. */
+    private static String program(int n) {
+        StringBuilder source = new StringBuilder("x:int = 0\n");
+        for (int i = 0; i < n; i++) {
+            source.append("def f").append(i).append("(a:int) -> int:\n")
+                  .append("    b:str = \"\"\n")
+                  .append(i % 3 == 0 ? "    b = a\n" : "    b = \"b\"\n")
+                  .append(i % 5 == 0 ? "    x = a\n" : "")
+                  .append("    return a + x\n");
+        }
+        source.append("class C(object):\n");
+        for (int i = 0; i < n; i++) {
+            source.append("    def m").append(i).append("(self:\"C\") -> bool:\n")
+                  .append(i % 3 == 1 ? "        return 1\n" : "        return True\n");
+        }
+        source.append("print(f1(2))\nprint(C().m2())\nx = True\n");
+        return source.toString();
+    }
+
+    /** Return the typed AST of SOURCE, checked on JOBS threads, as JSON.
+     *  Iff FUSED, the statement checks are fused into type checking. */
+    private static String check(String source, int jobs, boolean fused)
+        throws JsonProcessingException {
+        Program program = ChocoPyLexicalAnalysis.process(source, false);
+        return ChocoPySemanticAnalysis.process(program, false, jobs, fused).toJSON();
+    }
+
+    @Test
+    public void test_many_bodies() throws JsonProcessingException {
+        String source = program(40);
+        String serial = check(source, 1, false);
+        assertTrue(serial.contains("not explicitly declared"));
+        assertEquals("--fused", serial, check(source, 1, true));
+        for (int jobs : new int[] { 2, 4, 8 }) {
+            assertEquals("--jobs " + jobs, serial, check(source, jobs, false));
+            assertEquals("--jobs " + jobs + " again", serial, check(source, jobs, false));
+            assertEquals("--jobs " + jobs + " --fused", serial, check(source, jobs, true));
+        }
+    }
+
+    @Test
+    public void test_few_bodies() throws JsonProcessingException {
+        String source = program(3);
+        assertEquals(check(source, 1, false), check(source, 4, false));
+        assertEquals(check(source, 1, false), check(source, 4, true));
+    }
+}
@@ -0,0 +1,133 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import chocopy.common.astnodes.CompilerError;
+import chocopy.common.astnodes.Node;
+import chocopy.common.astnodes.Program;
+import chocopy.lexical.ChocoPyLexicalAnalysis;
+
+/**
+ * Checks that the parser reports each syntax error once, at the broken
+ * line, and goes on to parse the statements after it.
+ */
+public class ParseErrorTest {
+
+    /** Return the positions of the errors in PROGRAM, as "line:column". */
+    private static List<String> errors(Program program) {
+        List<String> result = new ArrayList<>();
+        for (CompilerError error : program.getErrorList()) {
+            assertTrue(error.message, error.isSyntax());
+            int[] location = error.getLocation();
+            result.add(location[0] + ":" + location[1]);
+        }
+        return result;
+    }
+
+    /** Return the kinds and first lines of NODES, as "Kind@line". */
+    private static List<String> nodes(List<? extends Node> nodes) {
+        List<String> result = new ArrayList<>();
+        for (Node node : nodes) {
+            result.add(node.getKind() + "@" + node.getLocation()[0]);
+        }
+        return result;
+    }
+
+    @Test
+    public void test_error_in_first_statement_of_block() {
+        Program program = ChocoPyLexicalAnalysis.process(
+            "x:int = 0\n"
+            + "while x < 3:\n"
+            + "    y = = 1\n"
+            + "    x = x + 1\n"
+            + "print(x)\n", false);
+        assertEquals(Arrays.asList("3:9"), errors(program));
+        assertEquals(Arrays.asList("WhileStmt@2", "ExprStmt@5"),
+                     nodes(program.statements));
+    }
+
+    @Test
+    public void test_error_in_first_statement_of_function() {
+        Program program = ChocoPyLexicalAnalysis.process(
+            "def f(x:int) -> int:\n"
+            + "    y = = 1\n"
+            + "    return x\n"
+            + "print(f(1))\n", false);
+        assertEquals(Arrays.asList("2:9"), errors(program));
+        assertEquals(Arrays.asList("FuncDef@1"), nodes(program.declarations));
+        assertEquals(Arrays.asList("ExprStmt@4"), nodes(program.statements));
+    }
+
+    @Test
+    public void test_errors_in_consecutive_statements() {
+        Program program = ChocoPyLexicalAnalysis.process(
+            "x:int = 0\n"
+            + "x = 1 +\n"
+            + "x = * 2\n"
+            + "x = 3\n"
+            + "print(x)\n", false);
+        assertEquals(Arrays.asList("2:8", "3:5"), errors(program));
+        assertEquals(Arrays.asList("AssignStmt@4", "ExprStmt@5"),
+                     nodes(program.statements));
+    }
+
+    @Test
+    public void test_errors_in_consecutive_declarations() {
+        Program program = ChocoPyLexicalAnalysis.process(
+            "x:int = = 1\n"
+            + "def f(a int) -> int:\n"
+            + "    return a\n"
+            + "y:int = 2\n"
+            + "print(y)\n", false);
+        assertEquals(Arrays.asList("1:9", "2:9"), errors(program));
+        assertEquals(Arrays.asList("VarDef@4"), nodes(program.declarations));
+        assertEquals(Arrays.asList("ExprStmt@5"), nodes(program.statements));
+    }
+
+    @Test
+    public void test_error_in_compound_statement_header() {
+        Program program = ChocoPyLexicalAnalysis.process(
+            "x:int = 0\n"
+            + "while x < :\n"
+            + "    x = x + 1\n"
+            + "    print(x)\n"
+            + "if x > 0:\n"
+            + "    print(x)\n", false);
+        assertEquals(Arrays.asList("2:11"), errors(program));
+        assertEquals(Arrays.asList("IfStmt@5"), nodes(program.statements));
+    }
+
+    @Test
+    public void test_error_in_if_header_skips_elif_and_else() {
+        Program program = ChocoPyLexicalAnalysis.process(
+            "x:int = 0\n"
+            + "if x > 0\n"
+            + "    x = 1\n"
+            + "elif x < 0:\n"
+            + "    x = 2\n"
+            + "else:\n"
+            + "    x = 3 +\n"
+            + "print(x)\n", false);
+        assertEquals(Arrays.asList("2:9", "7:12"), errors(program));
+        assertEquals(Arrays.asList("ExprStmt@8"), nodes(program.statements));
+    }
+
+    @Test
+    public void test_error_in_elif_header() {
+        Program program = ChocoPyLexicalAnalysis.process(
+            "x:int = 0\n"
+            + "if x > 0:\n"
+            + "    x = 1\n"
+            + "elif x <:\n"
+            + "    x = 2\n"
+            + "else:\n"
+            + "    x = 3\n"
+            + "print(x)\n", false);
+        assertEquals(Arrays.asList("4:9"), errors(program));
+        assertEquals(Arrays.asList("IfStmt@2", "ExprStmt@8"),
+                     nodes(program.statements));
+    }
+}
@@ -0,0 +1,62 @@
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Checks that each program in ProgramRunner.PROGRAM_DIRS produces its
+ * expected output, both when compiled and run in Venus, with each
+ * combination of the faster runtime routines and cached string hash
+ * codes, and when interpreted.
+ */
+@RunWith(Parameterized.class)
+public class ProgramOutputTest {
+
+    @Parameters(name = "{0}{1}")
+    public static Collection<Object[]> programs() {
+        Collection<Object[]> result = new ArrayList<>();
+        for (File file : ProgramRunner.programs()) {
+            result.add(new Object[] { file, "" });
+            result.add(new Object[] { file, " --fast-runtime" });
+            result.add(new Object[] { file, " --string-hash" });
+            result.add(new Object[] { file, " --fast-runtime --string-hash" });
+        }
+        return result;
+    }
+
+    private final File file;
+    /** True iff the program is compiled with the faster runtime. */
+    private final boolean fastRuntime;
+    /** True iff the program is compiled with cached string hash codes. */
+    private final boolean stringHash;
+
+    public ProgramOutputTest(File file, String options) {
+        this.file = file;
+        this.fastRuntime = options.contains("--fast-runtime");
+        this.stringHash = options.contains("--string-hash");
+    }
+
+    @Test
+    public void test_compiled_output() throws IOException {
+        String source = ProgramRunner.read(this.file);
+        assertEquals(ProgramRunner.expectedOutput(this.file),
+                     ProgramRunner.compileAndRun(source, this.fastRuntime,
+                                                 this.stringHash));
+    }
+
+    @Test
+    public void test_interpreted_output() throws IOException {
+        /* The options concern only the compiler. */
+        assumeFalse(this.fastRuntime || this.stringHash);
+        String source = ProgramRunner.read(this.file);
+        assertEquals(ProgramRunner.expectedOutput(this.file),
+                     ProgramRunner.interpret(source));
+    }
+}
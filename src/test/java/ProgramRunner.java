@@ -0,0 +1,110 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import chocopy.codegen.ChocoPyCodeGen;
+import chocopy.common.astnodes.Program;
+import chocopy.interpreter.ChocoPyInterpreter;
+import chocopy.lexical.ChocoPyLexicalAnalysis;
+import chocopy.semantic.ChocoPySemanticAnalysis;
+import chocopy.venus.Venus;
+
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Helpers shared by the tests that compile, run and interpret whole
+ * ChocoPy programs.
+ */
+public class ProgramRunner {
+
+    /** The directories holding the programs run by the tests. */
+    public static final String[] PROGRAM_DIRS = {
+        "sample_programs", "src/test/data/programs"
+    };
+
+    /** The extension of the expected output of a program. */
+    public static final String RESULT_EXT = ".ast.typed.s.result";
+
+    /** Return the programs in PROGRAM_DIRS, sorted by path. */
+    public static List<File> programs() {
+        List<File> result = new ArrayList<>();
+        for (String dir : PROGRAM_DIRS) {
+            File[] files = new File(dir).listFiles((d, name) -> name.endsWith(".py"));
+            if (files != null) {
+                Arrays.sort(files);
+                result.addAll(Arrays.asList(files));
+            }
+        }
+        return result;
+    }
+
+    /** Return the contents of FILE. */
+    public static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    /** Return the expected output of the program in FILE. */
+    public static String expectedOutput(File file) throws IOException {
+        return read(new File(file.getPath() + RESULT_EXT));
+    }
+
+    /** Return the type-checked AST of SOURCE, which must have no errors. */
+    public static Program analyze(String source) {
+        Program program = ChocoPyLexicalAnalysis.process(source, false);
+        assertFalse(program.getErrorList().toString(), program.hasErrors());
+        program = ChocoPySemanticAnalysis.process(program, false);
+        assertFalse(program.getErrorList().toString(), program.hasErrors());
+        return program;
+    }
+
+    /** Return the assembly code generated for SOURCE on JOBS threads. */
+    public static String compile(String source, int jobs) {
+        return compile(source, jobs, false, false);
+    }
+
+    /** Return the assembly code generated for SOURCE on JOBS threads,
+     *  with the faster runtime routines iff FASTRUNTIME, and with hash
+     *  codes cached in str objects iff STRINGHASH. */
+    public static String compile(String source, int jobs,
+                                 boolean fastRuntime, boolean stringHash) {
+        return ChocoPyCodeGen.process(analyze(source), false, jobs,
+                                      fastRuntime, stringHash);
+    }
+
+    /** Return the output of running the assembly code ASM in Venus. */
+    public static String run(String asm) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream savedOut = System.out;
+        try {
+            System.setOut(new PrintStream(buffer, true));
+            Venus.assembleLinkAndRun(asm);
+        } finally {
+            System.setOut(savedOut);
+        }
+        return buffer.toString();
+    }
+
+    /** Return the output of compiling SOURCE and running it in Venus. */
+    public static String compileAndRun(String source) {
+        return run(compile(source, 1));
+    }
+
+    /** Return the output of compiling SOURCE, with the faster runtime
+     *  routines iff FASTRUNTIME and cached string hash codes iff
+     *  STRINGHASH, and running it in Venus. */
+    public static String compileAndRun(String source, boolean fastRuntime,
+                                       boolean stringHash) {
+        return run(compile(source, 1, fastRuntime, stringHash));
+    }
+
+    /** Return the output of interpreting SOURCE. */
+    public static String interpret(String source) {
+        return ChocoPyInterpreter.process(analyze(source), false);
+    }
+}
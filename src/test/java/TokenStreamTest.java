@@ -0,0 +1,63 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+
+import chocopy.lexical.ChocoPyLexicalAnalysis;
+import chocopy.lexical.TokenStream;
+
+/**
+ * Checks that parsing a pre-lexed TokenStream gives the same AST and
+ * errors as parsing the source directly, however often it is replayed.
+ */
+public class TokenStreamTest {
+
+    /** Check that SOURCE parses the same through a TokenStream. */
+    private static void check(String name, String source) throws IOException {
+        String direct = ChocoPyLexicalAnalysis.process(source, false).toJSON();
+        TokenStream tokens = TokenStream.lex(new StringReader(source));
+        assertEquals(name, direct,
+                     ChocoPyLexicalAnalysis.process(tokens, false).toJSON());
+        assertEquals(name + " again", direct,
+                     ChocoPyLexicalAnalysis.process(tokens, false).toJSON());
+    }
+
+    @Test
+    public void test_programs() throws IOException {
+        for (File file : ProgramRunner.programs()) {
+            check(file.getName(), ProgramRunner.read(file));
+        }
+        for (File file : new File("src/test/data/ast").listFiles(
+                 (d, name) -> name.endsWith(".py"))) {
+            check(file.getName(), ProgramRunner.read(file));
+        }
+    }
+
+    @Test
+    public void test_file() throws IOException {
+        File file = new File("src/test/data/ast/tree.py");
+        assertEquals(ChocoPyLexicalAnalysis.process(file, false).toJSON(),
+                     ChocoPyLexicalAnalysis.process(
+                         ChocoPyLexicalAnalysis.tokenize(file), false).toJSON());
+    }
+
+    @Test
+    public void test_syntax_errors() throws IOException {
+        check("bad statement", "x:int = 0\nx = = 1\nprint(x)\n");
+        check("bad block", "def f() -> int:\n    return 1 +* 2\nprint(f())\n");
+        check("declaration after statement", "print(1)\nx:int = 0\n");
+        check("unclosed", "print((1)\n");
+        check("no final newline", "x:int = 0\nif x:\n    pass");
+        check("nothing", "");
+    }
+
+    @Test
+    public void test_lexical_errors() throws IOException {
+        check("bad escape", "x:str = \"a\\qb\"\nprint(x)\n");
+        check("bad character", "x:int = 1 $ 2\n");
+        check("bad indentation", "if True:\n        pass\n    pass\n");
+        check("unterminated string", "x:str = \"abc\nprint(x)\n");
+    }
+}